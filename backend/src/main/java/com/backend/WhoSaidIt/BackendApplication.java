@@ -13,12 +13,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.util.UUID;
 
 @SpringBootApplication
+@EnableScheduling
 public class BackendApplication {
 
 
@@ -41,8 +43,8 @@ public class BackendApplication {
 			authenticationService.register("devuser@gmail.com", "DevUser", "password");
 
 			// Adding some extra group chats without data to fill out the front end
-			groupChatService.createGroupChat(1L, "Green Groove Gardens", "GGgardens.txt");
-			groupChatService.createGroupChat(1L, "Blue Horizon Holdings (2024)", "bluehorizon.txt");
+			groupChatService.createGroupChat(1L, "Green Groove Gardens", "GGgardens.txt", null);
+			groupChatService.createGroupChat(1L, "Blue Horizon Holdings (2024)", "bluehorizon.txt", null);
 
 			// Adding some extra quizzes without data to fill out the front end
 			QuizController.TimeAttackQuizPostRequest taq3 = new QuizController.TimeAttackQuizPostRequest(
@@ -91,59 +93,59 @@ public class BackendApplication {
 			// Adding demo leaderboard entries to quiz ID 4
 			LeaderboardController.TimeAttackEntryPostRequest taEntry1 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Joy Gibbs", 11324, 53.25, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(4L, taEntry1);
+			leaderboardService.createTimeAttackEntry(4L, taEntry1, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry2 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Bobby Baxter", 9020, 60.01, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(4L, taEntry2);
+			leaderboardService.createTimeAttackEntry(4L, taEntry2, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry3 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Mr. Word", 8750, 47.33, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(4L, taEntry3);
+			leaderboardService.createTimeAttackEntry(4L, taEntry3, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry4 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Gravey", 8015, 71.12, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(4L, taEntry4);
+			leaderboardService.createTimeAttackEntry(4L, taEntry4, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry5 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Chuck Jones", 7500, 55.00, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(4L, taEntry5);
+			leaderboardService.createTimeAttackEntry(4L, taEntry5, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry6 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"JareBear", 6235, 62.48, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(4L, taEntry6);
+			leaderboardService.createTimeAttackEntry(4L, taEntry6, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry7 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Mick Lyons", 5950, 49.95, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(4L, taEntry7);
+			leaderboardService.createTimeAttackEntry(4L, taEntry7, false);
 
 			// Adding demo leaderboard entries to quiz ID 5
 			LeaderboardController.SurvivalEntryPostRequest sEntry1 = new LeaderboardController.SurvivalEntryPostRequest(
 					"Chuck Jones", 23, 0, UUID.randomUUID().toString());
-			leaderboardService.createSurvivalEntry(5L, sEntry1);
+			leaderboardService.createSurvivalEntry(5L, sEntry1, false);
 			LeaderboardController.SurvivalEntryPostRequest sEntry2 = new LeaderboardController.SurvivalEntryPostRequest(
 					"Mr. Word", 21, 1, UUID.randomUUID().toString());
-			leaderboardService.createSurvivalEntry(5L, sEntry2);
+			leaderboardService.createSurvivalEntry(5L, sEntry2, false);
 			LeaderboardController.SurvivalEntryPostRequest sEntry3 = new LeaderboardController.SurvivalEntryPostRequest(
 					"Dwarman", 15, 0, UUID.randomUUID().toString());
-			leaderboardService.createSurvivalEntry(5L, sEntry3);
+			leaderboardService.createSurvivalEntry(5L, sEntry3, false);
 			LeaderboardController.SurvivalEntryPostRequest sEntry4 = new LeaderboardController.SurvivalEntryPostRequest(
 					"Gravey", 14, 2, UUID.randomUUID().toString());
-			leaderboardService.createSurvivalEntry(5L, sEntry4);
+			leaderboardService.createSurvivalEntry(5L, sEntry4, false);
 			LeaderboardController.SurvivalEntryPostRequest sEntry5 = new LeaderboardController.SurvivalEntryPostRequest(
 					"Joy Gibbs", 12, 0, UUID.randomUUID().toString());
-			leaderboardService.createSurvivalEntry(5L, sEntry5);
+			leaderboardService.createSurvivalEntry(5L, sEntry5, false);
 			LeaderboardController.SurvivalEntryPostRequest sEntry6 = new LeaderboardController.SurvivalEntryPostRequest(
 					"Ceilester", 8, 3, UUID.randomUUID().toString());
-			leaderboardService.createSurvivalEntry(5L, sEntry6);
+			leaderboardService.createSurvivalEntry(5L, sEntry6, false);
 
 			// Adding demo leaderboard entries to quiz ID 6
 			LeaderboardController.TimeAttackEntryPostRequest taEntry8 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Joy Gibbs", 16452, 85.10, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(6L, taEntry8);
+			leaderboardService.createTimeAttackEntry(6L, taEntry8, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry9 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Rob Robson", 14019, 90.01, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(6L, taEntry9);
+			leaderboardService.createTimeAttackEntry(6L, taEntry9, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry10 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Troy Grant", 13000, 80.33, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(6L, taEntry10);
+			leaderboardService.createTimeAttackEntry(6L, taEntry10, false);
 			LeaderboardController.TimeAttackEntryPostRequest taEntry11 = new LeaderboardController.TimeAttackEntryPostRequest(
 					"Whitney", 12215, 71.12, UUID.randomUUID().toString());
-			leaderboardService.createTimeAttackEntry(6L, taEntry11);
+			leaderboardService.createTimeAttackEntry(6L, taEntry11, false);
 		};
 	}
 }
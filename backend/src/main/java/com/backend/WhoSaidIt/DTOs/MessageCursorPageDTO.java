@@ -0,0 +1,13 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.util.List;
+
+// A page of messages fetched by cursor. Pass nextCursor as "after" to fetch the next page, or previousCursor as
+// "before" to fetch the previous one. The cursors are null if the page is empty.
+public record MessageCursorPageDTO(
+        List<MessageDTO> messages,
+        String previousCursor,
+        String nextCursor,
+        boolean hasPrevious,
+        boolean hasNext
+) {}
@@ -0,0 +1,9 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.util.List;
+
+public record QuestionBatchDTO(
+        List<QuestionDTO> questions,
+        List<ParticipantDTO> participants,
+        boolean exhausted
+) {}
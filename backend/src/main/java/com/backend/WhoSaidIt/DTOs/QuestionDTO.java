@@ -0,0 +1,11 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.time.LocalDateTime;
+
+// A message as served in a QuestionBatchDTO or a quiz pack. The sender is left out, so that the question does not carry
+// its answer.
+public record QuestionDTO(
+        Long messageId,
+        String content,
+        LocalDateTime timestamp
+) {}
@@ -0,0 +1,16 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import com.backend.WhoSaidIt.DTOs.quiz.info.QuizInfoDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// The body of a published quiz pack. The questions do not say who sent them; the possible answers are the participants
+// listed in the quiz info.
+public record QuizPackContentDTO(
+        Long quizId,
+        int version,
+        LocalDateTime publishedDate,
+        QuizInfoDTO quiz,
+        List<QuestionDTO> questions
+) {}
@@ -0,0 +1,11 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.time.LocalDateTime;
+
+public record QuizPackDTO(
+        Long quizId,
+        int version,
+        String etag,
+        int sizeBytes,
+        LocalDateTime publishedDate
+) {}
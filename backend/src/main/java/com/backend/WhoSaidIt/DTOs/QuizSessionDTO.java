@@ -0,0 +1,10 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.util.UUID;
+
+public record QuizSessionDTO(
+        UUID sessionId,
+        long quizId,
+        int quizMessageCount,
+        int messagesDealt
+) {}
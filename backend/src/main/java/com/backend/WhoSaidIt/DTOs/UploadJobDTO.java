@@ -0,0 +1,15 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.util.UUID;
+
+// Status of an asynchronous group chat upload. groupChatId is only set once the upload has been committed.
+public record UploadJobDTO(
+        UUID jobId,
+        String phase,
+        long totalBytes,
+        long bytesParsed,
+        long messagesWritten,
+        Long groupChatId,
+        String error,
+        UploadStatisticsDTO statistics
+) {}
@@ -0,0 +1,15 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record UploadPreviewDTO(
+        String format,
+        List<String> participants,
+        LocalDateTime firstMessageTimestamp,
+        LocalDateTime lastMessageTimestamp,
+        long sampledMessages,
+        long estimatedMessages,
+        long estimatedStoredMessages, // Estimated number of messages that pass the minCharacters filter
+        boolean complete // Whether the whole file was parsed, in which case the estimates are exact
+) {}
@@ -0,0 +1,12 @@
+package com.backend.WhoSaidIt.DTOs;
+
+import java.util.List;
+import java.util.UUID;
+
+public record UploadSessionDTO(
+        UUID sessionId,
+        long totalBytes,
+        int chunkSize,
+        int totalChunks,
+        List<Integer> missingChunks
+) {}
@@ -0,0 +1,11 @@
+package com.backend.WhoSaidIt.DTOs;
+
+// Reports how a group chat upload was written to the database.
+public record UploadStatisticsDTO(
+        String ingestMode,
+        long messagesWritten,
+        int batches,
+        long databaseMillis,
+        long totalMillis,
+        double messagesPerSecond
+) {}
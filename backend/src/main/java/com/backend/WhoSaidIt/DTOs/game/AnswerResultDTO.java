@@ -0,0 +1,8 @@
+package com.backend.WhoSaidIt.DTOs.game;
+
+public record AnswerResultDTO(
+        boolean correct,
+        Long correctParticipantId,
+        int scoreGained,
+        GameStateDTO game
+) {}
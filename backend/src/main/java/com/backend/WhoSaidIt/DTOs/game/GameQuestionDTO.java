@@ -0,0 +1,10 @@
+package com.backend.WhoSaidIt.DTOs.game;
+
+import java.time.LocalDateTime;
+
+// A question as shown to a player. The sender is withheld until the question is answered.
+public record GameQuestionDTO(
+        Long messageId,
+        String content,
+        LocalDateTime timestamp
+) {}
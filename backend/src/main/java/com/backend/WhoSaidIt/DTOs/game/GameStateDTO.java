@@ -0,0 +1,16 @@
+package com.backend.WhoSaidIt.DTOs.game;
+
+import java.util.UUID;
+
+public record GameStateDTO(
+        UUID gameId,
+        Long quizId,
+        String quizType,
+        int questionNumber, // 1-based number of the current question
+        int score,          // The streak, for survival quizzes
+        int skipsUsed,
+        boolean finished,
+        Double timeTaken,   // Milliseconds from the start of the game to its last answer; null until finished
+        GameQuestionDTO question, // Null once finished
+        Long leaderboardEntryId   // Null until the result has been submitted
+) {}
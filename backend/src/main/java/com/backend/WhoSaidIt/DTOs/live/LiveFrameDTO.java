@@ -0,0 +1,23 @@
+package com.backend.WhoSaidIt.DTOs.live;
+
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.DTOs.game.GameQuestionDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+// A message sent over a live room's WebSocket. Only the fields relevant to the frame's type are set.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LiveFrameDTO(
+        String type,
+        UUID playerKey,
+        List<ParticipantDTO> participants,
+        Integer questionNumber,
+        GameQuestionDTO question,
+        Integer players,
+        Integer answers,
+        Long correctParticipantId,
+        List<LiveScoreDTO> scores,
+        String error
+) {}
@@ -0,0 +1,15 @@
+package com.backend.WhoSaidIt.DTOs.live;
+
+import java.util.UUID;
+
+// The state of a live room, as seen by its host
+public record LiveRoomDTO(
+        UUID roomId,
+        Long quizId,
+        String hostKey,
+        int players,
+        int questionNumber,
+        boolean questionOpen,
+        int answers,
+        boolean closed
+) {}
@@ -0,0 +1,6 @@
+package com.backend.WhoSaidIt.DTOs.live;
+
+public record LiveScoreDTO(
+        String playerName,
+        int score
+) {}
@@ -1,40 +1,251 @@
 package com.backend.WhoSaidIt.controllers;
 
+import com.backend.WhoSaidIt.DTOs.UploadJobDTO;
+import com.backend.WhoSaidIt.DTOs.UploadPreviewDTO;
+import com.backend.WhoSaidIt.DTOs.UploadSessionDTO;
 import com.backend.WhoSaidIt.exceptions.BadFormatException;
-import com.backend.WhoSaidIt.services.FileUploadService;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.exceptions.DuplicateUploadException;
+import com.backend.WhoSaidIt.services.UploadJobService;
+import com.backend.WhoSaidIt.services.UploadPreviewService;
+import com.backend.WhoSaidIt.services.UploadSessionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
 public class FileUploadController {
 
-    private final FileUploadService fileUploadService;
+    private final UploadJobService uploadJobService;
+    private final UploadSessionService uploadSessionService;
+    private final UploadPreviewService uploadPreviewService;
 
-    public FileUploadController(FileUploadService fileUploadService) {
-        this.fileUploadService = fileUploadService;
+    public FileUploadController(
+            UploadJobService uploadJobService,
+            UploadSessionService uploadSessionService,
+            UploadPreviewService uploadPreviewService
+    ) {
+        this.uploadJobService = uploadJobService;
+        this.uploadSessionService = uploadSessionService;
+        this.uploadPreviewService = uploadPreviewService;
     }
 
+    // Uploads are processed in the background. The response contains the id of the upload job, which can be polled
+    // through the endpoint below. The group chat appears in the user's group chats once the job has completed.
     @PostMapping("/users/{userId}/group-chats/upload")
-    public ResponseEntity<String> uploadGroupChat(
+    public ResponseEntity<UploadJobDTO> uploadGroupChat(
             @RequestPart("data") MultipartFile file,
             @PathVariable Long userId,
             @RequestParam String name,
             @RequestParam Integer minCharacters
     ) {
         try {
-            fileUploadService.persistGroupChatFromFile(userId, name, file, minCharacters);
-            return ResponseEntity.ok("File uploaded successfully");
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(uploadJobService.submitUpload(userId, name, file, minCharacters));
+        } catch (DuplicateUploadException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (RejectedExecutionException e) {
+            // All upload workers are busy and the queue is full
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+    }
+
+    // Streaming uploads
+    // The export is sent as the raw request body (a .txt export, or a WhatsApp .zip export on the /zip endpoint) and
+    // parsed while it is still arriving. The response is sent once the group chat has been stored, so these endpoints
+    // are synchronous; the job in the response has already finished. They run on the request thread but are limited to
+    // as many at once as there are upload workers (503 when busy). An unparsable export, or one larger than
+    // app.upload.stream-max-size (before or after unzipping), is rejected with 422.
+    // =================================================================================================================
+
+    @PostMapping("/users/{userId}/group-chats/upload/stream")
+    public ResponseEntity<UploadJobDTO> streamGroupChat(
+            @PathVariable long userId,
+            @RequestParam String name,
+            @RequestParam(defaultValue = "chat.txt") String fileName,
+            @RequestParam Integer minCharacters,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, defaultValue = "-1") long contentLength,
+            InputStream body
+    ) {
+        return streamUpload(userId, name, fileName, minCharacters, contentLength, body, false);
+    }
+
+    @PostMapping("/users/{userId}/group-chats/upload/stream/zip")
+    public ResponseEntity<UploadJobDTO> streamZippedGroupChat(
+            @PathVariable long userId,
+            @RequestParam String name,
+            @RequestParam(defaultValue = "chat.zip") String fileName,
+            @RequestParam Integer minCharacters,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, defaultValue = "-1") long contentLength,
+            InputStream body
+    ) {
+        return streamUpload(userId, name, fileName, minCharacters, contentLength, body, true);
+    }
+
+    private ResponseEntity<UploadJobDTO> streamUpload(
+            long userId, String name, String fileName, int minCharacters, long contentLength,
+            InputStream body, boolean zipped
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploadJobService.runStreamedUpload(
+                    userId, name, fileName, contentLength, minCharacters, body, zipped
+            ));
+        } catch (DuplicateUploadException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (BadFormatException e) {
+            // The export could not be parsed, or is too large
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(null);
+        } catch (DataNotFoundException | IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (RejectedExecutionException e) {
+            // As many streamed uploads as there are upload workers are already running
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+    }
+
+    // Adds the messages of a newer export of the same chat to an existing group chat. Only messages that are newer than
+    // the group chat's latest message are stored. The job is polled through the endpoint below, as the group chat's owner.
+    @PostMapping("/group-chats/{groupChatId}/upload/append")
+    public ResponseEntity<UploadJobDTO> appendToGroupChat(
+            @RequestPart("data") MultipartFile file,
+            @PathVariable long groupChatId,
+            @RequestParam Integer minCharacters
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(uploadJobService.submitAppend(groupChatId, file, minCharacters));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
         } catch (IOException e) {
-            return ResponseEntity.badRequest().body("Error uploading file");
+            return ResponseEntity.badRequest().body(null);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+    }
+
+    // Describes the export without storing anything, so the user can check that they picked the right file.
+    // The client may send only the beginning of a large file, along with the size of the whole file in totalBytes.
+    @PostMapping("/users/{userId}/group-chats/upload/preview")
+    public ResponseEntity<UploadPreviewDTO> previewUpload(
+            @RequestPart("data") MultipartFile file,
+            @PathVariable long userId,
+            @RequestParam(required = false) Long totalBytes,
+            @RequestParam(defaultValue = "0") Integer minCharacters
+    ) {
+        try {
+            return ResponseEntity.ok(uploadPreviewService.previewUpload(file, totalBytes, minCharacters));
         } catch (BadFormatException e) {
-            // This exception is thrown when the algorithm fails to parse any messages from the file.
-            // This is likely due to the file being in an unexpected format.
-            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+            // The export could not be parsed
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(null);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @GetMapping("/users/{userId}/group-chats/upload/jobs/{jobId}")
+    public ResponseEntity<UploadJobDTO> getUploadJob(
+            @PathVariable long userId,
+            @PathVariable UUID jobId
+    ) {
+        try {
+            return ResponseEntity.ok(uploadJobService.getUploadJob(userId, jobId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Resumable uploads
+    // The client opens a session for the file, sends each chunk listed in the session's missingChunks as the raw
+    // request body, and commits the session once none are missing. If the connection drops, the session can be
+    // fetched to find out which chunks still have to be sent.
+    // =================================================================================================================
+
+    @PostMapping("/users/{userId}/group-chats/upload-sessions")
+    public ResponseEntity<UploadSessionDTO> openUploadSession(
+            @PathVariable long userId,
+            @RequestParam String name,
+            @RequestParam String fileName,
+            @RequestParam long totalBytes,
+            @RequestParam Integer minCharacters
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(uploadSessionService.openSession(userId, name, fileName, totalBytes, minCharacters));
+        } catch (BadFormatException | IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (RejectedExecutionException e) {
+            // The user must commit or abort an open session (or wait for one to expire) before opening another
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(null);
+        }
+    }
+
+    @GetMapping("/users/{userId}/group-chats/upload-sessions/{sessionId}")
+    public ResponseEntity<UploadSessionDTO> getUploadSession(
+            @PathVariable long userId,
+            @PathVariable UUID sessionId
+    ) {
+        try {
+            return ResponseEntity.ok(uploadSessionService.getSession(userId, sessionId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping("/users/{userId}/group-chats/upload-sessions/{sessionId}/chunks/{chunkIndex}")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(
+            @PathVariable long userId,
+            @PathVariable UUID sessionId,
+            @PathVariable int chunkIndex,
+            InputStream body
+    ) {
+        try {
+            return ResponseEntity.ok(uploadSessionService.writeChunk(userId, sessionId, chunkIndex, body));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException | IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @PostMapping("/users/{userId}/group-chats/upload-sessions/{sessionId}/commit")
+    public ResponseEntity<UploadJobDTO> commitUploadSession(
+            @PathVariable long userId,
+            @PathVariable UUID sessionId
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(uploadSessionService.commitSession(userId, sessionId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (DuplicateUploadException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (BadFormatException | IOException e) {
+            return ResponseEntity.badRequest().body(null);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+    }
+
+    @DeleteMapping("/users/{userId}/group-chats/upload-sessions/{sessionId}")
+    public ResponseEntity<String> abortUploadSession(
+            @PathVariable long userId,
+            @PathVariable UUID sessionId
+    ) {
+        try {
+            uploadSessionService.abortSession(userId, sessionId);
+            return ResponseEntity.ok("Upload session with id " + sessionId + " deleted.");
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 }
@@ -0,0 +1,115 @@
+package com.backend.WhoSaidIt.controllers;
+
+import com.backend.WhoSaidIt.DTOs.game.AnswerResultDTO;
+import com.backend.WhoSaidIt.DTOs.game.GameStateDTO;
+import com.backend.WhoSaidIt.DTOs.leaderboard.LeaderboardEntryDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.services.GameSessionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api")
+public class GameSessionController {
+
+    private final GameSessionService gameSessionService;
+
+    public GameSessionController(GameSessionService gameSessionService) {
+        this.gameSessionService = gameSessionService;
+    }
+
+    // Starts a game of the quiz. The response carries the first question.
+    @PostMapping("/quizzes/{quizId}/games")
+    public ResponseEntity<GameStateDTO> startGame(@PathVariable long quizId) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(gameSessionService.startGame(quizId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RejectedExecutionException e) {
+            // The maximum number of games (or of quiz sessions) are in progress
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+    }
+
+    // Clients should fetch the game when they put a question on screen: the clock of a question dealt in an answer's
+    // response starts then (or once app.play.answer-reveal-window has passed, if that is sooner)
+    @GetMapping("/quizzes/{quizId}/games/{gameId}")
+    public ResponseEntity<GameStateDTO> getGame(@PathVariable long quizId, @PathVariable UUID gameId) {
+        try {
+            return ResponseEntity.ok(gameSessionService.getGame(quizId, gameId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Answers the current question. The response carries the correct answer, the score gained, and the next question
+    // (unless the game has finished).
+    @PostMapping("/quizzes/{quizId}/games/{gameId}/answers")
+    public ResponseEntity<AnswerResultDTO> answerQuestion(
+            @PathVariable long quizId,
+            @PathVariable UUID gameId,
+            @RequestBody AnswerPostRequest answer
+    ) {
+        if (answer.messageId() == null || answer.participantId() == null) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        try {
+            return ResponseEntity.ok(
+                    gameSessionService.answer(quizId, gameId, answer.messageId(), answer.participantId())
+            );
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @PostMapping("/quizzes/{quizId}/games/{gameId}/skips")
+    public ResponseEntity<GameStateDTO> skipQuestion(
+            @PathVariable long quizId,
+            @PathVariable UUID gameId,
+            @RequestParam long messageId
+    ) {
+        try {
+            return ResponseEntity.ok(gameSessionService.skip(quizId, gameId, messageId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // Submits the finished game to the quiz's leaderboard, with the score computed by the server
+    @PostMapping("/quizzes/{quizId}/games/{gameId}/leaderboard")
+    public ResponseEntity<LeaderboardEntryDTO> submitGameResult(
+            @PathVariable long quizId,
+            @PathVariable UUID gameId,
+            @RequestBody GameResultPostRequest result
+    ) {
+        try {
+            return ResponseEntity.ok(
+                    gameSessionService.submitResult(quizId, gameId, result.playerName(), result.playerUUID())
+            );
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException | IllegalArgumentException e) { // IllegalArgumentException: invalid player UUID
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // Both fields are required
+    public record AnswerPostRequest(
+            Long messageId,
+            Long participantId
+    ) {}
+
+    public record GameResultPostRequest(
+            String playerName,
+            String playerUUID
+    ) {}
+}
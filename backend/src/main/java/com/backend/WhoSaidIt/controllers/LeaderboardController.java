@@ -5,7 +5,9 @@ import com.backend.WhoSaidIt.DTOs.leaderboard.SurvivalEntryDTO;
 import com.backend.WhoSaidIt.DTOs.leaderboard.TimeAttackEntryDTO;
 import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
 import com.backend.WhoSaidIt.services.LeaderboardService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.util.Pair;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,6 +21,12 @@ public class LeaderboardController {
 
     private final LeaderboardService leaderboardService;
 
+    // Whether clients may submit and update scores they computed themselves. Games played through GameSessionController
+    // are submitted with the score computed by the server, and their entries cannot be updated by clients; the
+    // endpoints below remain for clients that score games locally, and answer 403 Forbidden once this is disabled.
+    @Value("${app.play.client-scores-enabled}")
+    private boolean clientScoresEnabled;
+
     public LeaderboardController(LeaderboardService leaderboardService) {
         this.leaderboardService = leaderboardService;
     }
@@ -53,14 +61,20 @@ public class LeaderboardController {
     public ResponseEntity<TimeAttackEntryDTO> createTimeAttackEntry(
             @PathVariable long quizId,
             @RequestBody TimeAttackEntryPostRequest taEntry) {
-        return ResponseEntity.ok(leaderboardService.createTimeAttackEntry(quizId, taEntry));
+        if (!clientScoresEnabled) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        }
+        return ResponseEntity.ok(leaderboardService.createTimeAttackEntry(quizId, taEntry, false));
     }
 
     @PostMapping("/quizzes/{quizId}/leaderboard/survival")
     public ResponseEntity<SurvivalEntryDTO> createSurvivalEntry(
             @PathVariable long quizId,
             @RequestBody SurvivalEntryPostRequest survivalEntry) {
-        return ResponseEntity.ok(leaderboardService.createSurvivalEntry(quizId, survivalEntry));
+        if (!clientScoresEnabled) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        }
+        return ResponseEntity.ok(leaderboardService.createSurvivalEntry(quizId, survivalEntry, false));
     }
 
     @PatchMapping("/quizzes/{quizId}/leaderboard/{entryId}/time-attack")
@@ -68,6 +82,9 @@ public class LeaderboardController {
             @PathVariable long quizId,
             @PathVariable long entryId,
             @RequestBody TimeAttackEntryPostRequest taEntry) {
+        if (!clientScoresEnabled) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        }
         try {
             leaderboardService.updateTimeAttackEntry(quizId, entryId, taEntry);
             return ResponseEntity.ok("Time attack entry with id " + entryId + " updated.");
@@ -83,6 +100,9 @@ public class LeaderboardController {
             @PathVariable long quizId,
             @PathVariable long entryId,
             @RequestBody SurvivalEntryPostRequest sEntry) {
+        if (!clientScoresEnabled) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(null);
+        }
         try {
             leaderboardService.updateSurvivalEntry(quizId, entryId, sEntry);
             return ResponseEntity.ok("Survival entry with id " + entryId + " updated.");
@@ -0,0 +1,79 @@
+package com.backend.WhoSaidIt.controllers;
+
+import com.backend.WhoSaidIt.DTOs.live.LiveRoomDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.services.LiveRoomService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api")
+public class LiveRoomController {
+    // Endpoints for the host of a live room. Players join the room through its WebSocket (see LiveRoomEndpoint).
+
+    private final LiveRoomService liveRoomService;
+
+    public LiveRoomController(LiveRoomService liveRoomService) {
+        this.liveRoomService = liveRoomService;
+    }
+
+    // Opens a live room for the quiz. The response carries the room id, which players join with, and the host key.
+    @PostMapping("/quizzes/{quizId}/rooms")
+    public ResponseEntity<LiveRoomDTO> createRoom(@PathVariable long quizId) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(liveRoomService.createRoom(quizId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RejectedExecutionException e) {
+            // The maximum number of quiz sessions are in progress
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+    }
+
+    @GetMapping("/quizzes/{quizId}/rooms/{roomId}")
+    public ResponseEntity<LiveRoomDTO> getRoom(@PathVariable long quizId, @PathVariable UUID roomId) {
+        try {
+            return ResponseEntity.ok(liveRoomService.getRoom(quizId, roomId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Broadcasts the next question to the room, revealing the answer to the previous one if it is still open
+    @PostMapping("/quizzes/{quizId}/rooms/{roomId}/questions")
+    public ResponseEntity<LiveRoomDTO> nextQuestion(@PathVariable long quizId, @PathVariable UUID roomId) {
+        try {
+            return ResponseEntity.ok(liveRoomService.nextQuestion(quizId, roomId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // Closes the open question and broadcasts its answer with the scoreboard
+    @PostMapping("/quizzes/{quizId}/rooms/{roomId}/reveal")
+    public ResponseEntity<LiveRoomDTO> revealAnswer(@PathVariable long quizId, @PathVariable UUID roomId) {
+        try {
+            return ResponseEntity.ok(liveRoomService.revealAnswer(quizId, roomId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @DeleteMapping("/quizzes/{quizId}/rooms/{roomId}")
+    public ResponseEntity<LiveRoomDTO> closeRoom(@PathVariable long quizId, @PathVariable UUID roomId) {
+        try {
+            return ResponseEntity.ok(liveRoomService.closeRoom(quizId, roomId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
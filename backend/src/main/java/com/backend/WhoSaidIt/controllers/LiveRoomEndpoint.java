@@ -0,0 +1,130 @@
+package com.backend.WhoSaidIt.controllers;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.services.LiveRoomService;
+import com.backend.WhoSaidIt.services.live.LiveConnection;
+import jakarta.servlet.ServletContext;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.DeploymentException;
+import jakarta.websocket.Endpoint;
+import jakarta.websocket.EndpointConfig;
+import jakarta.websocket.Session;
+import jakarta.websocket.server.ServerContainer;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.ServletContextAware;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Component
+public class LiveRoomEndpoint extends Endpoint implements ServletContextAware, SmartInitializingSingleton {
+    // The WebSocket of a live room, at /live/rooms/{roomId}.
+    // Players connect with ?name=<player name>, and may add &player=<player key> to resume after a disconnect. The host
+    // connects with ?hostKey=<host key> instead. See LiveRoom for the frames that are sent and received.
+    // The room id is the only credential a player needs, like a shareable quiz link, so the socket is outside of /api.
+    //
+    // This is a plain Jakarta WebSocket endpoint, registered with the servlet container's ServerContainer once the
+    // application has started. Without a container (e.g., in a mock servlet environment under tests) registration is
+    // skipped, and only the REST side of live rooms is available.
+
+    public static final String PATH = "/live/rooms/{roomId}";
+    private static final int MAX_ANSWER_FRAME_SIZE = 1024;
+
+    private final LiveRoomService liveRoomService;
+    private ServletContext servletContext;
+
+    @Value("${app.cors.allowed-origins}")
+    private String allowedOrigins;
+
+    public LiveRoomEndpoint(LiveRoomService liveRoomService) {
+        this.liveRoomService = liveRoomService;
+    }
+
+    @Override
+    public void setServletContext(ServletContext servletContext) {
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        ServerContainer container = servletContext == null
+                ? null
+                : (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+        if (container == null) {
+            return;
+        }
+        ServerEndpointConfig config = ServerEndpointConfig.Builder.create(LiveRoomEndpoint.class, PATH)
+                .configurator(new ServerEndpointConfig.Configurator() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <T> T getEndpointInstance(Class<T> endpointClass) {
+                        return (T) LiveRoomEndpoint.this;
+                    }
+
+                    // Browsers send an Origin header, which must be the frontend's; other clients do not
+                    @Override
+                    public boolean checkOrigin(String originHeaderValue) {
+                        return originHeaderValue == null || originHeaderValue.equals(allowedOrigins);
+                    }
+                })
+                .build();
+        try {
+            container.addEndpoint(config);
+        } catch (DeploymentException e) {
+            throw new IllegalStateException("Failed to register the live room WebSocket.", e);
+        }
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        session.setMaxTextMessageBufferSize(MAX_ANSWER_FRAME_SIZE);
+        LiveConnection connection = new LiveConnection(
+                session, liveRoomService.getMaxQueuedFrames(), liveRoomService.getCloseExecutor()
+        );
+        Map<String, List<String>> parameters = session.getRequestParameterMap();
+        UUID roomId;
+        try {
+            roomId = UUID.fromString(session.getPathParameters().get("roomId"));
+            String player = getParameter(parameters, "player");
+            liveRoomService.connect(
+                    roomId, connection, getParameter(parameters, "name"),
+                    player == null ? null : UUID.fromString(player), getParameter(parameters, "hostKey")
+            );
+        } catch (DataNotFoundException e) {
+            connection.close(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Room not found."));
+            return;
+        } catch (BadFormatException | IllegalArgumentException e) {
+            connection.close(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, truncate(e.getMessage())));
+            return;
+        }
+        session.getUserProperties().put(LiveConnection.class.getName(), connection);
+        session.addMessageHandler(String.class, frame -> liveRoomService.receive(roomId, connection, frame));
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        LiveConnection connection = (LiveConnection) session.getUserProperties().get(LiveConnection.class.getName());
+        if (connection != null) {
+            UUID roomId = UUID.fromString(session.getPathParameters().get("roomId"));
+            liveRoomService.disconnect(roomId, connection);
+        }
+    }
+
+    private static String getParameter(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    // Close reasons are limited to 123 bytes
+    private static String truncate(String reason) {
+        if (reason == null) {
+            return "";
+        }
+        return reason.length() <= 60 ? reason : reason.substring(0, 60);
+    }
+}
@@ -1,50 +1,132 @@
 package com.backend.WhoSaidIt.controllers;
 
+import com.backend.WhoSaidIt.DTOs.MessageCursorPageDTO;
 import com.backend.WhoSaidIt.DTOs.MessageDTO;
 import com.backend.WhoSaidIt.DTOs.MessagePageDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
 import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.exceptions.StaleOrdinalsException;
 import com.backend.WhoSaidIt.services.MessageService;
+import com.backend.WhoSaidIt.services.QuizSessionService;
+import com.backend.WhoSaidIt.services.play.OrdinalMessage;
+import com.backend.WhoSaidIt.services.play.SamplingMode;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api")
 public class MessageController {
 
+    public static final String MESSAGE_ORDINAL_HEADER = "X-Message-Ordinal";
+    public static final String EXCLUDED_ORDINALS_HEADER = "X-Excluded-Ordinals";
+    public static final String ORDINAL_SPACE_HEADER = "X-Ordinal-Space";
+
     private final MessageService messageService;
+    private final QuizSessionService quizSessionService;
 
-    public MessageController(MessageService messageService) {
+    public MessageController(MessageService messageService, QuizSessionService quizSessionService) {
         this.messageService = messageService;
+        this.quizSessionService = quizSessionService;
     }
 
     // The request parameter excludedMessageIds is a comma separated list of message ids that should be excluded from
     // the random selection. This is to prevent the same message from being selected twice in a session.
+    // If a sessionId (see QuizSessionController) is given instead, the server keeps track of the messages already
+    // served, and excludedMessageIds is ignored.
+    // Stateless clients may instead send excludedOrdinals, a compact encoding of the messages already served (see
+    // ExclusionBitmaps); an empty value starts a new run. The response then carries the served message's ordinal and
+    // the updated encoding, to be sent with the next request, in the X-Message-Ordinal and X-Excluded-Ordinals headers.
+    // Ordinals shift when the quiz's messages change, so the response also carries the ordinal space they refer to in
+    // the X-Ordinal-Space header. Clients should send it back as ordinalSpace; once it is out of date, the request is
+    // answered with 409 Conflict and the client should start a new run.
+    // Without a session, the request parameter sampling selects how messages are chosen (uniform, balanced or weighted;
+    // see SamplingMode). For weighted sampling, participantWeights is a comma separated list of participantId:weight.
     @GetMapping("/quizzes/{quizId}/messages/random")
     public ResponseEntity<MessageDTO> getRandomQuizMessage(
             @PathVariable long quizId,
-            @RequestParam(required = false) String excludedMessageIds
+            @RequestParam(required = false) String excludedMessageIds,
+            @RequestParam(required = false) UUID sessionId,
+            @RequestParam(required = false) String excludedOrdinals,
+            @RequestParam(required = false) String ordinalSpace,
+            @RequestParam(required = false) String sampling,
+            @RequestParam(required = false) String participantWeights
     ) {
+        if (sessionId != null) {
+            try {
+                return ResponseEntity.ok(quizSessionService.nextMessage(quizId, sessionId));
+            } catch (DataNotFoundException e) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+        SamplingMode mode;
+        Map<Long, Double> weights;
+        try {
+            mode = sampling == null ? SamplingMode.UNIFORM : SamplingMode.valueOf(sampling.toUpperCase());
+            weights = parseParticipantWeights(participantWeights);
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException
+            return ResponseEntity.badRequest().body(null);
+        }
+        if (excludedOrdinals != null) {
+            try {
+                OrdinalMessage selection = messageService.getRandomQuizMessage(
+                        quizId, excludedOrdinals, ordinalSpace, mode, weights
+                );
+                return ResponseEntity.ok()
+                        .header(MESSAGE_ORDINAL_HEADER, String.valueOf(selection.ordinal()))
+                        .header(EXCLUDED_ORDINALS_HEADER, selection.excludedOrdinals())
+                        .header(ORDINAL_SPACE_HEADER, selection.ordinalSpace())
+                        .body(selection.message());
+            } catch (DataNotFoundException e) {
+                return ResponseEntity.notFound().build();
+            } catch (BadFormatException e) {
+                return ResponseEntity.badRequest().body(null);
+            } catch (StaleOrdinalsException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+            }
+        }
         List<Long> ids = new ArrayList<>();
         if (excludedMessageIds != null) {
             ids = Arrays.stream(excludedMessageIds.split(","))
                     .map(Long::valueOf).collect(Collectors.toList());
         }
         try {
-            return ResponseEntity.ok(messageService.getRandomQuizMessage(quizId, ids));
+            return ResponseEntity.ok(messageService.getRandomQuizMessage(quizId, ids, mode, weights));
         } catch (DataNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
         }
     }
 
+    // Parses "12:2,13:0.5" into {12=2.0, 13=0.5}
+    private static Map<Long, Double> parseParticipantWeights(String participantWeights) {
+        Map<Long, Double> weights = new HashMap<>();
+        if (participantWeights == null || participantWeights.isBlank()) {
+            return weights;
+        }
+        for (String entry : participantWeights.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Participant weights must be formatted as participantId:weight.");
+            }
+            weights.put(Long.valueOf(parts[0].trim()), Double.valueOf(parts[1].trim()));
+        }
+        return weights;
+    }
+
 
     @GetMapping("/group-chats/{groupChatId}/messages/paginated")
     public ResponseEntity<MessagePageDTO> getPaginatedGroupChatMessages(
@@ -80,7 +162,7 @@ public class MessageController {
         Pageable pageable = PageRequest.of(
                 pageNumber,
                 pageSize,
-                ascending ? Sort.by("m.timestamp").ascending() : Sort.by("m.timestamp").descending()
+                ascending ? Sort.by("timestamp").ascending() : Sort.by("timestamp").descending()
         );
         Page<MessageDTO> messages;
         if (participantId != null) {
@@ -91,6 +173,45 @@ public class MessageController {
         return ResponseEntity.ok(toMessagePageDTO(messages));
     }
 
+    // Cursor (keyset) pagination of a group chat's messages, which costs the same for every page unlike the paginated
+    // endpoint above. Omit the cursors for the first page; pass a page's nextCursor as after for the following page, or
+    // its previousCursor as before for the preceding one.
+    @GetMapping("/group-chats/{groupChatId}/messages/cursor")
+    public ResponseEntity<MessageCursorPageDTO> getGroupChatMessagesByCursor(
+            @PathVariable long groupChatId,
+            @RequestParam int pageSize,
+            @RequestParam boolean ascending,
+            @RequestParam(required = false) Long participantId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before
+    ) {
+        try {
+            return ResponseEntity.ok(messageService.getGroupChatMessagesByCursor(
+                    groupChatId, participantId, ascending, after, before, pageSize
+            ));
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @GetMapping("/quizzes/{quizId}/messages/cursor")
+    public ResponseEntity<MessageCursorPageDTO> getQuizMessagesByCursor(
+            @PathVariable long quizId,
+            @RequestParam int pageSize,
+            @RequestParam boolean ascending,
+            @RequestParam(required = false) Long participantId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before
+    ) {
+        try {
+            return ResponseEntity.ok(messageService.getQuizMessagesByCursor(
+                    quizId, participantId, ascending, after, before, pageSize
+            ));
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @GetMapping("/messages/{messageId}")
     public ResponseEntity<MessageDTO> getMessage(@PathVariable long messageId) {
         return ResponseEntity.ok(messageService.getMessage(messageId));
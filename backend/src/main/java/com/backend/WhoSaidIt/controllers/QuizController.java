@@ -1,9 +1,11 @@
 package com.backend.WhoSaidIt.controllers;
 
+import com.backend.WhoSaidIt.DTOs.GroupChatDTO;
 import com.backend.WhoSaidIt.DTOs.quiz.QuizDTO;
 import com.backend.WhoSaidIt.DTOs.quiz.SurvivalQuizDTO;
 import com.backend.WhoSaidIt.DTOs.quiz.TimeAttackQuizDTO;
 import com.backend.WhoSaidIt.DTOs.quiz.info.QuizInfoDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
 import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
 import com.backend.WhoSaidIt.services.QuizService;
 import org.springframework.http.ResponseEntity;
@@ -76,6 +78,29 @@ public class QuizController {
         }
     }
 
+    // The group chats the quiz draws messages from, starting with its own
+    @GetMapping("/quizzes/{quizId}/sources")
+    public ResponseEntity<List<GroupChatDTO>> getSourceGroupChats(@PathVariable long quizId) {
+        try {
+            return ResponseEntity.ok(quizService.getSourceGroupChats(quizId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Replaces the other group chats of the user that the quiz draws messages from
+    @PutMapping("/quizzes/{quizId}/sources")
+    public ResponseEntity<List<GroupChatDTO>> setSourceGroupChats(
+            @PathVariable long quizId,
+            @RequestBody List<Long> groupChatIds
+    ) {
+        try {
+            return ResponseEntity.ok(quizService.setSourceGroupChats(quizId, groupChatIds));
+        } catch (DataNotFoundException | BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
     @DeleteMapping("/quizzes/{quizId}")
     public ResponseEntity<String> deleteQuiz(@PathVariable long quizId) {
         try {
@@ -0,0 +1,86 @@
+package com.backend.WhoSaidIt.controllers;
+
+import com.backend.WhoSaidIt.DTOs.QuizPackDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.services.QuizPackService;
+import com.backend.WhoSaidIt.services.play.PublishedPack;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+@RestController
+@RequestMapping("/api")
+public class QuizPackController {
+
+    public static final String PACK_VERSION_HEADER = "X-Pack-Version";
+
+    private static final Duration VERSIONED_PACK_MAX_AGE = Duration.ofDays(365);
+
+    private final QuizPackService quizPackService;
+
+    public QuizPackController(QuizPackService quizPackService) {
+        this.quizPackService = quizPackService;
+    }
+
+    // Publishes the current state of the quiz as a new version of its pack. Only the quiz's owner may publish it.
+    @PostMapping("/quizzes/{quizId}/pack")
+    public ResponseEntity<QuizPackDTO> publishQuizPack(@PathVariable long quizId) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(quizPackService.publish(quizId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // The current version of the pack. Clients revalidate it with If-None-Match on every use, since the quiz may be
+    // republished; the response names the version in the X-Pack-Version header.
+    @GetMapping("/quizzes/{quizId}/pack")
+    public ResponseEntity<byte[]> getCurrentQuizPack(@PathVariable long quizId, WebRequest request) {
+        try {
+            PublishedPack pack = quizPackService.getCurrentPack(quizId);
+            return packResponse(pack, CacheControl.noCache().cachePrivate(), request);
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // A specific version of the pack, which never changes and so may be cached indefinitely
+    @GetMapping("/quizzes/{quizId}/packs/{version}")
+    public ResponseEntity<byte[]> getQuizPack(
+            @PathVariable long quizId,
+            @PathVariable int version,
+            WebRequest request
+    ) {
+        try {
+            PublishedPack pack = quizPackService.getPack(quizId, version);
+            CacheControl cacheControl = CacheControl.maxAge(VERSIONED_PACK_MAX_AGE).cachePrivate().immutable();
+            return packResponse(pack, cacheControl, request);
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private static ResponseEntity<byte[]> packResponse(PublishedPack pack, CacheControl cacheControl, WebRequest request) {
+        if (request.checkNotModified(pack.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(pack.etag())
+                    .cacheControl(cacheControl)
+                    .header(PACK_VERSION_HEADER, String.valueOf(pack.version()))
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(pack.etag())
+                .cacheControl(cacheControl)
+                .header(PACK_VERSION_HEADER, String.valueOf(pack.version()))
+                .body(pack.payload());
+    }
+}
@@ -0,0 +1,92 @@
+package com.backend.WhoSaidIt.controllers;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.QuestionBatchDTO;
+import com.backend.WhoSaidIt.DTOs.QuizSessionDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.services.QuizSessionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api")
+public class QuizSessionController {
+
+    private final QuizSessionService quizSessionService;
+
+    public QuizSessionController(QuizSessionService quizSessionService) {
+        this.quizSessionService = quizSessionService;
+    }
+
+    // Starts a play-through of the quiz. Its messages are then fetched one at a time from the next-message endpoint,
+    // in a random order and without repeats.
+    @PostMapping("/quizzes/{quizId}/sessions")
+    public ResponseEntity<QuizSessionDTO> startQuizSession(@PathVariable long quizId) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(quizSessionService.startSession(quizId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (RejectedExecutionException e) {
+            // The maximum number of quiz sessions are in progress
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        }
+    }
+
+    @GetMapping("/quizzes/{quizId}/sessions/{sessionId}")
+    public ResponseEntity<QuizSessionDTO> getQuizSession(
+            @PathVariable long quizId,
+            @PathVariable UUID sessionId
+    ) {
+        try {
+            return ResponseEntity.ok(quizSessionService.getSession(quizId, sessionId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/quizzes/{quizId}/sessions/{sessionId}/next-message")
+    public ResponseEntity<MessageDTO> getNextQuizMessage(
+            @PathVariable long quizId,
+            @PathVariable UUID sessionId
+    ) {
+        try {
+            return ResponseEntity.ok(quizSessionService.nextMessage(quizId, sessionId));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Deals the session's next count messages at once, so that clients can prefetch questions.
+    @GetMapping("/quizzes/{quizId}/sessions/{sessionId}/next-messages")
+    public ResponseEntity<QuestionBatchDTO> getNextQuizMessages(
+            @PathVariable long quizId,
+            @PathVariable UUID sessionId,
+            @RequestParam int count
+    ) {
+        try {
+            return ResponseEntity.ok(quizSessionService.nextMessages(quizId, sessionId, count));
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BadFormatException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    @DeleteMapping("/quizzes/{quizId}/sessions/{sessionId}")
+    public ResponseEntity<String> endQuizSession(
+            @PathVariable long quizId,
+            @PathVariable UUID sessionId
+    ) {
+        try {
+            quizSessionService.endSession(quizId, sessionId);
+            return ResponseEntity.ok("Quiz session with id " + sessionId + " ended.");
+        } catch (DataNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.backend.WhoSaidIt.DTOs.GroupChatDTO;
 import com.backend.WhoSaidIt.DTOs.GroupChatInfoDTO;
 import com.backend.WhoSaidIt.entities.quiz.Quiz;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -43,6 +44,11 @@ public class GroupChat {
     @JsonBackReference
     private List<Quiz> quizzes = new ArrayList<>();
 
+    // Quizzes of other group chats that also draw messages from this one
+    @ManyToMany(mappedBy = "sourceGroupChats")
+    @JsonIgnore
+    private List<Quiz> sourcedQuizzes = new ArrayList<>();
+
     @Column(name = "groupChatName", columnDefinition = "TEXT", nullable = false)
     private String groupChatName;
 
@@ -53,12 +59,17 @@ public class GroupChat {
     @Column(name = "fileName", columnDefinition = "TEXT", nullable = false)
     private String fileName;
 
+    // SHA-256 hash of the uploaded file, used to detect repeat uploads. Null for group chats uploaded before hashing.
+    @Column(name = "fileHash", columnDefinition = "TEXT")
+    private String fileHash;
+
     public GroupChat() {}
 
-    public GroupChat(User user, String groupChatName, String fileName) {
+    public GroupChat(User user, String groupChatName, String fileName, String fileHash) {
         this.user = user;
         this.groupChatName = groupChatName;
         this.fileName = fileName;
+        this.fileHash = fileHash;
     }
 
     public Long getId() { return id; }
@@ -71,12 +82,18 @@ public class GroupChat {
 
     public List<Quiz> getQuizzes() { return quizzes; }
 
+    public List<Quiz> getSourcedQuizzes() { return sourcedQuizzes; }
+
     public String getGroupChatName() { return groupChatName; }
 
     public LocalDateTime getUploadDate() { return uploadDate; }
 
     public String getFileName() { return fileName; }
 
+    public String getFileHash() { return fileHash; }
+
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
     public GroupChatDTO toDTO() {
         return new GroupChatDTO(
                 this.getId(),
@@ -14,7 +14,12 @@ import static jakarta.persistence.GenerationType.SEQUENCE;
 
 @Entity
 @Table(
-        name = "messages"
+        name = "messages",
+        indexes = {
+                // Keyset pagination of a group chat's messages, optionally of a single participant's
+                @Index(name = "idx_message_group_chat_timestamp", columnList = "groupChatId, timestamp, messageId"),
+                @Index(name = "idx_message_participant_timestamp", columnList = "participantId, timestamp, messageId")
+        }
 )
 public class Message {
 
@@ -40,6 +40,12 @@ public abstract class LeaderboardEntry {
     @Column(name = "playerUUID", columnDefinition = "UUID")
     private UUID playerUUID;
 
+    // Whether the score was computed by the server (see GameSessionService), rather than reported by the client.
+    // This does not make the score tamper-proof: while client scoring is enabled, share link holders can still read the
+    // senders of a quiz's messages from the message endpoints, and answer with them.
+    @Column(name = "verified", columnDefinition = "BOOLEAN NOT NULL DEFAULT FALSE")
+    private boolean verified;
+
     public LeaderboardEntry() {}
 
     public LeaderboardEntry(Quiz quiz, String playerName, UUID playerUUID) {
@@ -58,5 +64,9 @@ public abstract class LeaderboardEntry {
 
     public void setSubmissionDate(LocalDateTime submissionDate) { this.submissionDate = submissionDate; }
 
+    public boolean isVerified() { return verified; }
+
+    public void setVerified(boolean verified) { this.verified = verified; }
+
     public abstract LeaderboardEntryDTO toDTO();
 }
@@ -13,7 +13,9 @@ import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
 @Table(name = "quizzes", indexes = {
@@ -38,15 +40,34 @@ public abstract class Quiz {
     @JsonBackReference
     private List<LeaderboardEntry> leaderboardEntries = new ArrayList<>();
 
+    // The published form of the quiz, if it has ever been published
+    @OneToOne(mappedBy = "quiz", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
+    private QuizPack pack;
+
+    // Each message has a dense position in [0, number of messages), which keeps the join table's rows in list order.
+    // Use removeMessages() to remove messages, which keeps the positions dense while moving as few rows as possible.
     @ManyToMany(cascade = { CascadeType.PERSIST, CascadeType.MERGE })
     @JoinTable(
             name = "messagesInQuiz",
             joinColumns = @JoinColumn(name = "quizId"),
-            inverseJoinColumns = @JoinColumn(name = "messageId")
+            inverseJoinColumns = @JoinColumn(name = "messageId"),
+            indexes = @Index(name = "idx_quiz_position", columnList = "quizId, quizPosition", unique = true)
     )
+    @OrderColumn(name = "quizPosition")
     @JsonIgnore
     private List<Message> messagesInQuiz = new ArrayList<>();
 
+    // Other group chats of the same user that the quiz also draws messages from, e.g., for a quiz across all of them
+    @ManyToMany
+    @JoinTable(
+            name = "quizSourceGroupChats",
+            joinColumns = @JoinColumn(name = "quizId"),
+            inverseJoinColumns = @JoinColumn(name = "groupChatId")
+    )
+    @JsonIgnore
+    private Set<GroupChat> sourceGroupChats = new HashSet<>();
+
     @Column(name = "quizName", columnDefinition = "TEXT", nullable = false)
     private String quizName;
 
@@ -81,6 +102,41 @@ public abstract class Quiz {
 
     public List<Message> getMessagesInQuiz() { return messagesInQuiz; }
 
+    // Removes the messages with the given ids. Each removed message is replaced by the current last message, so only
+    // the position of that message changes, instead of the positions of every message after the removed one.
+    // Returns the number of messages removed.
+    public int removeMessages(Set<Long> messageIds) {
+        int initialSize = messagesInQuiz.size();
+        int size = initialSize;
+        int position = 0;
+        while (position < size) {
+            if (messageIds.contains(messagesInQuiz.get(position).getId())) {
+                size--;
+                messagesInQuiz.set(position, messagesInQuiz.get(size));
+                messagesInQuiz.remove(size);
+            } else {
+                position++;
+            }
+        }
+        return initialSize - size;
+    }
+
+    public Set<GroupChat> getSourceGroupChats() { return sourceGroupChats; }
+
+    // The ids of every group chat the quiz draws messages from: its own group chat first, then its other sources in
+    // ascending order
+    public long[] getSourceGroupChatIds() {
+        long[] others = sourceGroupChats.stream()
+                .mapToLong(GroupChat::getId)
+                .filter(id -> id != groupChat.getId())
+                .sorted()
+                .toArray();
+        long[] ids = new long[others.length + 1];
+        ids[0] = groupChat.getId();
+        System.arraycopy(others, 0, ids, 1, others.length);
+        return ids;
+    }
+
     public String getQuizName() { return quizName; }
 
     public String getDescription() { return description; }
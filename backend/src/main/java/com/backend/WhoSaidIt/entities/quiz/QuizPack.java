@@ -0,0 +1,71 @@
+package com.backend.WhoSaidIt.entities.quiz;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+import static jakarta.persistence.GenerationType.SEQUENCE;
+
+@Entity
+@Table(
+        name = "quizPacks"
+)
+public class QuizPack {
+    // The published, pre-serialized form of a quiz (see QuizPackService).
+    // A quiz has at most one pack. Editing the quiz unpublishes the pack by clearing its payload; the row is kept so that
+    // the next publish continues the version sequence.
+
+    @Id
+    @SequenceGenerator(name = "quiz_pack_sequence", sequenceName = "quiz_pack_sequence", allocationSize = 1)
+    @GeneratedValue(strategy = SEQUENCE, generator = "quiz_pack_sequence")
+    @Column(name = "quizPackId", updatable = false)
+    private Long id;
+
+    @OneToOne
+    @JoinColumn(name = "quizId", referencedColumnName = "quizId", nullable = false, unique = true)
+    @JsonIgnore
+    private Quiz quiz;
+
+    @Column(name = "version", nullable = false)
+    private int version;
+
+    // Strong entity tag of the payload, including quotes. Null while unpublished.
+    @Column(name = "etag", columnDefinition = "TEXT")
+    private String etag;
+
+    // The serialized QuizPackContentDTO. Null while unpublished.
+    @Column(name = "payload", columnDefinition = "BYTEA")
+    private byte[] payload;
+
+    @Column(name = "publishedDate", columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private LocalDateTime publishedDate;
+
+    public QuizPack() {}
+
+    public QuizPack(Quiz quiz) {
+        this.quiz = quiz;
+        this.version = 0;
+    }
+
+    public Long getId() { return id; }
+
+    public Quiz getQuiz() { return quiz; }
+
+    public int getVersion() { return version; }
+
+    public String getEtag() { return etag; }
+
+    public byte[] getPayload() { return payload; }
+
+    public LocalDateTime getPublishedDate() { return publishedDate; }
+
+    public boolean isPublished() { return payload != null; }
+
+    public void publish(int version, String etag, byte[] payload, LocalDateTime publishedDate) {
+        this.version = version;
+        this.etag = etag;
+        this.payload = payload;
+        this.publishedDate = publishedDate;
+    }
+}
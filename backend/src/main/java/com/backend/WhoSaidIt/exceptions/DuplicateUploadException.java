@@ -0,0 +1,7 @@
+package com.backend.WhoSaidIt.exceptions;
+
+public class DuplicateUploadException extends RuntimeException {
+    public DuplicateUploadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.backend.WhoSaidIt.exceptions;
+
+public class StaleOrdinalsException extends RuntimeException {
+    public StaleOrdinalsException(String message) {
+        super(message);
+    }
+}
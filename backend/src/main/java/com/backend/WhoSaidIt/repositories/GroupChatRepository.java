@@ -2,13 +2,24 @@ package com.backend.WhoSaidIt.repositories;
 
 import com.backend.WhoSaidIt.entities.GroupChat;
 import org.springframework.data.domain.Sort;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface GroupChatRepository extends JpaRepository<GroupChat, Long> {
 
     public List<GroupChat> findByUserId(Long userId);
 
     public List<GroupChat> findByUserId(Long userId, Sort sort);
+
+    public boolean existsByUserIdAndFileHash(Long userId, String fileHash);
+
+    // Locks the group chat's row until the end of the transaction, so that concurrent appends are serialized
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT g FROM GroupChat g WHERE g.id = :groupChatId")
+    public Optional<GroupChat> findByIdForUpdate(long groupChatId);
 }
@@ -3,41 +3,90 @@ package com.backend.WhoSaidIt.repositories;
 import com.backend.WhoSaidIt.entities.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
 
     long countByGroupChatId(long groupChatId);
 
-    @Query("SELECT COUNT(m) FROM Quiz q JOIN q.messagesInQuiz m WHERE q.id = :quizId")
-    long countByQuizId(long quizId);
+    long countByGroupChatIdAndParticipantId(long groupChatId, long participantId);
 
-    Page<Message> findByGroupChatId(long groupChatId, Pageable pageable);
+    // Returns null if the group chat has no messages
+    @Query("SELECT MAX(m.timestamp) FROM Message m WHERE m.groupChat.id = :groupChatId")
+    LocalDateTime findLatestTimestampByGroupChatId(long groupChatId);
 
-    Page<Message> findByGroupChatIdAndParticipantId(long groupChatId, long participantId, Pageable pageable);
+    List<Message> findByGroupChatIdAndTimestamp(long groupChatId, LocalDateTime timestamp);
+
+    // Slices skip the count query of a Page; the totals come from MessageCountCache instead
+    Slice<Message> findSliceByGroupChatId(long groupChatId, Pageable pageable);
+
+    Slice<Message> findSliceByGroupChatIdAndParticipantId(long groupChatId, long participantId, Pageable pageable);
+
+    // The below queries page through a group chat's messages by (timestamp, messageId) instead of by offset, so every
+    // page is an index range scan that costs the same wherever it starts. "After" queries return the messages following
+    // the given position in ascending order, and "before" queries return those preceding it in descending order.
+    // Pass PageRequest.of(0, limit) to the first-page queries.
+
+    List<Message> findByGroupChatIdOrderByTimestampAscIdAsc(long groupChatId, Pageable pageable);
+
+    List<Message> findByGroupChatIdOrderByTimestampDescIdDesc(long groupChatId, Pageable pageable);
+
+    List<Message> findByGroupChatIdAndParticipantIdOrderByTimestampAscIdAsc(long groupChatId, long participantId, Pageable pageable);
+
+    List<Message> findByGroupChatIdAndParticipantIdOrderByTimestampDescIdDesc(long groupChatId, long participantId, Pageable pageable);
+
+    @Query(value = "SELECT * FROM messages WHERE group_chat_id = :groupChatId " +
+            "AND (timestamp, message_id) > (:timestamp, :messageId) ORDER BY timestamp, message_id LIMIT :limit",
+            nativeQuery = true)
+    List<Message> findByGroupChatIdAfter(long groupChatId, LocalDateTime timestamp, long messageId, int limit);
+
+    @Query(value = "SELECT * FROM messages WHERE group_chat_id = :groupChatId " +
+            "AND (timestamp, message_id) < (:timestamp, :messageId) ORDER BY timestamp DESC, message_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Message> findByGroupChatIdBefore(long groupChatId, LocalDateTime timestamp, long messageId, int limit);
+
+    @Query(value = "SELECT * FROM messages WHERE group_chat_id = :groupChatId AND participant_id = :participantId " +
+            "AND (timestamp, message_id) > (:timestamp, :messageId) ORDER BY timestamp, message_id LIMIT :limit",
+            nativeQuery = true)
+    List<Message> findByGroupChatIdAndParticipantIdAfter(
+            long groupChatId, long participantId, LocalDateTime timestamp, long messageId, int limit
+    );
+
+    @Query(value = "SELECT * FROM messages WHERE group_chat_id = :groupChatId AND participant_id = :participantId " +
+            "AND (timestamp, message_id) < (:timestamp, :messageId) ORDER BY timestamp DESC, message_id DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Message> findByGroupChatIdAndParticipantIdBefore(
+            long groupChatId, long participantId, LocalDateTime timestamp, long messageId, int limit
+    );
 
     @Query("SELECT m FROM Quiz q JOIN q.messagesInQuiz m WHERE q.id = :quizId")
     List<Message> findByQuizId(long quizId);
 
-    @Query("SELECT m FROM Quiz q JOIN q.messagesInQuiz m WHERE q.id = :quizId")
-    Page<Message> findByQuizId(long quizId, Pageable pageable);
+    // Ids only, so that a group chat's messages can be indexed (see GroupChatIdCache) without loading the messages themselves
+    @Query("SELECT m.id FROM Message m WHERE m.groupChat.id = :groupChatId")
+    List<Long> findIdsByGroupChatId(long groupChatId);
 
-    @Query("SELECT m FROM Quiz q JOIN q.messagesInQuiz m WHERE q.id = :quizId AND m.participant.id = :participantId")
-    Page<Message> findByQuizIdAndParticipantId(long quizId, long participantId, Pageable pageable);
+    @Query("SELECT m FROM Quiz q JOIN q.messagesInQuiz m JOIN FETCH m.participant WHERE q.id = :quizId")
+    List<Message> findWithParticipantByQuizId(long quizId);
 
-    // The below queries are used to select a random message from a quiz or group chat.
-    // Excluded message ids are passed to prevent the same message from being selected twice in a session.
-    // Pageable is used to limit the number of results to 1. Pass in PageRequest.of(0, 1) to achieve this.
+    // Loads the messages and their senders in a single query
+    @Query("SELECT m FROM Message m JOIN FETCH m.participant WHERE m.id IN :ids")
+    List<Message> findWithParticipantByIdIn(Collection<Long> ids);
 
-    @Query("SELECT m FROM Quiz q JOIN q.messagesInQuiz m WHERE q.id = :quizId AND m.id NOT IN :excludedMessageIds ORDER BY RANDOM()")
-    Page<Message> findRandomMessageByQuizId(long quizId, List<Long> excludedMessageIds, Pageable pageable);
+    // Each row is [participantId (Long), number of messages (Long)]
+    @Query("SELECT m.participant.id, COUNT(m) FROM Message m WHERE m.participant.id IN :participantIds GROUP BY m.participant.id")
+    List<Object[]> countByParticipantIds(Collection<Long> participantIds);
 
-    // Since we cannot pass an empty list for excludedMessageIds, we need to overload the method.
-    @Query("SELECT m FROM Quiz q JOIN q.messagesInQuiz m WHERE q.id = :quizId ORDER BY RANDOM()")
-    Page<Message> findRandomMessageByQuizId(long quizId, Pageable pageable);
+    // The below queries are used to select a random message from a group chat.
+    // Excluded message ids are passed to prevent the same message from being selected twice in a session.
+    // Pageable is used to limit the number of results to 1. Pass in PageRequest.of(0, 1) to achieve this.
+    // Random quiz messages are selected from the quiz's cached pool instead (see QuizPoolCache).
 
     @Query("SELECT m FROM Message m WHERE m.groupChat.id = :groupChatId AND m.id NOT IN :excludedMessageIds ORDER BY RANDOM()")
     Page<Message> findRandomMessageByGroupChatId(long groupChatId, List<Long> excludedMessageIds, Pageable pageable);
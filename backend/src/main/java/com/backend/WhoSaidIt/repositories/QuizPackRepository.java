@@ -0,0 +1,27 @@
+package com.backend.WhoSaidIt.repositories;
+
+import com.backend.WhoSaidIt.entities.quiz.QuizPack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface QuizPackRepository extends JpaRepository<QuizPack, Long> {
+
+    Optional<QuizPack> findByQuizId(long quizId);
+
+    // The below queries unpublish packs in bulk, without loading them. They do not clear the persistence context, so
+    // a pack loaded earlier in the same transaction is not refreshed.
+
+    @Modifying
+    @Query("UPDATE QuizPack p SET p.etag = NULL, p.payload = NULL WHERE p.quiz.id = :quizId AND p.payload IS NOT NULL")
+    int unpublishByQuizId(long quizId);
+
+    // Includes the packs of quizzes that draw from the group chat without belonging to it
+    @Modifying
+    @Query("UPDATE QuizPack p SET p.etag = NULL, p.payload = NULL " +
+            "WHERE p.quiz.id IN (SELECT q.id FROM Quiz q LEFT JOIN q.sourceGroupChats s " +
+            "WHERE q.groupChat.id = :groupChatId OR s.id = :groupChatId) AND p.payload IS NOT NULL")
+    int unpublishByGroupChatId(long groupChatId);
+}
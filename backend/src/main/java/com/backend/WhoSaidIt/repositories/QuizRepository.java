@@ -2,6 +2,7 @@ package com.backend.WhoSaidIt.repositories;
 
 import com.backend.WhoSaidIt.entities.quiz.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
@@ -9,5 +10,9 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
 
     List<Quiz> findByGroupChatId(long groupChatId);
 
+    // Quizzes of the group chat, and quizzes of other group chats that also draw from it (see Quiz.sourceGroupChats)
+    @Query("SELECT DISTINCT q FROM Quiz q LEFT JOIN q.sourceGroupChats s WHERE q.groupChat.id = :groupChatId OR s.id = :groupChatId")
+    List<Quiz> findDrawingFromGroupChat(long groupChatId);
+
     boolean existsByUrlToken(String urlToken);
 }
@@ -1,11 +1,14 @@
 package com.backend.WhoSaidIt.security;
 
+import com.backend.WhoSaidIt.controllers.MessageController;
+import com.backend.WhoSaidIt.controllers.QuizPackController;
 import com.backend.WhoSaidIt.security.authentication_managers.PasswordResetAuthorizationManager;
 import com.backend.WhoSaidIt.security.authentication_managers.QuizAuthorizationManager;
 import com.backend.WhoSaidIt.security.authentication_managers.UserAuthorizationManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -82,6 +85,12 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(List.of(allowedOrigins));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PATCH", "PUT", "DELETE", "HEAD", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        // Lets browser clients read the exclusion set (and its ordinal space) returned by the random quiz message
+        // endpoint, and the version of a quiz pack
+        configuration.setExposedHeaders(List.of(
+                MessageController.MESSAGE_ORDINAL_HEADER, MessageController.EXCLUDED_ORDINALS_HEADER,
+                MessageController.ORDINAL_SPACE_HEADER, QuizPackController.PACK_VERSION_HEADER, HttpHeaders.ETAG
+        ));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
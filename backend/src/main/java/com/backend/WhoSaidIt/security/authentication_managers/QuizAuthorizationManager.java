@@ -49,8 +49,10 @@ public class QuizAuthorizationManager implements AuthorizationManager<RequestAut
         }
         else if (auth instanceof QuizAuthenticationToken) { // If there is a shareable quiz token authenticated
 
-            // Only authenticated users who own the quiz can generate a shareable quiz token or assign messages.
-            if (isGenerateTokenRequest(request) || isMessageAssignmentRequest(request)) {
+            // Only authenticated users who own the quiz can generate a shareable quiz token, assign messages, publish it,
+            // host a live room, or see and change the group chats it draws from.
+            if (isGenerateTokenRequest(request) || isMessageAssignmentRequest(request) || isPublishRequest(request)
+                    || isLiveRoomRequest(request) || isSourcesRequest(request)) {
                 return new AuthorizationDecision(false);
             }
 
@@ -87,6 +89,19 @@ public class QuizAuthorizationManager implements AuthorizationManager<RequestAut
         return isProperEndpoint && request.getMethod().equalsIgnoreCase("POST");
     }
 
+    private static boolean isPublishRequest(HttpServletRequest request) {
+        boolean isProperEndpoint = request.getRequestURI().matches("^/api/quizzes/\\d+/pack$");
+        return isProperEndpoint && request.getMethod().equalsIgnoreCase("POST");
+    }
+
+    private static boolean isLiveRoomRequest(HttpServletRequest request) {
+        return request.getRequestURI().matches("^/api/quizzes/\\d+/rooms(?:/.*)?$");
+    }
+
+    private static boolean isSourcesRequest(HttpServletRequest request) {
+        return request.getRequestURI().matches("^/api/quizzes/\\d+/sources$");
+    }
+
     // Precondition: Request must be of type POST /api/quizzes/{id}/messages
     private boolean userOwnsAllMessages(HttpServletRequest request) {
         // TODO: Figure out how to get the message ids from the request body
@@ -1,188 +1,371 @@
 package com.backend.WhoSaidIt.services;
 
+import com.backend.WhoSaidIt.DTOs.UploadStatisticsDTO;
 import com.backend.WhoSaidIt.entities.GroupChat;
+import com.backend.WhoSaidIt.entities.Message;
 import com.backend.WhoSaidIt.entities.Participant;
 import com.backend.WhoSaidIt.entities.User;
 import com.backend.WhoSaidIt.exceptions.BadFormatException;
 import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.exceptions.DuplicateUploadException;
+import com.backend.WhoSaidIt.repositories.GroupChatRepository;
+import com.backend.WhoSaidIt.repositories.MessageRepository;
+import com.backend.WhoSaidIt.repositories.ParticipantRepository;
 import com.backend.WhoSaidIt.repositories.UserRepository;
-import org.antlr.v4.runtime.misc.Pair;
+import com.backend.WhoSaidIt.services.ingest.IngestMode;
+import com.backend.WhoSaidIt.services.ingest.MessageBulkWriter;
+import com.backend.WhoSaidIt.services.parsing.ChatExportParser;
+import com.backend.WhoSaidIt.services.parsing.ChatFormat;
+import com.backend.WhoSaidIt.services.parsing.ChatFormatDetector;
+import com.backend.WhoSaidIt.services.parsing.ParallelChatExportParser;
+import com.backend.WhoSaidIt.services.parsing.ParsedMessage;
+import com.backend.WhoSaidIt.services.parsing.TimestampSeeker;
+import com.backend.WhoSaidIt.services.upload.CountingInputStream;
+import com.backend.WhoSaidIt.services.upload.UploadJob;
+import com.backend.WhoSaidIt.services.upload.UploadPhase;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.time.ZoneOffset;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.regex.Pattern;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 @Service
 public class FileUploadService {
 
     private final UserRepository userRepository;
+    private final GroupChatRepository groupChatRepository;
+    private final MessageRepository messageRepository;
+    private final ParticipantRepository participantRepository;
     private final GroupChatService groupChatService;
     private final ParticipantService participantService;
-    private final MessageService messageService;
+    private final MessageIngestService messageIngestService;
+    private final ChatFormatDetector chatFormatDetector;
+    private final ParseCacheService parseCacheService;
+    private final QuizPoolCache quizPoolCache;
+    private final QuizPackService quizPackService;
+    private final MessageCountCache messageCountCache;
+
+    // Parses large files in parallel. Shared by all uploads.
+    private ForkJoinPool parsePool;
+
+    // Files at least this large are parsed in parallel chunks
+    @Value("${app.upload.parallel-threshold}")
+    private DataSize parallelThreshold;
+
+    @Value("${app.upload.chunk-size}")
+    private DataSize chunkSize;
+
+    // Number of parser threads; 0 uses one per available processor
+    @Value("${app.upload.parse-parallelism}")
+    private int parseParallelism;
 
     public FileUploadService(
             UserRepository userRepository,
+            GroupChatRepository groupChatRepository,
+            MessageRepository messageRepository,
+            ParticipantRepository participantRepository,
             GroupChatService groupChatService,
             ParticipantService participantService,
-            MessageService messageService) {
+            MessageIngestService messageIngestService,
+            ChatFormatDetector chatFormatDetector,
+            ParseCacheService parseCacheService,
+            QuizPoolCache quizPoolCache,
+            QuizPackService quizPackService,
+            MessageCountCache messageCountCache) {
         this.userRepository = userRepository;
+        this.groupChatRepository = groupChatRepository;
+        this.messageRepository = messageRepository;
+        this.participantRepository = participantRepository;
         this.groupChatService = groupChatService;
         this.participantService = participantService;
-        this.messageService = messageService;
+        this.messageIngestService = messageIngestService;
+        this.chatFormatDetector = chatFormatDetector;
+        this.parseCacheService = parseCacheService;
+        this.quizPoolCache = quizPoolCache;
+        this.quizPackService = quizPackService;
+        this.messageCountCache = messageCountCache;
     }
 
-    // Indices of the date, sender, and content in the parsed line
-    private static final int DATE_INDEX = 0;
-    private static final int SENDER_INDEX = 1;
-    private static final int CONTENT_INDEX = 2;
+    @PostConstruct
+    void startParsePool() {
+        int parallelism = parseParallelism > 0 ? parseParallelism : Runtime.getRuntime().availableProcessors();
+        parsePool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    void stopParsePool() {
+        parsePool.shutdownNow();
+    }
 
     // This method is meant to filter out messages that are not noteworthy.
     // For now, we will only filter based on the length of the message.
     // Longer messages are more likely to be attributable to a specific person.
-    private static boolean passesFilter(String message, int minCharacters) {
+    static boolean passesFilter(String message, int minCharacters) {
         return message.length() >= minCharacters;
     }
 
-    // This method is meant to clean the message of any unsightly strings.
-    // These can include links, @mentions, WhatsApp-specific formatting (e.g., <This Message Was Edited>), etc.
-    private static String cleanMessage(String message) {
-        // Remove any URLs from the message
-        String cleanedMessage = message.replaceAll("\\b(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]", "");
+    // Adds a group chat to the database from a file
+    @Transactional
+    public UploadStatisticsDTO persistGroupChatFromFile(
+            long userId, String groupChatName, MultipartFile file, Integer minCharacters
+    ) throws IOException {
+        UploadJob job = new UploadJob(userId, groupChatName, file.getOriginalFilename(), file.getSize(), minCharacters);
+        try (InputStream input = file.getInputStream()) {
+            return persistGroupChat(job, input);
+        }
+    }
 
-        // Remove any @mentions from the message
-        cleanedMessage = cleanedMessage.replaceAll("@\\d+", "");
+    // Adds the group chat described by the upload job to the database from a file on disk.
+    // Files above the parallel threshold are split into chunks that are parsed concurrently.
+    // If the job's file was parsed recently, its messages are read from the parse cache instead.
+    @Transactional
+    public UploadStatisticsDTO persistGroupChat(UploadJob job, Path file) throws IOException {
+        String fileHash = job.getFileHash();
+        if (fileHash != null && parseCacheService.contains(fileHash)) {
+            // Only the filter has to be applied again
+            job.getBytesParsed().set(job.getTotalBytes());
+            return persistMessages(job, filtered(job, sink -> parseCacheService.read(fileHash, sink)));
+        }
 
-        // Remove <This message was edited> tags
-        cleanedMessage = cleanedMessage.replaceAll("<This message was edited>", "");
+        MessageSource parsedMessages;
+        if (job.getTotalBytes() >= parallelThreshold.toBytes()) {
+            ParallelChatExportParser parser = new ParallelChatExportParser(
+                    file, chatFormatDetector, parsePool, (int) chunkSize.toBytes()
+            );
+            parsedMessages = sink -> parser.parse(sink, job.getBytesParsed());
+        } else {
+            parsedMessages = sink -> {
+                try (InputStream input = new CountingInputStream(Files.newInputStream(file), job.getBytesParsed())) {
+                    parseStream(input, sink);
+                }
+            };
+        }
+        if (fileHash != null) {
+            parsedMessages = cached(fileHash, parsedMessages);
+        }
+        return persistMessages(job, filtered(job, parsedMessages));
+    }
 
-        return cleanedMessage;
+    // Adds the group chat described by the upload job to the database, reading the export from the given stream.
+    @Transactional
+    public UploadStatisticsDTO persistGroupChat(UploadJob job, InputStream input) throws IOException {
+        return persistMessages(job, filtered(job, sink -> parseStream(input, sink)));
     }
 
-    // Returns a string array of length 3
-    // [0]: Date string, [1]: Sender name, [2]: Message content
-    private static String[] parseLine(String line, int minCharacters) {
-        // Pattern A: "MM/DD/YY, HH:MM AM/PM - Sender Name: Message Content"
-        Pattern a = Pattern.compile("^\\d{1,2}/\\d{1,2}/\\d{1,2}, \\d{1,2}:\\d{1,2}[ \\u202F](AM|PM) - .*:.*$");
-        // Pattern B: "[MM/DD/YY, HH:MM:SS AM/PM] Sender Name: Message Content"
-        Pattern b = Pattern.compile("^\\[\\d{1,2}/\\d{1,2}/\\d{1,2}, \\d{1,2}:\\d{1,2}:\\d{1,2}[ \\u202F](AM|PM)] .*: .*$");
-        // Pattern C: "[YYYY-MM-DD, HH:MM:SS AM/PM] Sender Name: Message Content"
-        Pattern c = Pattern.compile("^\\[\\d{4}-\\d{1,2}-\\d{1,2}, \\d{1,2}:\\d{1,2}:\\d{1,2}[ \\u202F](AM|PM)] .*: .*$");
+    // Adds the group chat described by the upload job to the database, parsing the export as it is read from the stream
+    // (e.g., a request body that is still arriving). The file is hashed as it passes through; since the hash is only
+    // known at the end, a repeat upload is detected after parsing and rolled back with a DuplicateUploadException.
+    @Transactional
+    public UploadStatisticsDTO persistStreamedGroupChat(UploadJob job, InputStream input) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        UploadStatisticsDTO statistics = persistGroupChat(job, new DigestInputStream(input, digest));
 
-        String[] parsedLine;
-        if (a.matcher(line).matches()) {
-            parsedLine = parsePatternA(line);
-        } else if (b.matcher(line).matches()) {
-            parsedLine = parsePatternB(line);
-        } else if (c.matcher(line).matches()) {
-            parsedLine = parsePatternC(line);
-        } else {
-            return null;
+        String fileHash = HexFormat.of().formatHex(digest.digest());
+        if (groupChatService.hasUploadedFile(job.getUserId(), fileHash)) {
+            throw new DuplicateUploadException("This file has already been uploaded.");
         }
+        GroupChat groupChat = groupChatRepository.findById(job.getGroupChatId()).orElseThrow(
+                () -> new DataNotFoundException("GroupChat with id " + job.getGroupChatId() + " not found.")
+        );
+        groupChat.setFileHash(fileHash);
+        job.setFileHash(fileHash);
+        return statistics;
+    }
 
-        parsedLine[CONTENT_INDEX] = cleanMessage(parsedLine[CONTENT_INDEX]);
-        return passesFilter(parsedLine[CONTENT_INDEX], minCharacters) ? parsedLine : null;
-    }
-
-    // Pattern A: "MM/DD/YY, HH:MM AM/PM - Sender Name: Message Content"
-    private static String[] parsePatternA(String line) {
-        String[] parsedLine = new String[3];
-        int dateEndIndex = -1;
-        for (int i = 0; i < line.length(); i++) {
-            if (line.charAt(i) == '-' && dateEndIndex == -1) {
-                parsedLine[DATE_INDEX] = "A:" + line.substring(0, i - 1);
-                dateEndIndex = i + 2;
-            } else if (line.charAt(i) == ':' && dateEndIndex != -1) {
-                parsedLine[SENDER_INDEX] = line.substring(dateEndIndex, i);
-                parsedLine[CONTENT_INDEX] = line.substring(i + 2);
-                break;
-            }
+    // Appends the messages of an export to the existing group chat described by the upload job.
+    // Only messages at or after the group chat's latest message are stored. Earlier messages are skipped by seeking
+    // through the file rather than parsing it, and messages sharing the latest timestamp are compared against the
+    // stored ones so that they are not stored twice. Existing messages (and so the quizzes containing them) are
+    // left untouched.
+    @Transactional
+    public UploadStatisticsDTO appendToGroupChat(UploadJob job, Path file) throws IOException {
+        long groupChatId = job.getGroupChatId();
+        // The lock keeps a concurrent append to the same group chat from storing the same messages
+        GroupChat groupChat = groupChatRepository.findByIdForUpdate(groupChatId).orElseThrow(
+                () -> new DataNotFoundException("GroupChat with id " + groupChatId + " not found.")
+        );
+        // The participants' message counts in the group chat's quiz pools (and published quiz info) change, as do the
+        // group chat's cached message counts
+        quizPoolCache.invalidateGroupChat(groupChatId);
+        quizPackService.invalidateGroupChat(groupChatId);
+        messageCountCache.invalidateGroupChat(groupChatId);
+
+        ChatFormat format;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            format = chatFormatDetector.detect(chatFormatDetector.sample(reader));
         }
-        return parsedLine;
-    }
-
-    // Pattern B: "[MM/DD/YY, HH:MM:SS AM/PM] Sender Name: Message Content"
-    private static String[] parsePatternB(String line) {
-        String[] parsedLine = new String[3];
-        int dateEndIndex = -1;
-        for (int i = 0; i < line.length(); i++) {
-            if (line.charAt(i) == ']' && dateEndIndex == -1) {
-                // We exclude the seconds
-                parsedLine[DATE_INDEX] = "B:" + line.substring(1, i - 6) + line.substring(i - 3, i);
-                dateEndIndex = i + 2;
-            } else if (line.charAt(i) == ':' && dateEndIndex != -1) {
-                parsedLine[SENDER_INDEX] = line.substring(dateEndIndex, i);
-                parsedLine[CONTENT_INDEX] = line.substring(i + 2);
-                break;
+
+        LocalDateTime latestTimestamp = messageRepository.findLatestTimestampByGroupChatId(groupChatId);
+        long offset = 0;
+        // The number of stored messages with the latest timestamp, by sender and content
+        Map<String, Integer> storedAtLatest = new HashMap<>();
+        if (latestTimestamp != null) {
+            offset = new TimestampSeeker(file, format).seek(latestTimestamp.toEpochSecond(ZoneOffset.UTC) / 60);
+            for (Message message : messageRepository.findByGroupChatIdAndTimestamp(groupChatId, latestTimestamp)) {
+                storedAtLatest.merge(duplicateKey(message.getParticipant().getName(), message.getContent()), 1, Integer::sum);
             }
         }
-        return parsedLine;
+        job.getBytesParsed().set(offset);
+
+        // Senders are matched to the group chat's participants by name.
+        // A participant that has been renamed since the first upload is not matched, and is created again.
+        Map<String, Participant> participants = new HashMap<>();
+        for (Participant participant : participantRepository.findByGroupChatId(groupChatId, Sort.unsorted())) {
+            participants.putIfAbsent(participant.getName(), participant);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ).position(offset);
+        InputStream input = new CountingInputStream(Channels.newInputStream(channel), job.getBytesParsed());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            // Parsing starts on a header line, so there are no lines belonging to a skipped message
+            ChatExportParser parser = new ChatExportParser(reader, format, false);
+            MessageBulkWriter writer = writeMessages(job, groupChat, participants, job.getTotalBytes() - offset, sink -> {
+                ParsedMessage parsedMessage;
+                while ((parsedMessage = parser.next()) != null) {
+                    if (!passesFilter(parsedMessage.content(), job.getMinCharacters())) {
+                        continue;
+                    }
+                    if (latestTimestamp != null) {
+                        int comparison = parsedMessage.timestamp().compareTo(latestTimestamp);
+                        if (comparison < 0) {
+                            continue;
+                        }
+                        if (comparison == 0 && takeStored(storedAtLatest, parsedMessage)) {
+                            continue;
+                        }
+                    }
+                    sink.accept(parsedMessage);
+                }
+            });
+            // Unlike a new upload, an export with nothing new is not an error
+            job.setPhase(UploadPhase.COMMITTING);
+            return writer.getStatistics();
+        }
     }
 
-    // Pattern C: "[YYYY-MM-DD, HH:MM:SS AM/PM] Sender Name: Message Content"
-    private static String[] parsePatternC(String line) {
-        String[] parsedLine = parsePatternB(line);
-        parsedLine[DATE_INDEX] = "C:" + parsedLine[DATE_INDEX].substring(2);
-        return parsedLine;
+    private static String duplicateKey(String sender, String content) {
+        return sender + '\n' + content;
     }
 
-    // Converts a date string of the form "MM/DD/YY, HH:MM AM/PM" to a LocalDateTime object
-    private static LocalDateTime convertDateString(String dateStr) {
-        String dateForm = dateStr.substring(0, 2);
-        String nnbsFixed = dateStr.substring(2).replace('\u202F', ' ');
-        DateTimeFormatter formatter;
-        if (dateForm.equals("C:")) {
-            formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd, h:mm a", Locale.US);
+    // If a stored message matches the parsed one, uses it up and returns true
+    private static boolean takeStored(Map<String, Integer> stored, ParsedMessage message) {
+        String key = duplicateKey(message.sender(), message.content());
+        Integer remaining = stored.get(key);
+        if (remaining == null) {
+            return false;
+        }
+        if (remaining == 1) {
+            stored.remove(key);
         } else {
-            formatter = DateTimeFormatter.ofPattern("M/d/yy, h:mm a", Locale.US);
+            stored.put(key, remaining - 1);
         }
-        return LocalDateTime.parse(nnbsFixed, formatter);
+        return true;
     }
 
-    // Adds a group chat to the database from a file
-    @Transactional
-    public void persistGroupChatFromFile(
-            long userId, String groupChatName, MultipartFile file, Integer minCharacters
-    ) throws IOException {
-        GroupChat groupChat = groupChatService.createGroupChat(userId, groupChatName, file.getOriginalFilename());
-
-        // Each key in the messages map is a sender name, and each value is a list of pairs of timestamps and message
-        HashMap<String, List<Pair<LocalDateTime, String>>> messages = new HashMap<String, List<Pair<LocalDateTime, String>>>();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
-        while (reader.ready()) {
-            String[] parsedLine = parseLine(reader.readLine(), minCharacters);
-            if (parsedLine == null) { continue; }
-
-            String senderName = parsedLine[SENDER_INDEX];
-            String messageContent = parsedLine[CONTENT_INDEX];
-            LocalDateTime timestamp = convertDateString(parsedLine[DATE_INDEX]);
-            if (messages.containsKey(senderName)) {
-                messages.get(senderName).add(new Pair<>(timestamp, messageContent));
-            } else {
-                messages.put(senderName, new ArrayList<>(List.of(new Pair<>(timestamp, messageContent))));
-            }
+    // Produces the messages of an export, in order
+    private interface MessageSource {
+        void forEach(Consumer<ParsedMessage> sink) throws IOException;
+    }
+
+    // Parses the export (the parser also cleans the messages)
+    private void parseStream(InputStream input, Consumer<ParsedMessage> sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ChatExportParser parser = new ChatExportParser(reader, chatFormatDetector);
+        ParsedMessage parsedMessage;
+        while ((parsedMessage = parser.next()) != null) {
+            sink.accept(parsedMessage);
         }
+    }
+
+    // Applies the upload's filter to the messages of the source
+    private static MessageSource filtered(UploadJob job, MessageSource source) {
+        return sink -> source.forEach(message -> {
+            if (passesFilter(message.content(), job.getMinCharacters())) {
+                sink.accept(message);
+            }
+        });
+    }
+
+    // Copies the messages of the source into a parse cache entry for the file as they pass through.
+    // The entry is only kept if the whole export was parsed.
+    private MessageSource cached(String fileHash, MessageSource source) {
+        return sink -> {
+            try (ParseCacheService.Entry entry = parseCacheService.openEntry(fileHash)) {
+                source.forEach(message -> {
+                    entry.write(message);
+                    sink.accept(message);
+                });
+                entry.commit();
+            }
+        };
+    }
 
-        // If the list of messages is empty, we throw an exception
+    // Messages are handed to a bulk writer as soon as they have been produced, so the whole chat is never held in
+    // memory at once.
+    private UploadStatisticsDTO persistMessages(UploadJob job, MessageSource source) throws IOException {
+        GroupChat groupChat = groupChatService.createGroupChat(
+                job.getUserId(), job.getGroupChatName(), job.getFileName(), job.getFileHash()
+        );
+        job.setGroupChatId(groupChat.getId());
+        messageCountCache.invalidateGroupChat(groupChat.getId());
+
+        // Participants are created the first time one of their messages passes the filter
+        MessageBulkWriter writer = writeMessages(job, groupChat, new HashMap<>(), job.getTotalBytes(), source);
+
+        // If no messages were written, we throw an exception (rolling back the group chat)
         // This is because the file is likely not a valid chat export, or the format has been updated by WhatsApp
-        if (messages.isEmpty()) {
+        if (writer.getMessagesWritten() == 0) {
             throw new BadFormatException("Could not parse any messages from the file. Possibly incompatible format.");
         }
+        job.setPhase(UploadPhase.COMMITTING);
+        return writer.getStatistics();
+    }
 
-        for (String senderName : messages.keySet()) {
-            Participant participant = participantService.saveParticipant(groupChat, senderName);
-            for (Pair<LocalDateTime, String> message : messages.get(senderName)) {
-                messageService.saveMessage(participant, groupChat, message.b, message.a);
-            }
-        }
+    // Writes the messages to the group chat. Senders missing from the participants map are added to it as new
+    // participants. The ingest mode is chosen based on the number of bytes left to read.
+    private MessageBulkWriter writeMessages(
+            UploadJob job, GroupChat groupChat, Map<String, Participant> participants, long bytes, MessageSource source
+    ) throws IOException {
+        IngestMode ingestMode = messageIngestService.selectMode(bytes);
+        MessageBulkWriter writer = messageIngestService.openWriter(groupChat, ingestMode);
+        source.forEach(message -> {
+            Participant participant = participants.computeIfAbsent(
+                    message.sender(), senderName -> participantService.saveParticipant(groupChat, senderName)
+            );
+            writer.write(participant.getId(), message.content(), message.timestamp());
+            job.setMessagesWritten(writer.getMessagesWritten());
+        });
+        writer.flush();
+        return writer;
     }
 }
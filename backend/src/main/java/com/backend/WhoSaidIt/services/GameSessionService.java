@@ -0,0 +1,213 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.QuizSessionDTO;
+import com.backend.WhoSaidIt.DTOs.game.AnswerResultDTO;
+import com.backend.WhoSaidIt.DTOs.game.GameStateDTO;
+import com.backend.WhoSaidIt.DTOs.leaderboard.LeaderboardEntryDTO;
+import com.backend.WhoSaidIt.controllers.LeaderboardController;
+import com.backend.WhoSaidIt.entities.quiz.Quiz;
+import com.backend.WhoSaidIt.entities.quiz.SurvivalQuiz;
+import com.backend.WhoSaidIt.entities.quiz.TimeAttackQuiz;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.repositories.QuizRepository;
+import com.backend.WhoSaidIt.services.play.GameSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+public class GameSessionService {
+    // This service runs games of a quiz on the server (see GameSession).
+    // Each answer is checked and scored here, and the response carries the next question, so a question costs one
+    // request. Once a game has finished, its result is submitted to the leaderboard from the server's own record of
+    // the game, rather than from a score sent by the client.
+    // Questions are dealt from a QuizSession. Games that see no activity for a while (including finished games, which
+    // are kept so that their result can be submitted) are discarded by a periodic sweep, and the number of games held
+    // at once is capped.
+
+    private final QuizRepository quizRepository;
+    private final QuizSessionService quizSessionService;
+    private final LeaderboardService leaderboardService;
+
+    private final Map<UUID, GameSession> games = new ConcurrentHashMap<>();
+    private final Clock clock = Clock.systemUTC();
+
+    @Value("${app.play.session-ttl}")
+    private Duration timeToLive;
+
+    // How long a client may take to reveal an answer before the next question's clock starts (see GameSession)
+    @Value("${app.play.answer-reveal-window}")
+    private Duration revealWindow;
+
+    // Largest number of games held at once, including finished and expired games not yet swept
+    @Value("${app.play.max-games}")
+    private int maxGames;
+
+    public GameSessionService(
+            QuizRepository quizRepository,
+            QuizSessionService quizSessionService,
+            LeaderboardService leaderboardService
+    ) {
+        this.quizRepository = quizRepository;
+        this.quizSessionService = quizSessionService;
+        this.leaderboardService = leaderboardService;
+    }
+
+    // Throws a RejectedExecutionException if the maximum number of games (or of quiz sessions) are in progress
+    public GameStateDTO startGame(long quizId) {
+        if (games.size() >= maxGames) {
+            evictExpiredGames();
+            if (games.size() >= maxGames) {
+                throw new RejectedExecutionException("Too many games in progress.");
+            }
+        }
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
+        QuizSessionDTO quizSession = quizSessionService.startSession(quizId);
+
+        GameSession game;
+        if (quiz instanceof TimeAttackQuiz taQuiz) {
+            game = GameSession.timeAttack(
+                    quizId, quizSession.sessionId(), taQuiz.getNumberOfQuestions(), taQuiz.getInitialQuestionScore(),
+                    taQuiz.getPenaltyPerSecond(), taQuiz.getWrongAnswerPenalty(), clock
+            );
+        } else if (quiz instanceof SurvivalQuiz sQuiz) {
+            game = GameSession.survival(quizId, quizSession.sessionId(), sQuiz.getNumberOfSkips(), clock);
+        } else {
+            throw new IllegalStateException("Quiz with id " + quizId + " has an invalid type.");
+        }
+
+        synchronized (game) {
+            nextQuestion(game, Duration.ZERO); // The first question is on screen as soon as the game starts
+            games.put(game.getId(), game);
+            return game.toDTO();
+        }
+    }
+
+    // Clients fetch the game when they show its current question, which starts the question's clock (see GameSession)
+    public GameStateDTO getGame(long quizId, UUID gameId) {
+        GameSession game = findGame(quizId, gameId);
+        synchronized (game) {
+            game.showQuestion();
+            return game.toDTO();
+        }
+    }
+
+    // Scores the answer to the current question and deals the next one, if the game continues.
+    // The message id must be that of the current question, so that a repeated request is not scored twice.
+    // Throws a BadFormatException if the game has finished or the message id is not the current question's.
+    public AnswerResultDTO answer(long quizId, UUID gameId, long messageId, long participantId) {
+        GameSession game = findGame(quizId, gameId);
+        synchronized (game) {
+            requireCurrentQuestion(game, messageId);
+            long correctParticipantId = game.getCurrentMessage().sender().id();
+            int scoreGained = game.answer(participantId);
+            advance(game);
+            return new AnswerResultDTO(
+                    correctParticipantId == participantId, correctParticipantId, scoreGained, game.toDTO()
+            );
+        }
+    }
+
+    // Skips the current question of a survival game.
+    // Throws a BadFormatException if the game cannot skip (see GameSession.canSkip()) or the message id is not the
+    // current question's.
+    public GameStateDTO skip(long quizId, UUID gameId, long messageId) {
+        GameSession game = findGame(quizId, gameId);
+        synchronized (game) {
+            requireCurrentQuestion(game, messageId);
+            if (!game.canSkip()) {
+                throw new BadFormatException("No skips are left in this game.");
+            }
+            game.skip();
+            advance(game);
+            return game.toDTO();
+        }
+    }
+
+    // Records the finished game on the quiz's leaderboard. A game's result can only be submitted once.
+    // Throws a BadFormatException if the game has not finished or has already been submitted.
+    public LeaderboardEntryDTO submitResult(long quizId, UUID gameId, String playerName, String playerUUID) {
+        GameSession game = findGame(quizId, gameId);
+        synchronized (game) {
+            if (!game.isFinished()) {
+                throw new BadFormatException("The game has not finished.");
+            }
+            if (game.getLeaderboardEntryId() != null) {
+                throw new BadFormatException("The result of this game has already been submitted.");
+            }
+            LeaderboardEntryDTO entry = switch (game.getType()) {
+                case TIME_ATTACK -> leaderboardService.createTimeAttackEntry(quizId,
+                        new LeaderboardController.TimeAttackEntryPostRequest(
+                                playerName, game.getScore(), game.getTimeTaken(), playerUUID
+                        ), true);
+                case SURVIVAL -> leaderboardService.createSurvivalEntry(quizId,
+                        new LeaderboardController.SurvivalEntryPostRequest(
+                                playerName, game.getScore(), game.getSkipsUsed(), playerUUID
+                        ), true);
+            };
+            game.setLeaderboardEntryId(entry.id());
+            return entry;
+        }
+    }
+
+    private void requireCurrentQuestion(GameSession game, long messageId) {
+        if (game.isFinished()) {
+            throw new BadFormatException("The game has finished.");
+        }
+        if (game.getCurrentMessage().id() != messageId) {
+            throw new BadFormatException("Message with id " + messageId + " is not the current question.");
+        }
+    }
+
+    // Deals the next question, or finishes the game if there are no more
+    private void advance(GameSession game) {
+        if (game.hasMoreQuestions()) {
+            nextQuestion(game, revealWindow);
+        } else {
+            finish(game);
+        }
+    }
+
+    private void nextQuestion(GameSession game, Duration revealWindow) {
+        try {
+            game.startQuestion(quizSessionService.nextMessage(game.getQuizId(), game.getQuizSessionId()), revealWindow);
+        } catch (DataNotFoundException e) {
+            finish(game); // Every message of the group chat has been used
+        }
+    }
+
+    private void finish(GameSession game) {
+        game.finish();
+        try {
+            quizSessionService.endSession(game.getQuizId(), game.getQuizSessionId());
+        } catch (DataNotFoundException ignored) {
+            // The session has already expired
+        }
+    }
+
+    private GameSession findGame(long quizId, UUID gameId) {
+        GameSession game = games.get(gameId);
+        // The quiz id is part of the check, since authorization is granted per quiz
+        if (game == null || game.getQuizId() != quizId) {
+            throw new DataNotFoundException("Game with id " + gameId + " not found.");
+        }
+        game.touch();
+        return game;
+    }
+
+    @Scheduled(fixedDelayString = "${app.play.session-sweep-interval}")
+    void evictExpiredGames() {
+        Instant cutoff = Instant.now().minus(timeToLive);
+        games.values().removeIf(game -> game.getLastActivity().isBefore(cutoff));
+    }
+}
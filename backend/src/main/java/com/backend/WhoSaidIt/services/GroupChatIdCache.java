@@ -0,0 +1,70 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.repositories.MessageRepository;
+import com.backend.WhoSaidIt.services.play.GroupChatIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+@Service
+public class GroupChatIdCache {
+    // This cache keeps the sorted message ids (see GroupChatIds) of recently played group chats in memory, so that the
+    // quiz sessions and ordinal requests drawing from a group chat share one copy of its ids rather than each querying
+    // and sorting them. Snapshots are evicted in least recently used order once their combined weight exceeds the
+    // configured maximum.
+    //
+    // A snapshot is tagged with the version of the group chat it was loaded at (see MessageCountCache.getVersion()), and
+    // is reloaded on first use after the version changes, so changes to a group chat's messages need no invalidation
+    // here. A snapshot is only cached if the version did not change while it was being loaded.
+
+    private final MessageRepository messageRepository;
+    private final MessageCountCache messageCountCache;
+
+    // Access ordered, so iteration starts at the least recently used snapshot. Guarded by itself.
+    private final LinkedHashMap<Long, GroupChatIds> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight = 0;
+
+    @Value("${app.play.group-chat-id-cache-max-weight}")
+    private DataSize maxWeight;
+
+    public GroupChatIdCache(MessageRepository messageRepository, MessageCountCache messageCountCache) {
+        this.messageRepository = messageRepository;
+        this.messageCountCache = messageCountCache;
+    }
+
+    // The ids of the group chat's messages. A group chat that does not exist has none.
+    public GroupChatIds getIds(long groupChatId) {
+        long version = messageCountCache.getVersion(groupChatId);
+        synchronized (snapshots) {
+            GroupChatIds cached = snapshots.get(groupChatId);
+            if (cached != null && cached.getVersion() == version) {
+                return cached;
+            }
+        }
+
+        long[] messageIds = messageRepository.findIdsByGroupChatId(groupChatId).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        GroupChatIds loaded = new GroupChatIds(groupChatId, version, messageIds);
+        synchronized (snapshots) {
+            if (messageCountCache.getVersion(groupChatId) == version && loaded.getWeight() <= maxWeight.toBytes()) {
+                GroupChatIds replaced = snapshots.put(groupChatId, loaded);
+                totalWeight += loaded.getWeight() - (replaced == null ? 0 : replaced.getWeight());
+                evictOverweight();
+            }
+        }
+        return loaded;
+    }
+
+    // Precondition: the caller holds the lock on snapshots
+    private void evictOverweight() {
+        Iterator<GroupChatIds> iterator = snapshots.values().iterator();
+        while (totalWeight > maxWeight.toBytes() && iterator.hasNext()) {
+            totalWeight -= iterator.next().getWeight();
+            iterator.remove();
+        }
+    }
+}
@@ -65,12 +65,12 @@ public class GroupChatService {
 
     // We return a GroupChat object instead of its DTO because this method is only called in the FileUploadService
     @Transactional
-    public GroupChat createGroupChat(long userId, String groupChatName, String fileName) {
+    public GroupChat createGroupChat(long userId, String groupChatName, String fileName, String fileHash) {
         User user = userRepository.findById(userId).orElseThrow(
                 () -> new DataNotFoundException("User with id " + userId + " not found.")
         );
 
-        GroupChat groupChat = new GroupChat(user, groupChatName, fileName);
+        GroupChat groupChat = new GroupChat(user, groupChatName, fileName, fileHash);
         groupChatRepository.save(groupChat);
 
         // If this is the first group chat a user has uploaded, we want to set it as their focused group chat
@@ -93,6 +93,7 @@ public class GroupChatService {
         for (Quiz quiz : quizzes) {
             quizService.deleteQuiz(quiz.getId());
         }
+        quizService.removeSourceGroupChat(groupChatId);
         List<Message> messages = new ArrayList<>(groupChat.getMessages());
         for (Message message : messages) {
             messageService.deleteMessage(message.getId());
@@ -116,6 +117,11 @@ public class GroupChatService {
         groupChatRepository.delete(groupChat);
     }
 
+    // Whether the user already has a group chat uploaded from a file with the given hash
+    public boolean hasUploadedFile(long userId, String fileHash) {
+        return groupChatRepository.existsByUserIdAndFileHash(userId, fileHash);
+    }
+
     // Used in the auth_managers to check the authenticated user's ownership rights
     public boolean isOwnedBy(long groupChatId, long userId) {
         GroupChat groupChat = groupChatRepository.findById(groupChatId).orElseThrow(
@@ -76,7 +76,10 @@ public class LeaderboardService {
         return Optional.of(playerEntries.stream().max(Comparator.comparing(LeaderboardEntry::getSubmissionDate)).get().toDTO());
     }
 
-    public TimeAttackEntryDTO createTimeAttackEntry(long quizId, LeaderboardController.TimeAttackEntryPostRequest taEntry) {
+    // verified marks an entry whose score was computed by the server; such entries cannot be updated afterwards
+    public TimeAttackEntryDTO createTimeAttackEntry(
+            long quizId, LeaderboardController.TimeAttackEntryPostRequest taEntry, boolean verified
+    ) {
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
         if (!(quiz instanceof TimeAttackQuiz taQuiz)) {
@@ -86,15 +89,19 @@ public class LeaderboardService {
         TimeAttackEntry entry = new TimeAttackEntry(
                 quiz, taEntry.playerName(), UUID.fromString(taEntry.playerUUID()), taEntry.score(), taEntry.timeTaken(), avgTimePerQuestion
         );
+        entry.setVerified(verified);
         return leaderboardEntryRepository.save(entry).toDTO();
     }
 
-    public SurvivalEntryDTO createSurvivalEntry(long quizId, LeaderboardController.SurvivalEntryPostRequest sEntry) {
+    public SurvivalEntryDTO createSurvivalEntry(
+            long quizId, LeaderboardController.SurvivalEntryPostRequest sEntry, boolean verified
+    ) {
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
         SurvivalEntry entry = new SurvivalEntry(
                 quiz, sEntry.playerName(), UUID.fromString(sEntry.playerUUID()), sEntry.streak(), sEntry.skipsUsed()
         );
+        entry.setVerified(verified);
         return leaderboardEntryRepository.save(entry).toDTO();
     }
 
@@ -109,6 +116,9 @@ public class LeaderboardService {
         if (!(entry instanceof TimeAttackEntry taEntryToUpdate) || !(quiz instanceof TimeAttackQuiz taQuiz)) {
             throw new IllegalStateException("Either the entry or the quiz has an invalid type.");
         }
+        if (entry.isVerified()) {
+            throw new IllegalStateException("Entry with id " + entryId + " was scored by the server and cannot be updated.");
+        }
 
         double avgTimePerQuestion = taEntry.timeTaken() / (double) taQuiz.getNumberOfQuestions();
         taEntryToUpdate.setSubmissionDate(LocalDateTime.now());
@@ -128,6 +138,9 @@ public class LeaderboardService {
         if (!(entry instanceof SurvivalEntry sEntryToUpdate) || !(quiz instanceof SurvivalQuiz)) {
             throw new IllegalStateException("Either the entry or the quiz has an invalid type.");
         }
+        if (entry.isVerified()) {
+            throw new IllegalStateException("Entry with id " + entryId + " was scored by the server and cannot be updated.");
+        }
 
         sEntryToUpdate.setSubmissionDate(LocalDateTime.now());
         sEntryToUpdate.setStreak(sEntry.streak());
@@ -0,0 +1,252 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.DTOs.live.LiveRoomDTO;
+import com.backend.WhoSaidIt.controllers.GameSessionController;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.services.live.LiveConnection;
+import com.backend.WhoSaidIt.services.live.LiveRoom;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class LiveRoomService {
+    // This service hosts live rooms (see LiveRoom), where the owner of a quiz deals questions to a room of players.
+    // The host controls the room through the REST API, and may also connect to the room's WebSocket with the room's
+    // host key to receive answers as they arrive. Players connect to the room's WebSocket (see LiveRoomEndpoint).
+    // Questions are dealt from a QuizSession, so a question costs the same whatever the number of players.
+    // Rooms that see no activity for a while are closed by a periodic sweep.
+
+    public static final int MAX_PLAYER_NAME_LENGTH = 32;
+    private static final int HOST_KEY_BYTES = 24;
+
+    private final QuizSessionService quizSessionService;
+    private final QuizPoolCache quizPoolCache;
+    private final ParticipantService participantService;
+    private final ObjectMapper objectMapper;
+
+    private final Map<UUID, LiveRoom> rooms = new ConcurrentHashMap<>();
+    private final SecureRandom secureRandom = new SecureRandom();
+    private ExecutorService executor;
+    private ExecutorService closeExecutor;
+
+    @Value("${app.play.session-ttl}")
+    private Duration timeToLive;
+
+    // Threads shared by the loops of all live rooms
+    @Value("${app.play.live-worker-threads}")
+    private int workerThreads;
+
+    @Value("${app.play.live-max-players}")
+    private int maxPlayers;
+
+    // Frames a connection may fall behind by before it is disconnected
+    @Value("${app.play.live-max-queued-frames}")
+    private int maxQueuedFrames;
+
+    public LiveRoomService(
+            QuizSessionService quizSessionService,
+            QuizPoolCache quizPoolCache,
+            ParticipantService participantService,
+            ObjectMapper objectMapper
+    ) {
+        this.quizSessionService = quizSessionService;
+        this.quizPoolCache = quizPoolCache;
+        this.participantService = participantService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "live-room-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Closing a socket writes a close frame, which may block on a slow client, so it must not hold up the room loops
+        AtomicInteger closeThreadCount = new AtomicInteger();
+        closeExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "live-room-close-" + closeThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        executor.shutdownNow();
+        closeExecutor.shutdownNow();
+    }
+
+    public LiveRoomDTO createRoom(long quizId) {
+        // Players may answer with any participant of the group chats the quiz draws from
+        List<ParticipantDTO> participants = new ArrayList<>();
+        for (long groupChatId : quizPoolCache.getPool(quizId).copyGroupChatIds()) {
+            participants.addAll(participantService.getGroupChatParticipants(groupChatId));
+        }
+        UUID quizSessionId = quizSessionService.startSession(quizId).sessionId();
+        LiveRoom room = new LiveRoom(
+                quizId, quizSessionId, newHostKey(), participants, maxPlayers, objectMapper, executor
+        );
+        rooms.put(room.getId(), room);
+        return await(room.getState());
+    }
+
+    public LiveRoomDTO getRoom(long quizId, UUID roomId) {
+        return await(findRoom(quizId, roomId).getState());
+    }
+
+    // Deals the next question of the quiz to the room.
+    // Throws a DataNotFoundException if every message of the group chat has been dealt, and a BadFormatException if the
+    // room has closed.
+    public LiveRoomDTO nextQuestion(long quizId, UUID roomId) {
+        LiveRoom room = findRoom(quizId, roomId);
+        MessageDTO message = quizSessionService.nextMessage(quizId, room.getQuizSessionId());
+        return await(room.startQuestion(message));
+    }
+
+    public LiveRoomDTO revealAnswer(long quizId, UUID roomId) {
+        return await(findRoom(quizId, roomId).reveal());
+    }
+
+    public LiveRoomDTO closeRoom(long quizId, UUID roomId) {
+        LiveRoom room = findRoom(quizId, roomId);
+        rooms.remove(roomId);
+        return await(close(room));
+    }
+
+    // Connects a player, or a host if hostKey is given, to the room.
+    // Throws a DataNotFoundException if the room does not exist, and a BadFormatException if the host key is wrong or
+    // the player name is blank or longer than MAX_PLAYER_NAME_LENGTH.
+    public void connect(UUID roomId, LiveConnection connection, String playerName, UUID playerKey, String hostKey) {
+        LiveRoom room = findRoom(roomId);
+        if (hostKey != null) {
+            boolean validKey = MessageDigest.isEqual(
+                    hostKey.getBytes(StandardCharsets.UTF_8), room.getHostKey().getBytes(StandardCharsets.UTF_8)
+            );
+            if (!validKey) {
+                throw new BadFormatException("Invalid host key.");
+            }
+            room.joinAsHost(connection);
+            return;
+        }
+        String name = playerName == null ? "" : playerName.strip();
+        if (name.isEmpty() || name.length() > MAX_PLAYER_NAME_LENGTH) {
+            throw new BadFormatException("Player names must be between 1 and " + MAX_PLAYER_NAME_LENGTH + " characters.");
+        }
+        room.join(connection, name, playerKey);
+    }
+
+    // Handles a frame sent by a player, which must be an answer to the open question. Frames that are not answers are
+    // reported back to the player.
+    public void receive(UUID roomId, LiveConnection connection, String frame) {
+        LiveRoom room = rooms.get(roomId);
+        if (room == null) {
+            return;
+        }
+        GameSessionController.AnswerPostRequest answer;
+        try {
+            answer = objectMapper.readValue(frame, GameSessionController.AnswerPostRequest.class);
+        } catch (JsonProcessingException e) {
+            answer = null;
+        }
+        if (answer == null || answer.messageId() == null || answer.participantId() == null) {
+            room.reject(connection, "Frames must be answers of the form {\"messageId\": 1, \"participantId\": 2}.");
+            return;
+        }
+        room.answer(connection, answer.messageId(), answer.participantId());
+    }
+
+    public void disconnect(UUID roomId, LiveConnection connection) {
+        LiveRoom room = rooms.get(roomId);
+        if (room != null) {
+            room.leave(connection);
+        }
+    }
+
+    public int getMaxQueuedFrames() { return maxQueuedFrames; }
+
+    // Threads that close connections, separate from the room loops
+    public ExecutorService getCloseExecutor() { return closeExecutor; }
+
+    private CompletableFuture<LiveRoomDTO> close(LiveRoom room) {
+        try {
+            quizSessionService.endSession(room.getQuizId(), room.getQuizSessionId());
+        } catch (DataNotFoundException ignored) {
+            // The session has already expired
+        }
+        return room.close();
+    }
+
+    private String newHostKey() {
+        byte[] bytes = new byte[HOST_KEY_BYTES];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private LiveRoom findRoom(UUID roomId) {
+        LiveRoom room = rooms.get(roomId);
+        if (room == null) {
+            throw new DataNotFoundException("Room with id " + roomId + " not found.");
+        }
+        return room;
+    }
+
+    private LiveRoom findRoom(long quizId, UUID roomId) {
+        LiveRoom room = findRoom(roomId);
+        // The quiz id is part of the check, since authorization is granted per quiz
+        if (room.getQuizId() != quizId) {
+            throw new DataNotFoundException("Room with id " + roomId + " not found.");
+        }
+        return room;
+    }
+
+    // Waits for a task on a room's loop, rethrowing the exception it failed with
+    private static LiveRoomDTO await(CompletableFuture<LiveRoomDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.play.session-sweep-interval}")
+    void evictIdleRooms() {
+        Instant cutoff = Instant.now().minus(timeToLive);
+        rooms.values().removeIf(room -> {
+            if (room.getLastActivity().isBefore(cutoff)) {
+                close(room);
+                return true;
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.repositories.MessageRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class MessageCountCache {
+    // This cache keeps the number of messages in each group chat, and sent by each of its participants, so that paging
+    // through a group chat's messages does not count them again for every page. Counts are loaded on first use.
+    //
+    // Inserting or deleting messages must invalidate the group chat's counts. As in QuizPoolCache, inside a transaction
+    // the counts are invalidated both immediately and again once the transaction completes, so that a count loaded
+    // concurrently from the not yet committed state does not survive.
+    // (A quiz's message count needs no entry here: it is the size of the quiz's cached pool.)
+    //
+    // Each group chat also has a version, which every invalidation advances. Other caches of a group chat's messages
+    // (see GroupChatIdCache) compare it with the version they loaded at, so they need no invalidation of their own.
+
+    private final MessageRepository messageRepository;
+
+    private final Map<Long, GroupChatCounts> counts = new ConcurrentHashMap<>();
+    // Group chats that have never been invalidated are at version 0
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    // Invalidation removes a group chat's entry, so a count is only cached if its entry is still the current one once
+    // the count has loaded
+    private static class GroupChatCounts {
+        private volatile Long total;
+        private final Map<Long, Long> byParticipant = new ConcurrentHashMap<>();
+    }
+
+    public MessageCountCache(MessageRepository messageRepository) {
+        this.messageRepository = messageRepository;
+    }
+
+    public long countGroupChatMessages(long groupChatId) {
+        GroupChatCounts entry = getEntry(groupChatId);
+        Long total = entry.total;
+        if (total == null) {
+            total = messageRepository.countByGroupChatId(groupChatId);
+            if (isCurrent(groupChatId, entry)) {
+                entry.total = total;
+            }
+        }
+        return total;
+    }
+
+    // The number of messages the participant sent in the group chat
+    public long countParticipantMessages(long groupChatId, long participantId) {
+        GroupChatCounts entry = getEntry(groupChatId);
+        Long count = entry.byParticipant.get(participantId);
+        if (count == null) {
+            count = messageRepository.countByGroupChatIdAndParticipantId(groupChatId, participantId);
+            if (isCurrent(groupChatId, entry)) {
+                entry.byParticipant.put(participantId, count);
+            }
+        }
+        return count;
+    }
+
+    // The version of the group chat's messages. It changes whenever messages are inserted into or deleted from the group
+    // chat, including once more when the transaction that changed them completes.
+    public long getVersion(long groupChatId) {
+        return versions.getOrDefault(groupChatId, 0L);
+    }
+
+    public void invalidateGroupChat(long groupChatId) {
+        remove(groupChatId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // Invalidations are collected per transaction, so that a transaction making many changes (e.g., deleting every
+        // message of a group chat) only registers one synchronization
+        PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingInvalidations();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.groupChatIds.add(groupChatId);
+    }
+
+    private class PendingInvalidations implements TransactionSynchronization {
+        private final Set<Long> groupChatIds = new HashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MessageCountCache.this);
+            groupChatIds.forEach(MessageCountCache.this::remove);
+        }
+    }
+
+    private void remove(long groupChatId) {
+        versions.merge(groupChatId, 1L, Long::sum);
+        counts.remove(groupChatId);
+    }
+
+    private GroupChatCounts getEntry(long groupChatId) {
+        return counts.computeIfAbsent(groupChatId, id -> new GroupChatCounts());
+    }
+
+    private boolean isCurrent(long groupChatId, GroupChatCounts entry) {
+        return counts.get(groupChatId) == entry;
+    }
+}
@@ -0,0 +1,47 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.entities.GroupChat;
+import com.backend.WhoSaidIt.services.ingest.BatchInsertMessageWriter;
+import com.backend.WhoSaidIt.services.ingest.CopyMessageWriter;
+import com.backend.WhoSaidIt.services.ingest.IngestMode;
+import com.backend.WhoSaidIt.services.ingest.MessageBulkWriter;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+@Service
+public class MessageIngestService {
+    // This service provides the bulk write path used when a whole chat export is stored at once.
+    // Single messages are still saved through the MessageService.
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Value("${app.upload.batch-size}")
+    private int batchSize;
+
+    // Files at least this large are written with COPY instead of batched INSERTs
+    @Value("${app.upload.copy-threshold}")
+    private DataSize copyThreshold;
+
+    public MessageIngestService(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    public IngestMode selectMode(long fileSize) {
+        return fileSize >= copyThreshold.toBytes() ? IngestMode.COPY : IngestMode.BATCH_INSERT;
+    }
+
+    // Must be called within a transaction. Participants and the group chat itself may still be pending in the
+    // persistence context, so it is flushed before every batch to satisfy the foreign keys.
+    public MessageBulkWriter openWriter(GroupChat groupChat, IngestMode mode) {
+        Runnable flushPersistenceContext = entityManager::flush;
+        return switch (mode) {
+            case BATCH_INSERT -> new BatchInsertMessageWriter(jdbcTemplate, groupChat.getId(), batchSize, flushPersistenceContext);
+            case COPY -> new CopyMessageWriter(jdbcTemplate, groupChat.getId(), batchSize, flushPersistenceContext);
+        };
+    }
+}
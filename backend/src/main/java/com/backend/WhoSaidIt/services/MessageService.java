@@ -1,80 +1,392 @@
 package com.backend.WhoSaidIt.services;
 
+import com.backend.WhoSaidIt.DTOs.MessageCursorPageDTO;
 import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
 import com.backend.WhoSaidIt.entities.GroupChat;
 import com.backend.WhoSaidIt.entities.Message;
 import com.backend.WhoSaidIt.entities.Participant;
 import com.backend.WhoSaidIt.entities.quiz.Quiz;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
 import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.exceptions.StaleOrdinalsException;
 import com.backend.WhoSaidIt.repositories.MessageRepository;
-import com.backend.WhoSaidIt.repositories.QuizRepository;
+import com.backend.WhoSaidIt.services.paging.MessageCursor;
+import com.backend.WhoSaidIt.services.play.ExclusionBitmaps;
+import com.backend.WhoSaidIt.services.play.GroupChatIds;
+import com.backend.WhoSaidIt.services.play.OrdinalMessage;
+import com.backend.WhoSaidIt.services.play.QuizPool;
+import com.backend.WhoSaidIt.services.play.SamplingMode;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 public class MessageService {
 
+    public static final int MAX_CURSOR_PAGE_SIZE = 500;
+
+    private static final long BOOT_NONCE = new SecureRandom().nextLong();
+
     private final MessageRepository messageRepository;
-    private final QuizRepository quizRepository;
+    private final QuizPoolCache quizPoolCache;
+    private final QuizPackService quizPackService;
+    private final MessageCountCache messageCountCache;
+    private final GroupChatIdCache groupChatIdCache;
 
-    public MessageService(MessageRepository messageRepository, QuizRepository quizRepository) {
+    public MessageService(
+            MessageRepository messageRepository,
+            QuizPoolCache quizPoolCache,
+            QuizPackService quizPackService,
+            MessageCountCache messageCountCache,
+            GroupChatIdCache groupChatIdCache
+    ) {
         this.messageRepository = messageRepository;
-        this.quizRepository = quizRepository;
+        this.quizPoolCache = quizPoolCache;
+        this.quizPackService = quizPackService;
+        this.messageCountCache = messageCountCache;
+        this.groupChatIdCache = groupChatIdCache;
     }
 
-    public MessageDTO getRandomQuizMessage(long quizId, List<Long> excludedMessageIds) {
-        long quizMessageCount = messageRepository.countByQuizId(quizId);
+    // The quiz's messages are chosen according to the sampling mode. participantWeights is only used by
+    // SamplingMode.WEIGHTED (see QuizSampler.sampleWeighted).
+    public MessageDTO getRandomQuizMessage(
+            long quizId, List<Long> excludedMessageIds, SamplingMode mode, Map<Long, Double> participantWeights
+    ) {
+        // The quiz's messages are selected from its cached pool. Excluded ids that are not in the pool (e.g., group chat
+        // messages served after the quiz's messages ran out) do not matter here.
+        QuizPool pool = quizPoolCache.getPool(quizId);
+        RoaringBitmap excluded = new RoaringBitmap();
+        for (long id : excludedMessageIds) {
+            int index = pool.indexOf(id);
+            if (index >= 0) {
+                excluded.add(index);
+            }
+        }
+        int index = pickFromPool(pool, excluded, mode, participantWeights);
+        if (index != -1) {
+            return pool.getMessage(index);
+        }
 
         // If the quiz has no messages, or if we have exhausted all specified messages, we instead return a random
-        // message from the group chat.
-        Message rMessage;
+        // message from the group chats the quiz draws from. A group chat is chosen in proportion to its number of
+        // messages and a message is then chosen within it, so the group chats are never queried (or sorted) together.
         Pageable oiPageable = PageRequest.of(0, 1); // oi = one item; required for SQL randomization
-        if (quizMessageCount == 0 || excludedMessageIds.size() >= quizMessageCount) {
-            Quiz quiz = quizRepository.findById(quizId)
-                    .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
-            long groupChatId = quiz.getGroupChat().getId();
+        long[] weights = countGroupChatMessages(pool);
+        int chat;
+        while ((chat = pickWeighted(weights)) != -1) {
+            long groupChatId = pool.getGroupChatId(chat);
             List<Message> oiPage = excludedMessageIds.isEmpty()
                     ? messageRepository.findRandomMessageByGroupChatId(groupChatId, oiPageable).getContent()
                     : messageRepository.findRandomMessageByGroupChatId(groupChatId, excludedMessageIds, oiPageable).getContent();
-            if (oiPage.isEmpty()) {
-                throw new DataNotFoundException("No messages found in group chat with id " + groupChatId);
+            if (!oiPage.isEmpty()) {
+                return oiPage.get(0).toDTO();
             }
-            rMessage = oiPage.get(0);
+            weights[chat] = 0; // Every message of this group chat has been excluded
+        }
+        throw new DataNotFoundException("No messages found in the group chats of quiz with id " + quizId);
+    }
+
+    // Like the above, but the messages to exclude are given as a set of ordinals (see ExclusionBitmaps), and the
+    // selection happens in memory rather than in SQL.
+    // The quiz's messages, ordered by id, have ordinals [0, q). Once they are all excluded, the messages of the group
+    // chats the quiz draws from follow, one group chat after another (in the order of Quiz.getSourceGroupChatIds()),
+    // each ordered by id. A group chat's range includes its messages that are in the quiz, but they are never chosen
+    // from it, since they already have ordinals of their own. The ranges are read from the group chats' cached ids
+    // (see GroupChatIdCache), so choosing a group chat message costs no query beyond loading the message.
+    //
+    // Ordinals shift when messages are added to or removed from the quiz or its group chats, so the ordinals are only
+    // meaningful within an ordinal space, which identifies the quiz's messages and the versions of its group chats
+    // (see MessageCountCache.getVersion()). The current space is returned with every message. If the client sends the
+    // space its ordinals refer to, and it is no longer the current one, its exclusion set is rejected and the client
+    // must start a new run. Spaces do not survive a restart of the server.
+    // Throws a BadFormatException if excludedOrdinals cannot be decoded, and a StaleOrdinalsException if ordinalSpace
+    // is given, excludedOrdinals is not empty, and ordinalSpace is not the current space.
+    public OrdinalMessage getRandomQuizMessage(
+            long quizId,
+            String excludedOrdinals,
+            String ordinalSpace,
+            SamplingMode mode,
+            Map<Long, Double> participantWeights
+    ) {
+        RoaringBitmap excluded = ExclusionBitmaps.decode(excludedOrdinals);
+
+        // The pool's message indices are the quiz's ordinals
+        QuizPool pool = quizPoolCache.getPool(quizId);
+        String currentSpace = getOrdinalSpace(pool);
+        if (ordinalSpace != null && !excluded.isEmpty() && !ordinalSpace.equals(currentSpace)) {
+            throw new StaleOrdinalsException("The messages of quiz with id " + quizId + " have changed since the run started.");
+        }
+        int ordinal = pickFromPool(pool, excluded, mode, participantWeights);
+        MessageDTO message;
+        if (ordinal != -1) {
+            message = pool.getMessage(ordinal);
         } else {
-            rMessage = excludedMessageIds.isEmpty()
-                    ? messageRepository.findRandomMessageByQuizId(quizId, oiPageable).getContent().get(0)
-                    : messageRepository.findRandomMessageByQuizId(quizId, excludedMessageIds, oiPageable).getContent().get(0);
+            GroupChatIds[] groupChats = new GroupChatIds[pool.getGroupChatCount()];
+            int[] starts = new int[groupChats.length];
+            int end = pool.size();
+            for (int i = 0; i < groupChats.length; i++) {
+                groupChats[i] = groupChatIdCache.getIds(pool.getGroupChatId(i));
+                starts[i] = end;
+                end += groupChats[i].size();
+            }
+            // The quiz's messages are left out of the group chats' ranges
+            RoaringBitmap unavailable = excluded.clone();
+            for (int i = 0; i < groupChats.length; i++) {
+                if (pool.getGroupChatMessageCount(i) == 0) {
+                    continue;
+                }
+                for (int j = 0; j < pool.size(); j++) {
+                    int index = groupChats[i].indexOf(pool.getMessageId(j));
+                    if (index >= 0) {
+                        unavailable.add(starts[i] + index);
+                    }
+                }
+            }
+            ordinal = ExclusionBitmaps.pickUnexcluded(unavailable, pool.size(), end);
+            if (ordinal == -1) {
+                throw new DataNotFoundException("No messages found in the group chats of quiz with id " + quizId);
+            }
+
+            int chat = groupChats.length - 1;
+            while (starts[chat] > ordinal) {
+                chat--;
+            }
+            message = getMessage(groupChats[chat].get(ordinal - starts[chat]));
+        }
+
+        excluded.add(ordinal);
+        return new OrdinalMessage(message, ordinal, ExclusionBitmaps.encode(excluded), currentSpace);
+    }
+
+    // Identifies the quiz's ordinals: the pool's messages, and the version of each group chat it draws from. The boot
+    // nonce keeps spaces from before a restart, when versions started over, from matching.
+    private String getOrdinalSpace(QuizPool pool) {
+        long hash = 31 * BOOT_NONCE + pool.getContentHash();
+        for (int i = 0; i < pool.getGroupChatCount(); i++) {
+            hash = 31 * hash + pool.getGroupChatId(i);
+            hash = 31 * hash + messageCountCache.getVersion(pool.getGroupChatId(i));
+        }
+        return Long.toHexString(hash);
+    }
+
+    // The number of messages in each of the pool's group chats, in the pool's order
+    private long[] countGroupChatMessages(QuizPool pool) {
+        long[] counts = new long[pool.getGroupChatCount()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = messageCountCache.countGroupChatMessages(pool.getGroupChatId(i));
+        }
+        return counts;
+    }
+
+    // Returns an index chosen with probability proportional to its weight, or -1 if every weight is 0
+    private static int pickWeighted(long[] weights) {
+        long total = 0;
+        for (long weight : weights) {
+            total += weight;
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long target = ThreadLocalRandom.current().nextLong(total);
+        int i = 0;
+        while (target >= weights[i]) {
+            target -= weights[i++];
         }
+        return i;
+    }
 
-        return rMessage.toDTO();
+    // Returns the index of a message in the pool that is not excluded, or -1 if there is none to choose from.
+    // Stratified modes use the pool's QuizSampler, whose alias tables are built once per pool.
+    private static int pickFromPool(
+            QuizPool pool, RoaringBitmap excluded, SamplingMode mode, Map<Long, Double> participantWeights
+    ) {
+        return switch (mode) {
+            case UNIFORM -> ExclusionBitmaps.pickUnexcluded(excluded, 0, pool.size());
+            case BALANCED -> pool.getSampler().sampleBalanced(excluded);
+            case WEIGHTED -> pool.getSampler().sampleWeighted(excluded, participantWeights);
+        };
     }
 
+    // The page's messages are fetched as a slice, without a count query; the total comes from the MessageCountCache
     public Page<MessageDTO> getPaginatedGroupChatMessages(long groupChatId, Pageable pageable) {
-        Page<Message> messages = messageRepository.findByGroupChatId(groupChatId, pageable);
-        return messages.map(Message::toDTO);
+        Slice<Message> messages = messageRepository.findSliceByGroupChatId(groupChatId, pageable);
+        long total = messageCountCache.countGroupChatMessages(groupChatId);
+        return new PageImpl<>(toDTOs(messages.getContent()), pageable, total);
     }
 
     // Method overload for filtering messages by participantId
     public Page<MessageDTO> getPaginatedGroupChatMessages(long groupChatId, long participantId, Pageable pageable) {
-        Page<Message> messages = messageRepository.findByGroupChatIdAndParticipantId(groupChatId, participantId, pageable);
-        return messages.map(Message::toDTO);
+        Slice<Message> messages = messageRepository.findSliceByGroupChatIdAndParticipantId(groupChatId, participantId, pageable);
+        long total = messageCountCache.countParticipantMessages(groupChatId, participantId);
+        return new PageImpl<>(toDTOs(messages.getContent()), pageable, total);
     }
 
+    // Quiz messages are paged from the quiz's cached pool. The pageable may be sorted by a single property, timestamp or
+    // id, in either direction; it is ordered by timestamp, ascending, if it is unsorted. Timestamp ties are ordered by id.
+    // Throws a BadFormatException if the pageable is sorted any other way.
     public Page<MessageDTO> getPaginatedQuizMessages(long quizId, Pageable pageable) {
-        Page<Message> messages = messageRepository.findByQuizId(quizId, pageable);
-        return messages.map(Message::toDTO);
+        return pageQuizPool(quizId, null, pageable);
     }
 
     // Method overload for filtering messages by participantId
     public Page<MessageDTO> getPaginatedQuizMessages(long quizId, long participantId, Pageable pageable) {
-        Page<Message> messages = messageRepository.findByQuizIdAndParticipantId(quizId, participantId, pageable);
-        return messages.map(Message::toDTO);
+        return pageQuizPool(quizId, participantId, pageable);
+    }
+
+    private Page<MessageDTO> pageQuizPool(long quizId, Long participantId, Pageable pageable) {
+        List<Sort.Order> orders = pageable.getSort().toList();
+        Sort.Order order = orders.isEmpty() ? Sort.Order.asc("timestamp") : orders.get(0);
+        if (orders.size() > 1 || !Set.of("timestamp", "id").contains(order.getProperty())) {
+            throw new BadFormatException("Quiz messages can only be sorted by timestamp or by id.");
+        }
+        List<MessageDTO> messages;
+        try {
+            QuizPool pool = quizPoolCache.getPool(quizId);
+            messages = switch (order.getProperty()) {
+                case "timestamp" -> pool.getMessagesByTimestamp(order.isAscending(), participantId);
+                case "id" -> pool.getMessagesById(order.isAscending(), participantId);
+                default -> throw new IllegalStateException(); // Checked above
+            };
+        } catch (DataNotFoundException e) {
+            messages = List.of(); // A quiz that does not exist has no messages
+        }
+        int from = (int) Math.min(pageable.getOffset(), messages.size());
+        int to = Math.min(from + pageable.getPageSize(), messages.size());
+        return new PageImpl<>(messages.subList(from, to), pageable, messages.size());
+    }
+
+    // Keyset pagination of a group chat's messages, ordered by (timestamp, messageId) in the given direction.
+    // Without a cursor the first page is returned; after (the nextCursor of a page) continues with the page following
+    // it, and before (the previousCursor of a page) returns the page preceding it. Every page is an index range scan,
+    // so it costs the same however deep it is.
+    // Throws a BadFormatException if both cursors are given, a cursor is malformed, or the page size is out of range.
+    public MessageCursorPageDTO getGroupChatMessagesByCursor(
+            long groupChatId, Long participantId, boolean ascending, String after, String before, int pageSize
+    ) {
+        return seekPage(ascending, after, before, pageSize, (cursor, greater, limit) -> {
+            List<Message> messages;
+            if (cursor == null) {
+                Pageable first = PageRequest.of(0, limit);
+                if (participantId == null) {
+                    messages = greater
+                            ? messageRepository.findByGroupChatIdOrderByTimestampAscIdAsc(groupChatId, first)
+                            : messageRepository.findByGroupChatIdOrderByTimestampDescIdDesc(groupChatId, first);
+                } else {
+                    messages = greater
+                            ? messageRepository.findByGroupChatIdAndParticipantIdOrderByTimestampAscIdAsc(
+                                    groupChatId, participantId, first)
+                            : messageRepository.findByGroupChatIdAndParticipantIdOrderByTimestampDescIdDesc(
+                                    groupChatId, participantId, first);
+                }
+            } else if (participantId == null) {
+                messages = greater
+                        ? messageRepository.findByGroupChatIdAfter(
+                                groupChatId, cursor.timestamp(), cursor.messageId(), limit)
+                        : messageRepository.findByGroupChatIdBefore(
+                                groupChatId, cursor.timestamp(), cursor.messageId(), limit);
+            } else {
+                messages = greater
+                        ? messageRepository.findByGroupChatIdAndParticipantIdAfter(
+                                groupChatId, participantId, cursor.timestamp(), cursor.messageId(), limit)
+                        : messageRepository.findByGroupChatIdAndParticipantIdBefore(
+                                groupChatId, participantId, cursor.timestamp(), cursor.messageId(), limit);
+            }
+            return toDTOs(messages);
+        });
+    }
+
+    // As getGroupChatMessagesByCursor, but the quiz's messages are sought in its cached pool
+    public MessageCursorPageDTO getQuizMessagesByCursor(
+            long quizId, Long participantId, boolean ascending, String after, String before, int pageSize
+    ) {
+        return seekPage(ascending, after, before, pageSize, (cursor, greater, limit) -> {
+            try {
+                return quizPoolCache.getPool(quizId).seekByTimestamp(cursor, greater, participantId, limit);
+            } catch (DataNotFoundException e) {
+                return List.of(); // A quiz that does not exist has no messages
+            }
+        });
+    }
+
+    // Fetches up to limit messages past the cursor (or from the start, if it is null), nearest first: in ascending
+    // order if greater is true, and in descending order otherwise
+    @FunctionalInterface
+    private interface MessageSeek {
+        List<MessageDTO> seek(MessageCursor cursor, boolean greater, int limit);
+    }
+
+    private static MessageCursorPageDTO seekPage(
+            boolean ascending, String after, String before, int pageSize, MessageSeek seek
+    ) {
+        if (pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+            throw new BadFormatException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE + ".");
+        }
+        if (after != null && before != null) {
+            throw new BadFormatException("Only one of after and before may be given.");
+        }
+        boolean backward = before != null;
+        MessageCursor cursor = MessageCursor.decode(backward ? before : after);
+
+        // One extra message tells whether there is another page in the direction of travel
+        List<MessageDTO> messages = new ArrayList<>(seek.seek(cursor, ascending != backward, pageSize + 1));
+        boolean more = messages.size() > pageSize;
+        if (more) {
+            messages.remove(pageSize);
+        }
+        if (backward) {
+            Collections.reverse(messages);
+        }
+
+        boolean hasNext = backward ? cursor != null : more;
+        boolean hasPrevious = backward ? more : cursor != null;
+        String previousCursor = messages.isEmpty() ? null : MessageCursor.of(messages.get(0)).encode();
+        String nextCursor = messages.isEmpty() ? null : MessageCursor.of(messages.get(messages.size() - 1)).encode();
+        return new MessageCursorPageDTO(messages, previousCursor, nextCursor, hasPrevious, hasNext);
+    }
+
+    // Converts the messages with one count query for their senders, rather than loading each sender's messages
+    private List<MessageDTO> toDTOs(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> senderIds = messages.stream().map(message -> message.getParticipant().getId()).collect(Collectors.toSet());
+        Map<Long, Long> messageCounts = new HashMap<>();
+        for (Object[] row : messageRepository.countByParticipantIds(senderIds)) {
+            messageCounts.put((Long) row[0], (Long) row[1]);
+        }
+        List<MessageDTO> dtos = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            Participant sender = message.getParticipant();
+            dtos.add(new MessageDTO(
+                    message.getId(),
+                    new ParticipantDTO(
+                            sender.getId(),
+                            sender.getName(),
+                            messageCounts.getOrDefault(sender.getId(), 0L).intValue()
+                    ),
+                    message.getContent(),
+                    message.getTimestamp()
+            ));
+        }
+        return dtos;
     }
 
     public MessageDTO getMessage(long id) {
@@ -85,8 +397,11 @@ public class MessageService {
     }
 
     public List<MessageDTO> getMessagesByQuizId(long quizId) {
-        List<Message> messages = messageRepository.findByQuizId(quizId);
-        return messages.stream().map(Message::toDTO).toList();
+        try {
+            return quizPoolCache.getPool(quizId).getMessagesByTimestamp(true, null);
+        } catch (DataNotFoundException e) {
+            return List.of(); // A quiz that does not exist has no messages
+        }
     }
 
     @Transactional
@@ -101,10 +416,14 @@ public class MessageService {
         Message message = messageRepository.findById(id).orElseThrow(
                 () -> new DataNotFoundException("Message with id " + id + " not found.")
         );
+        // Besides the quizzes containing the message, the sender's message count changes in the group chat's other pools
+        quizPoolCache.invalidateGroupChat(message.getGroupChat().getId());
+        messageCountCache.invalidateGroupChat(message.getGroupChat().getId());
 
         // We remove the message from any quizzes it may be in to preserve referential integrity
         for (Quiz quiz : message.getQuizzes()) {
-            quiz.getMessagesInQuiz().remove(message);
+            quizPackService.invalidateQuiz(quiz.getId());
+            quiz.removeMessages(Set.of(id));
         }
         messageRepository.delete(message);
     }
@@ -112,6 +431,7 @@ public class MessageService {
     public Message saveMessage(Participant participant, GroupChat groupChat, String content, LocalDateTime timestamp) {
         Message message = new Message(participant, groupChat, content, timestamp);
         messageRepository.save(message);
+        messageCountCache.invalidateGroupChat(groupChat.getId());
         return message;
     }
 
@@ -0,0 +1,173 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.services.parsing.ParsedMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.Consumer;
+
+@Service
+public class ParseCacheService {
+    // This service keeps the parsed (and cleaned, but not yet filtered) messages of recent uploads on disk, keyed by
+    // the SHA-256 hash of the uploaded file. Uploading the same file again (e.g., with a different minCharacters)
+    // reads the messages back instead of parsing the export a second time.
+    // Entries expire after a short time; the cache is an optimization only, so any failure to write it is ignored.
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".messages";
+
+    @Value("${app.upload.parse-cache-dir}")
+    private Path cacheDirectory;
+
+    @Value("${app.upload.parse-cache-ttl}")
+    private Duration timeToLive;
+
+    public boolean contains(String fileHash) {
+        Path entry = entryPath(fileHash);
+        try {
+            return Files.exists(entry) && !isExpired(entry);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Passes the cached messages of the file to the consumer, in order
+    public void read(String fileHash, Consumer<ParsedMessage> consumer) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(entryPath(fileHash))))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new IOException("Parse cache entry for " + fileHash + " has an unknown format.");
+            }
+            while (true) {
+                long epochSecond;
+                try {
+                    epochSecond = input.readLong();
+                } catch (EOFException e) {
+                    return;
+                }
+                LocalDateTime timestamp = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+                consumer.accept(new ParsedMessage(timestamp, readString(input), readString(input)));
+            }
+        }
+    }
+
+    // Starts a new cache entry for the file. The entry only becomes visible once it has been committed.
+    public Entry openEntry(String fileHash) {
+        evictExpiredEntries();
+        return new Entry(fileHash);
+    }
+
+    public class Entry implements AutoCloseable {
+        private final String fileHash;
+        private Path temporaryFile;
+        private DataOutputStream output;
+
+        private Entry(String fileHash) {
+            this.fileHash = fileHash;
+            try {
+                Files.createDirectories(cacheDirectory);
+                temporaryFile = Files.createTempFile(cacheDirectory, fileHash, ".tmp");
+                output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)));
+                output.writeInt(FORMAT_VERSION);
+            } catch (IOException e) {
+                discard();
+            }
+        }
+
+        public void write(ParsedMessage message) {
+            if (output == null) { return; }
+            try {
+                output.writeLong(message.timestamp().toEpochSecond(ZoneOffset.UTC));
+                writeString(output, message.sender());
+                writeString(output, message.content());
+            } catch (IOException e) {
+                discard();
+            }
+        }
+
+        // Makes the entry visible. Must be called once every message of the file has been written.
+        public void commit() {
+            if (output == null) { return; }
+            try {
+                output.close();
+                output = null;
+                Files.move(temporaryFile, entryPath(fileHash),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                temporaryFile = null;
+            } catch (IOException e) {
+                discard();
+            }
+        }
+
+        // Discards the entry unless it has been committed
+        @Override
+        public void close() {
+            discard();
+        }
+
+        private void discard() {
+            try {
+                if (output != null) {
+                    output.close();
+                }
+                if (temporaryFile != null) {
+                    Files.deleteIfExists(temporaryFile);
+                }
+            } catch (IOException ignored) {
+                // The file lives in the cache directory and will be evicted once it has expired
+            }
+            output = null;
+            temporaryFile = null;
+        }
+    }
+
+    private Path entryPath(String fileHash) {
+        return cacheDirectory.resolve(fileHash + ENTRY_SUFFIX);
+    }
+
+    private boolean isExpired(Path file) throws IOException {
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        return lastModified.toInstant().isBefore(Instant.now().minus(timeToLive));
+    }
+
+    private void evictExpiredEntries() {
+        if (!Files.isDirectory(cacheDirectory)) { return; }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory)) {
+            for (Path file : files) {
+                if (isExpired(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException ignored) {
+            // Eviction is retried the next time an entry is opened
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
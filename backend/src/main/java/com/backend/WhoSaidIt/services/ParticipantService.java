@@ -20,10 +20,19 @@ public class ParticipantService {
 
     private final ParticipantRepository participantRepository;
     private final MessageService messageService;
+    private final QuizPoolCache quizPoolCache;
+    private final QuizPackService quizPackService;
 
-    public ParticipantService(ParticipantRepository participantRepository, MessageService messageService) {
+    public ParticipantService(
+            ParticipantRepository participantRepository,
+            MessageService messageService,
+            QuizPoolCache quizPoolCache,
+            QuizPackService quizPackService
+    ) {
         this.participantRepository = participantRepository;
         this.messageService = messageService;
+        this.quizPoolCache = quizPoolCache;
+        this.quizPackService = quizPackService;
     }
 
     public ParticipantDTO getParticipant(long participantId) {
@@ -44,6 +53,9 @@ public class ParticipantService {
                 () -> new DataNotFoundException("Participant with id " + participantId + " not found.")
         );
         participant.setName(name);
+        // The name appears in the sender DTOs of the group chat's quiz pools, and in its quizzes' published info
+        quizPoolCache.invalidateGroupChat(participant.getGroupChat().getId());
+        quizPackService.invalidateGroupChat(participant.getGroupChat().getId());
     }
 
     public Participant saveParticipant(GroupChat groupChat, String name) {
@@ -60,6 +72,7 @@ public class ParticipantService {
 
         // Iterate through the participant's messages and call the messageService's delete method, which will
         // also remove the associations between the deleted messages and any quizzes they were in.
+        quizPackService.invalidateGroupChat(participant.getGroupChat().getId());
         List<Message> messages = new ArrayList<>(participant.getMessages());
         for (Message message : messages) {
             messageService.deleteMessage(message.getId());
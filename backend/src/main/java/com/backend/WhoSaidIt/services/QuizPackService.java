@@ -0,0 +1,223 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.QuestionDTO;
+import com.backend.WhoSaidIt.DTOs.QuizPackContentDTO;
+import com.backend.WhoSaidIt.DTOs.QuizPackDTO;
+import com.backend.WhoSaidIt.entities.quiz.Quiz;
+import com.backend.WhoSaidIt.entities.quiz.QuizPack;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.repositories.QuizPackRepository;
+import com.backend.WhoSaidIt.repositories.QuizRepository;
+import com.backend.WhoSaidIt.services.play.PublishedPack;
+import com.backend.WhoSaidIt.services.play.QuizPool;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class QuizPackService {
+    // This service publishes quizzes as immutable, versioned packs for shareable links.
+    // A pack holds the quiz info and the quiz's messages in a shuffled order, serialized to JSON once, when the quiz is
+    // published. Players are then served the same bytes with a strong ETag, rather than each building the quiz info and
+    // drawing random messages. Recently served packs are also kept in memory, up to a configured total size. The
+    // questions leave out their senders, so a pack does not give its answers away.
+    //
+    // Editing the quiz (its messages, or the participants in its info) unpublishes the pack until the quiz is published
+    // again, which bumps the version. A version, once served, never changes, so it can be cached indefinitely.
+
+    private final QuizPackRepository quizPackRepository;
+    private final QuizRepository quizRepository;
+    private final QuizPoolCache quizPoolCache;
+    private final ObjectMapper objectMapper;
+
+    // Access ordered, so iteration starts at the least recently used pack. Guarded by itself.
+    private final LinkedHashMap<Long, PublishedPack> packs = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    @Value("${app.play.pack-cache-max-weight}")
+    private DataSize maxWeight;
+
+    public QuizPackService(
+            QuizPackRepository quizPackRepository,
+            QuizRepository quizRepository,
+            QuizPoolCache quizPoolCache,
+            ObjectMapper objectMapper
+    ) {
+        this.quizPackRepository = quizPackRepository;
+        this.quizRepository = quizRepository;
+        this.quizPoolCache = quizPoolCache;
+        this.objectMapper = objectMapper;
+    }
+
+    // Throws a BadFormatException if the quiz has no messages
+    @Transactional
+    public QuizPackDTO publish(long quizId) {
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
+        QuizPool pool = quizPoolCache.getPool(quizId);
+        if (pool.size() == 0) {
+            throw new BadFormatException("A quiz must have messages to be published.");
+        }
+
+        List<QuestionDTO> questions = new ArrayList<>(pool.size());
+        for (int i = 0; i < pool.size(); i++) {
+            MessageDTO message = pool.getMessage(i);
+            questions.add(new QuestionDTO(message.id(), message.content(), message.timestamp()));
+        }
+        Collections.shuffle(questions);
+
+        QuizPack pack = quizPackRepository.findByQuizId(quizId).orElseGet(() -> new QuizPack(quiz));
+        int version = pack.getVersion() + 1;
+        LocalDateTime publishedDate = LocalDateTime.now();
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(
+                    new QuizPackContentDTO(quizId, version, publishedDate, quiz.toInfoDTO(), questions)
+            );
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize quiz pack.", e);
+        }
+        String etag = "\"" + quizId + "-" + version + "-" + sha256(payload).substring(0, 32) + "\"";
+        pack.publish(version, etag, payload, publishedDate);
+        quizPackRepository.save(pack);
+        evictAfterCompletion(Set.of(quizId));
+
+        return new QuizPackDTO(quizId, version, etag, payload.length, publishedDate);
+    }
+
+    // Throws a DataNotFoundException if the quiz is not currently published
+    public PublishedPack getCurrentPack(long quizId) {
+        PublishedPack pack;
+        synchronized (packs) {
+            pack = packs.get(quizId);
+        }
+        if (pack != null) {
+            return pack;
+        }
+
+        QuizPack entity = quizPackRepository.findByQuizId(quizId)
+                .filter(QuizPack::isPublished)
+                .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " is not published."));
+        pack = new PublishedPack(quizId, entity.getVersion(), entity.getEtag(), entity.getPayload());
+        if (pack.payload().length <= maxWeight.toBytes()) {
+            synchronized (packs) {
+                PublishedPack replaced = packs.put(quizId, pack);
+                totalBytes += pack.payload().length - (replaced == null ? 0 : replaced.payload().length);
+                evictOverweight();
+            }
+        }
+        return pack;
+    }
+
+    // Only the current version of a pack is kept.
+    // Throws a DataNotFoundException if the quiz is not published, or if the version is not its current one.
+    public PublishedPack getPack(long quizId, int version) {
+        PublishedPack pack = getCurrentPack(quizId);
+        if (pack.version() != version) {
+            throw new DataNotFoundException("Version " + version + " of quiz with id " + quizId + " not found.");
+        }
+        return pack;
+    }
+
+    public void invalidateQuiz(long quizId) {
+        if (alreadyInvalidated("quiz:" + quizId)) {
+            return;
+        }
+        quizPackRepository.unpublishByQuizId(quizId);
+        evictAfterCompletion(Set.of(quizId));
+    }
+
+    public void invalidateGroupChat(long groupChatId) {
+        if (alreadyInvalidated("groupChat:" + groupChatId)) {
+            return;
+        }
+        quizPackRepository.unpublishByGroupChatId(groupChatId);
+        Set<Long> quizIds = new HashSet<>();
+        for (Quiz quiz : quizRepository.findDrawingFromGroupChat(groupChatId)) {
+            quizIds.add(quiz.getId());
+        }
+        evictAfterCompletion(quizIds);
+    }
+
+    // Whether the key has already been invalidated in the current transaction, which unpublishes the pack for the rest
+    // of it. This keeps a transaction making many changes (e.g., deleting many messages) from repeating the update.
+    private boolean alreadyInvalidated(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        Set<String> invalidated = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (invalidated == null) {
+            invalidated = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, invalidated);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QuizPackService.this);
+                }
+            });
+        }
+        return !invalidated.add(key);
+    }
+
+    // Packs are evicted from memory immediately and, inside a transaction, again once it completes, so that a pack read
+    // concurrently from the not yet committed state does not survive
+    private void evictAfterCompletion(Set<Long> quizIds) {
+        evict(quizIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(quizIds);
+                }
+            });
+        }
+    }
+
+    private void evict(Set<Long> quizIds) {
+        synchronized (packs) {
+            for (long quizId : quizIds) {
+                PublishedPack removed = packs.remove(quizId);
+                if (removed != null) {
+                    totalBytes -= removed.payload().length;
+                }
+            }
+        }
+    }
+
+    // Precondition: the caller holds the lock on packs
+    private void evictOverweight() {
+        Iterator<PublishedPack> iterator = packs.values().iterator();
+        while (totalBytes > maxWeight.toBytes() && iterator.hasNext()) {
+            totalBytes -= iterator.next().payload().length;
+            iterator.remove();
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+}
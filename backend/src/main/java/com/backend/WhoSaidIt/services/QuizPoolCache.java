@@ -0,0 +1,179 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.entities.Message;
+import com.backend.WhoSaidIt.entities.Participant;
+import com.backend.WhoSaidIt.entities.quiz.Quiz;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.repositories.MessageRepository;
+import com.backend.WhoSaidIt.repositories.QuizRepository;
+import com.backend.WhoSaidIt.services.play.QuizPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class QuizPoolCache {
+    // This cache keeps the message pools (see QuizPool) of recently played quizzes in memory, so that the players of a
+    // popular quiz do not each query its messages. Pools are evicted in least recently used order once their combined
+    // weight exceeds the configured maximum.
+    //
+    // Changes to a quiz's messages must invalidate its pool. Changes that affect a whole group chat (e.g., deleting or
+    // renaming a participant, which shows up in every pool's sender DTOs) invalidate the pools of all quizzes that draw
+    // from it.
+    // Inside a transaction, the pool is invalidated both immediately and again once the transaction completes, so that
+    // a pool loaded concurrently from the not yet committed state does not survive.
+
+    private final MessageRepository messageRepository;
+    private final QuizRepository quizRepository;
+
+    // Access ordered, so iteration starts at the least recently used pool. Guarded by itself.
+    private final LinkedHashMap<Long, QuizPool> pools = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight = 0;
+    // Incremented by every invalidation. A pool is only cached if no invalidation happened while it was being loaded.
+    private long generation = 0;
+
+    @Value("${app.play.pool-cache-max-weight}")
+    private DataSize maxWeight;
+
+    public QuizPoolCache(MessageRepository messageRepository, QuizRepository quizRepository) {
+        this.messageRepository = messageRepository;
+        this.quizRepository = quizRepository;
+    }
+
+    // Throws a DataNotFoundException if the quiz does not exist
+    public QuizPool getPool(long quizId) {
+        long loadGeneration;
+        synchronized (pools) {
+            QuizPool pool = pools.get(quizId);
+            if (pool != null) {
+                return pool;
+            }
+            loadGeneration = generation;
+        }
+
+        QuizPool pool = loadPool(quizId);
+        synchronized (pools) {
+            if (generation == loadGeneration && pool.getWeight() <= maxWeight.toBytes()) {
+                QuizPool replaced = pools.put(quizId, pool);
+                totalWeight += pool.getWeight() - (replaced == null ? 0 : replaced.getWeight());
+                evictOverweight();
+            }
+        }
+        return pool;
+    }
+
+    public void invalidateQuiz(long quizId) {
+        removeNowAndAfterCompletion(Set.of(quizId), Set.of());
+    }
+
+    public void invalidateGroupChat(long groupChatId) {
+        removeNowAndAfterCompletion(Set.of(), Set.of(groupChatId));
+    }
+
+    private QuizPool loadPool(long quizId) {
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
+        List<Message> messages = messageRepository.findWithParticipantByQuizId(quizId);
+
+        Map<Long, Participant> senders = new HashMap<>();
+        for (Message message : messages) {
+            senders.putIfAbsent(message.getParticipant().getId(), message.getParticipant());
+        }
+        Map<Long, ParticipantDTO> senderDTOs = new HashMap<>();
+        if (!senders.isEmpty()) {
+            for (Object[] row : messageRepository.countByParticipantIds(senders.keySet())) {
+                Participant sender = senders.get((Long) row[0]);
+                senderDTOs.put(sender.getId(), new ParticipantDTO(sender.getId(), sender.getName(), ((Long) row[1]).intValue()));
+            }
+        }
+
+        List<MessageDTO> messageDTOs = messages.stream().map(message -> new MessageDTO(
+                message.getId(),
+                senderDTOs.get(message.getParticipant().getId()),
+                message.getContent(),
+                message.getTimestamp()
+        )).toList();
+        long[] groupChatIds = quiz.getSourceGroupChatIds();
+        int[] groupChatMessageCounts = new int[groupChatIds.length];
+        for (Message message : messages) {
+            long groupChatId = message.getGroupChat().getId();
+            for (int i = 0; i < groupChatIds.length; i++) {
+                if (groupChatIds[i] == groupChatId) {
+                    groupChatMessageCounts[i]++;
+                    break;
+                }
+            }
+        }
+        return new QuizPool(quizId, groupChatIds, groupChatMessageCounts, messageDTOs);
+    }
+
+    private void removeNowAndAfterCompletion(Set<Long> quizIds, Set<Long> groupChatIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(quizIds, groupChatIds);
+            return;
+        }
+        // Invalidations are collected per transaction, so that a transaction making many changes (e.g., deleting every
+        // message of a group chat) only registers one synchronization, and only removes each pool once up front
+        PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingInvalidations();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        Set<Long> newQuizIds = new HashSet<>(quizIds);
+        newQuizIds.removeAll(pending.quizIds);
+        Set<Long> newGroupChatIds = new HashSet<>(groupChatIds);
+        newGroupChatIds.removeAll(pending.groupChatIds);
+        pending.quizIds.addAll(newQuizIds);
+        pending.groupChatIds.addAll(newGroupChatIds);
+        if (!newQuizIds.isEmpty() || !newGroupChatIds.isEmpty()) {
+            remove(newQuizIds, newGroupChatIds);
+        }
+    }
+
+    private class PendingInvalidations implements TransactionSynchronization {
+        private final Set<Long> quizIds = new HashSet<>();
+        private final Set<Long> groupChatIds = new HashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(QuizPoolCache.this);
+            remove(quizIds, groupChatIds);
+        }
+    }
+
+    private void remove(Set<Long> quizIds, Set<Long> groupChatIds) {
+        synchronized (pools) {
+            generation++;
+            Iterator<QuizPool> iterator = pools.values().iterator();
+            while (iterator.hasNext()) {
+                QuizPool pool = iterator.next();
+                if (quizIds.contains(pool.getQuizId()) || groupChatIds.stream().anyMatch(pool::drawsFrom)) {
+                    totalWeight -= pool.getWeight();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    // Precondition: the caller holds the lock on pools
+    private void evictOverweight() {
+        Iterator<QuizPool> iterator = pools.values().iterator();
+        while (totalWeight > maxWeight.toBytes() && iterator.hasNext()) {
+            totalWeight -= iterator.next().getWeight();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.backend.WhoSaidIt.services;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class QuizPositionBackfill implements SmartInitializingSingleton {
+    // Gives a position to quiz messages that were added before quizzes kept their messages' positions
+    // (see Quiz.messagesInQuiz). Such rows have no position; they are numbered in message id order, after any positions
+    // the quiz already uses. Once every row has a position this finds nothing to do.
+    //
+    // The column is added here if the schema update could not add it (it cannot add a NOT NULL column to a table that
+    // already has rows).
+    //
+    // It runs once every singleton (including the EntityManagerFactory, which updates the schema) has been created, and
+    // before the web server starts, so no request reads or removes quiz messages while their positions are missing.
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QuizPositionBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute("ALTER TABLE messages_in_quiz ADD COLUMN IF NOT EXISTS quiz_position INTEGER");
+        jdbcTemplate.update("""
+                UPDATE messages_in_quiz
+                SET quiz_position = numbered.position
+                FROM (
+                    SELECT unpositioned.quiz_id, unpositioned.message_id,
+                           COALESCE(positioned.max_position, -1)
+                               + ROW_NUMBER() OVER (PARTITION BY unpositioned.quiz_id ORDER BY unpositioned.message_id)
+                               AS position
+                    FROM messages_in_quiz unpositioned
+                    LEFT JOIN (
+                        SELECT quiz_id, MAX(quiz_position) AS max_position
+                        FROM messages_in_quiz
+                        GROUP BY quiz_id
+                    ) positioned ON positioned.quiz_id = unpositioned.quiz_id
+                    WHERE unpositioned.quiz_position IS NULL
+                ) numbered
+                WHERE messages_in_quiz.quiz_id = numbered.quiz_id
+                  AND messages_in_quiz.message_id = numbered.message_id
+                  AND messages_in_quiz.quiz_position IS NULL
+                """);
+    }
+}
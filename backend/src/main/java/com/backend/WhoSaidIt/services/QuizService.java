@@ -1,5 +1,6 @@
 package com.backend.WhoSaidIt.services;
 
+import com.backend.WhoSaidIt.DTOs.GroupChatDTO;
 import com.backend.WhoSaidIt.DTOs.quiz.QuizDTO;
 import com.backend.WhoSaidIt.DTOs.quiz.SurvivalQuizDTO;
 import com.backend.WhoSaidIt.DTOs.quiz.TimeAttackQuizDTO;
@@ -10,6 +11,7 @@ import com.backend.WhoSaidIt.entities.Message;
 import com.backend.WhoSaidIt.entities.quiz.Quiz;
 import com.backend.WhoSaidIt.entities.quiz.SurvivalQuiz;
 import com.backend.WhoSaidIt.entities.quiz.TimeAttackQuiz;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
 import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
 import com.backend.WhoSaidIt.repositories.GroupChatRepository;
 import com.backend.WhoSaidIt.repositories.MessageRepository;
@@ -17,7 +19,11 @@ import com.backend.WhoSaidIt.repositories.QuizRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class QuizService {
@@ -25,15 +31,21 @@ public class QuizService {
     private final QuizRepository quizRepository;
     private final GroupChatRepository groupChatRepository;
     private final MessageRepository messageRepository;
+    private final QuizPoolCache quizPoolCache;
+    private final QuizPackService quizPackService;
 
     public QuizService(
             QuizRepository quizRepository,
             GroupChatRepository groupChatRepository,
-            MessageRepository messageRepository
+            MessageRepository messageRepository,
+            QuizPoolCache quizPoolCache,
+            QuizPackService quizPackService
     ) {
         this.quizRepository = quizRepository;
         this.groupChatRepository = groupChatRepository;
         this.messageRepository = messageRepository;
+        this.quizPoolCache = quizPoolCache;
+        this.quizPackService = quizPackService;
     }
 
     public List<QuizDTO> getAllQuizzes(long groupChatId) {
@@ -78,11 +90,18 @@ public class QuizService {
         if (messages.size() != messageIds.size()) {
             throw new DataNotFoundException("One or more messages with the given ids were not found.");
         }
+        quizPoolCache.invalidateQuiz(quizId);
+        quizPackService.invalidateQuiz(quizId);
 
         // Since the method is transactional, the database will be synchronized when the method returns.
+        // New messages are appended, taking the positions after the quiz's current messages.
+        List<Message> messagesInQuiz = quiz.getMessagesInQuiz();
+        Set<Long> quizMessageIds = new HashSet<>();
+        for (Message message : messagesInQuiz) {
+            quizMessageIds.add(message.getId());
+        }
         for (Message message : messages) {
-            List<Message> messagesInQuiz = quiz.getMessagesInQuiz();
-            if (!messagesInQuiz.contains(message)) {
+            if (quizMessageIds.add(message.getId())) {
                 messagesInQuiz.add(message);
                 message.getQuizzes().add(quiz);
             }
@@ -94,22 +113,87 @@ public class QuizService {
         Quiz quiz = quizRepository.findById(quizId)
                 .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
 
-        List<Message> quizMessages = quiz.getMessagesInQuiz();
-        int preSize = quizMessages.size();
-        quizMessages.removeIf(message -> messageIds.contains(message.getId()));
+        quizPoolCache.invalidateQuiz(quizId);
+        quizPackService.invalidateQuiz(quizId);
+
+        int removed = quiz.removeMessages(new HashSet<>(messageIds));
 
         // Check if the amount of messages removed matches the number of messageIds given.
-        if (preSize - quizMessages.size() != messageIds.size()) {
+        if (removed != messageIds.size()) {
             throw new DataNotFoundException("To delete: " + messageIds + "\n" +
-                    "Removed: " + (preSize - quizMessages.size()) + "\n" +
+                    "Removed: " + removed + "\n" +
                     "Expected num removed: " + messageIds.size() + "\n");
         }
     }
 
+    // The group chats the quiz draws messages from: its own group chat first, then its other sources in ascending order
+    @Transactional(readOnly = true)
+    public List<GroupChatDTO> getSourceGroupChats(long quizId) {
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
+        List<GroupChatDTO> sources = new ArrayList<>();
+        sources.add(quiz.getGroupChat().toDTO());
+        quiz.getSourceGroupChats().stream()
+                .filter(groupChat -> !groupChat.getId().equals(quiz.getGroupChat().getId()))
+                .sorted(Comparator.comparing(GroupChat::getId))
+                .forEach(groupChat -> sources.add(groupChat.toDTO()));
+        return sources;
+    }
+
+    // Replaces the other group chats the quiz draws messages from. The quiz's own group chat is always a source, so it
+    // may be omitted. Sources must belong to the owner of the quiz.
+    // Throws a DataNotFoundException if the quiz or a group chat does not exist, and a BadFormatException if a group
+    // chat belongs to another user.
+    @Transactional
+    public List<GroupChatDTO> setSourceGroupChats(long quizId, List<Long> groupChatIds) {
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new DataNotFoundException("Quiz with id " + quizId + " not found."));
+        Set<Long> sourceIds = new HashSet<>(groupChatIds);
+        sourceIds.remove(quiz.getGroupChat().getId());
+        List<GroupChat> sources = groupChatRepository.findAllById(sourceIds);
+        if (sources.size() != sourceIds.size()) {
+            throw new DataNotFoundException("One or more group chats with the given ids were not found.");
+        }
+        long ownerId = quiz.getGroupChat().getUser().getId();
+        for (GroupChat source : sources) {
+            if (source.getUser().getId() != ownerId) {
+                throw new BadFormatException("Group chat with id " + source.getId() + " belongs to another user.");
+            }
+        }
+        quizPoolCache.invalidateQuiz(quizId);
+        quizPackService.invalidateQuiz(quizId);
+
+        for (GroupChat removed : quiz.getSourceGroupChats()) {
+            removed.getSourcedQuizzes().remove(quiz);
+        }
+        quiz.getSourceGroupChats().clear();
+        for (GroupChat source : sources) {
+            quiz.getSourceGroupChats().add(source);
+            source.getSourcedQuizzes().add(quiz);
+        }
+        return getSourceGroupChats(quizId);
+    }
+
+    // Stops the quizzes of other group chats from drawing messages from the group chat, e.g., before it is deleted
+    @Transactional
+    public void removeSourceGroupChat(long groupChatId) {
+        GroupChat groupChat = groupChatRepository.findById(groupChatId).orElseThrow(
+                () -> new DataNotFoundException("GroupChat with id " + groupChatId + " not found.")
+        );
+        quizPoolCache.invalidateGroupChat(groupChatId);
+        quizPackService.invalidateGroupChat(groupChatId);
+        for (Quiz quiz : groupChat.getSourcedQuizzes()) {
+            quiz.getSourceGroupChats().remove(groupChat);
+        }
+        groupChat.getSourcedQuizzes().clear();
+    }
+
     @Transactional
     public void deleteQuiz(long id) {
         Quiz quiz = quizRepository.findById(id)
                 .orElseThrow(() -> new DataNotFoundException("Quiz with id " + id + " not found."));
+        quizPoolCache.invalidateQuiz(id);
+        quizPackService.invalidateQuiz(id);
 
         // We remove the quiz association from any messages that may be used in it to preserve referential integrity
         for (Message message : quiz.getMessagesInQuiz()) {
@@ -0,0 +1,262 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.DTOs.QuestionBatchDTO;
+import com.backend.WhoSaidIt.DTOs.QuestionDTO;
+import com.backend.WhoSaidIt.DTOs.QuizSessionDTO;
+import com.backend.WhoSaidIt.entities.Message;
+import com.backend.WhoSaidIt.entities.Participant;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.repositories.MessageRepository;
+import com.backend.WhoSaidIt.services.play.GroupChatDeck;
+import com.backend.WhoSaidIt.services.play.GroupChatIds;
+import com.backend.WhoSaidIt.services.play.QuizDeck;
+import com.backend.WhoSaidIt.services.play.QuizPool;
+import com.backend.WhoSaidIt.services.play.QuizSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+@Service
+public class QuizSessionService {
+    // This service serves the messages of a quiz in a random order, without repeats, over a play-through (session).
+    // When a session starts, the ids of the quiz's messages are shuffled once into a deck, and each question deals the
+    // next id from it. Unlike MessageService.getRandomQuizMessage, picking a message does not sort the quiz (or the
+    // group chat) in the database, so the cost of a question does not grow with the size of the chat.
+    // Once the quiz's messages run out, the other messages of the group chats it draws from are dealt in the same way.
+    // The group chat deck (see GroupChatDeck) refers to the chats' cached ids (see GroupChatIdCache), which all sessions
+    // share, and only tracks the positions it has dealt in a bitmap, so a session never copies a group chat's ids.
+    // Since the server keeps track of the messages a player has seen, clients no longer send the ids of every message
+    // served so far. Sessions that see no activity for a while are discarded by a periodic sweep, and the number of
+    // sessions held at once is capped, so a burst of new sessions cannot grow memory without bound.
+    // The quiz's messages are served from its cached pool (see QuizPoolCache); only group chat messages are queried.
+
+    private final MessageRepository messageRepository;
+    private final QuizPoolCache quizPoolCache;
+    private final GroupChatIdCache groupChatIdCache;
+    private final ParticipantService participantService;
+
+    private final Map<UUID, QuizSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${app.play.session-ttl}")
+    private Duration timeToLive;
+
+    // Largest number of sessions held at once, including expired sessions not yet swept
+    @Value("${app.play.max-sessions}")
+    private int maxSessions;
+
+    // Largest number of messages served by a single call to nextMessages()
+    @Value("${app.play.max-batch-size}")
+    private int maxBatchSize;
+
+    public QuizSessionService(
+            MessageRepository messageRepository,
+            QuizPoolCache quizPoolCache,
+            GroupChatIdCache groupChatIdCache,
+            ParticipantService participantService
+    ) {
+        this.messageRepository = messageRepository;
+        this.quizPoolCache = quizPoolCache;
+        this.groupChatIdCache = groupChatIdCache;
+        this.participantService = participantService;
+    }
+
+    // Throws a RejectedExecutionException if the maximum number of sessions are in progress
+    public QuizSessionDTO startSession(long quizId) {
+        if (sessions.size() >= maxSessions) {
+            evictExpiredSessions();
+            if (sessions.size() >= maxSessions) {
+                throw new RejectedExecutionException("Too many quiz sessions in progress.");
+            }
+        }
+        QuizPool pool = quizPoolCache.getPool(quizId);
+        QuizDeck quizDeck = new QuizDeck(pool.copyMessageIds());
+        QuizSession session = new QuizSession(quizId, pool.copyGroupChatIds(), quizDeck);
+        sessions.put(session.getId(), session);
+        return toDTO(session);
+    }
+
+    public QuizSessionDTO getSession(long quizId, UUID sessionId) {
+        QuizSession session = findSession(quizId, sessionId);
+        synchronized (session) {
+            return toDTO(session);
+        }
+    }
+
+    public void endSession(long quizId, UUID sessionId) {
+        sessions.remove(findSession(quizId, sessionId).getId());
+    }
+
+    // Returns the next message of the session.
+    // Throws a DataNotFoundException if the session does not exist, or if every message of the group chat has been dealt.
+    public MessageDTO nextMessage(long quizId, UUID sessionId) {
+        QuizSession session = findSession(quizId, sessionId);
+        synchronized (session) {
+            while (true) {
+                // Messages deleted since the deck was built are skipped
+                List<MessageDTO> message = loadInOrder(session, List.of(nextMessageId(session)));
+                if (!message.isEmpty()) {
+                    return message.get(0);
+                }
+            }
+        }
+    }
+
+    // Returns up to count of the session's next messages (fewer once the group chat runs out), in the order they are
+    // dealt. The messages are loaded with one query. The questions do not say who sent them; the batch lists every
+    // participant of the group chats the quiz draws from as the possible answers, so prefetched questions do not give
+    // their answers away.
+    // Throws a DataNotFoundException if the session does not exist, or if every message of the group chat has been dealt.
+    @Transactional(readOnly = true)
+    public QuestionBatchDTO nextMessages(long quizId, UUID sessionId, int count) {
+        if (count < 1 || count > maxBatchSize) {
+            throw new BadFormatException("Count must be between 1 and " + maxBatchSize + ".");
+        }
+        QuizSession session = findSession(quizId, sessionId);
+        List<MessageDTO> messages = new ArrayList<>(count);
+        boolean exhausted = false;
+        synchronized (session) {
+            // Messages deleted since the deck was built are skipped, so another round may be needed to fill the batch
+            while (messages.size() < count && !exhausted) {
+                List<Long> messageIds = new ArrayList<>(count - messages.size());
+                while (messageIds.size() < count - messages.size() && hasNextMessageId(session)) {
+                    messageIds.add(nextMessageId(session));
+                }
+                exhausted = !hasNextMessageId(session);
+                messages.addAll(loadInOrder(session, messageIds));
+            }
+        }
+        if (messages.isEmpty()) {
+            throw new DataNotFoundException("No messages left in the group chats of quiz with id " + session.getQuizId());
+        }
+
+        List<ParticipantDTO> participants = new ArrayList<>();
+        for (long groupChatId : quizPoolCache.getPool(session.getQuizId()).copyGroupChatIds()) {
+            participants.addAll(participantService.getGroupChatParticipants(groupChatId));
+        }
+        return new QuestionBatchDTO(
+                messages.stream().map(message -> new QuestionDTO(
+                        message.id(),
+                        message.content(),
+                        message.timestamp()
+                )).toList(),
+                participants,
+                exhausted
+        );
+    }
+
+    // The messages with the given ids that still exist, in the order of the ids.
+    // Messages in the quiz's pool are taken from it; the others are loaded with one query for the messages and one for
+    // their senders' message counts.
+    private List<MessageDTO> loadInOrder(QuizSession session, List<Long> messageIds) {
+        QuizPool pool = quizPoolCache.getPool(session.getQuizId());
+        Map<Long, MessageDTO> byId = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (long messageId : messageIds) {
+            int index = pool.indexOf(messageId);
+            if (index >= 0) {
+                byId.put(messageId, pool.getMessage(index));
+            } else {
+                missingIds.add(messageId);
+            }
+        }
+
+        if (!missingIds.isEmpty()) {
+            List<Message> messages = messageRepository.findWithParticipantByIdIn(missingIds);
+            Map<Long, Long> messageCounts = new HashMap<>();
+            Set<Long> senderIds = messages.stream().map(message -> message.getParticipant().getId()).collect(Collectors.toSet());
+            if (!senderIds.isEmpty()) {
+                for (Object[] row : messageRepository.countByParticipantIds(senderIds)) {
+                    messageCounts.put((Long) row[0], (Long) row[1]);
+                }
+            }
+            for (Message message : messages) {
+                Participant sender = message.getParticipant();
+                byId.put(message.getId(), new MessageDTO(
+                        message.getId(),
+                        new ParticipantDTO(
+                                sender.getId(),
+                                sender.getName(),
+                                messageCounts.getOrDefault(sender.getId(), 0L).intValue()
+                        ),
+                        message.getContent(),
+                        message.getTimestamp()
+                ));
+            }
+        }
+        return messageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private boolean hasNextMessageId(QuizSession session) {
+        if (session.getQuizDeck().hasNext()) {
+            return true;
+        }
+        if (session.getGroupChatDeck() == null) {
+            session.setGroupChatDeck(buildGroupChatDeck(session));
+        }
+        return session.getGroupChatDeck().hasNext();
+    }
+
+    private long nextMessageId(QuizSession session) {
+        if (session.getQuizDeck().hasNext()) {
+            return session.getQuizDeck().next();
+        }
+        if (session.getGroupChatDeck() == null) {
+            session.setGroupChatDeck(buildGroupChatDeck(session));
+        }
+        if (!session.getGroupChatDeck().hasNext()) {
+            throw new DataNotFoundException("No messages left in the group chats of quiz with id " + session.getQuizId());
+        }
+        return session.getGroupChatDeck().next();
+    }
+
+    // The messages of the quiz's group chats, excluding those of the quiz (which have already been dealt)
+    private GroupChatDeck buildGroupChatDeck(QuizSession session) {
+        List<GroupChatIds> groupChats = new ArrayList<>(session.getGroupChatIds().length);
+        for (long groupChatId : session.getGroupChatIds()) {
+            groupChats.add(groupChatIdCache.getIds(groupChatId));
+        }
+        return new GroupChatDeck(groupChats, session.getQuizDeck().toSortedArray());
+    }
+
+    private QuizSession findSession(long quizId, UUID sessionId) {
+        QuizSession session = sessions.get(sessionId);
+        // The quiz id is part of the check, since authorization is granted per quiz
+        if (session == null || session.getQuizId() != quizId) {
+            throw new DataNotFoundException("Quiz session with id " + sessionId + " not found.");
+        }
+        session.touch();
+        return session;
+    }
+
+    @Scheduled(fixedDelayString = "${app.play.session-sweep-interval}")
+    void evictExpiredSessions() {
+        Instant cutoff = Instant.now().minus(timeToLive);
+        sessions.values().removeIf(session -> session.getLastActivity().isBefore(cutoff));
+    }
+
+    private static QuizSessionDTO toDTO(QuizSession session) {
+        return new QuizSessionDTO(
+                session.getId(),
+                session.getQuizId(),
+                session.getQuizDeck().size(),
+                session.getMessagesDealt()
+        );
+    }
+}
@@ -0,0 +1,292 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.GroupChatDTO;
+import com.backend.WhoSaidIt.DTOs.UploadJobDTO;
+import com.backend.WhoSaidIt.DTOs.UploadStatisticsDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.exceptions.DuplicateUploadException;
+import com.backend.WhoSaidIt.services.upload.CountingInputStream;
+import com.backend.WhoSaidIt.services.upload.SizeLimitedInputStream;
+import com.backend.WhoSaidIt.services.upload.UploadJob;
+import com.backend.WhoSaidIt.services.upload.UploadPhase;
+import com.backend.WhoSaidIt.services.upload.ZipExports;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class UploadJobService {
+    // This service runs group chat uploads in the background so the HTTP request can return immediately.
+    // Uploaded files are spooled to a temporary file, then parsed and persisted by a bounded pool of upload workers.
+    // Jobs are kept in memory so that their status can be polled; finished jobs are forgotten after a retention period.
+
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final FileUploadService fileUploadService;
+    private final GroupChatService groupChatService;
+
+    private final Map<UUID, UploadJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    // Streamed uploads run on the request thread instead of the executor. They are bounded separately, to the same
+    // number of concurrent uploads as there are workers.
+    private Semaphore streamPermits;
+
+    @Value("${app.upload.worker-threads}")
+    private int workerThreads;
+
+    // Maximum number of uploads waiting for a worker. Further uploads are rejected until the queue drains.
+    @Value("${app.upload.queue-capacity}")
+    private int queueCapacity;
+
+    // Largest streamed request body, and largest chat file inflated from a streamed archive
+    @Value("${app.upload.stream-max-size}")
+    private DataSize streamMaxSize;
+
+    public UploadJobService(FileUploadService fileUploadService, GroupChatService groupChatService) {
+        this.fileUploadService = fileUploadService;
+        this.groupChatService = groupChatService;
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        streamPermits = new Semaphore(workerThreads);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upload-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        executor.shutdownNow();
+    }
+
+    // Spools the uploaded file to disk and queues it for processing.
+    // Throws a DuplicateUploadException if the user has already uploaded (or is uploading) the same file, and a
+    // RejectedExecutionException if the upload queue is full.
+    public UploadJobDTO submitUpload(long userId, String groupChatName, MultipartFile file, int minCharacters)
+            throws IOException {
+        return submit(file, newUploadJobFactory(userId, groupChatName, file.getOriginalFilename(), minCharacters));
+    }
+
+    // Like submitUpload, but for a file that has already been written to disk (e.g., by an upload session).
+    // Once the job has been queued, it owns the file and deletes it when it is done. If this throws, the file is left
+    // in place so that the caller can try again.
+    public UploadJobDTO submitSpooledUpload(
+            long userId, String groupChatName, String fileName, Path spoolFile, int minCharacters
+    ) throws IOException {
+        MessageDigest digest = newFileDigest();
+        try (InputStream input = new DigestInputStream(Files.newInputStream(spoolFile), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return enqueue(
+                spoolFile, HexFormat.of().formatHex(digest.digest()),
+                newUploadJobFactory(userId, groupChatName, fileName, minCharacters)
+        );
+    }
+
+    // Like submitUpload, but only the messages that are newer than the group chat's latest message are stored, in the
+    // existing group chat. The job belongs to the owner of the group chat.
+    public UploadJobDTO submitAppend(long groupChatId, MultipartFile file, int minCharacters) throws IOException {
+        GroupChatDTO groupChat = groupChatService.getGroupChat(groupChatId);
+        long userId = groupChatService.getGroupChatUser(groupChatId).id();
+        return submit(file, (totalBytes, fileHash) -> new UploadJob(
+                userId, groupChatId, groupChat.groupChatName(), file.getOriginalFilename(), totalBytes, minCharacters
+        ));
+    }
+
+    // Creates the job for a spooled file from its size and SHA-256 hash (as lowercase hex)
+    private interface JobFactory {
+        UploadJob create(long totalBytes, String fileHash);
+    }
+
+    private JobFactory newUploadJobFactory(long userId, String groupChatName, String fileName, int minCharacters) {
+        return (totalBytes, fileHash) -> {
+            // Repeat uploads are detected here, before any parsing
+            if (groupChatService.hasUploadedFile(userId, fileHash) || isUploading(userId, fileHash)) {
+                throw new DuplicateUploadException("This file has already been uploaded.");
+            }
+            UploadJob job = new UploadJob(userId, groupChatName, fileName, totalBytes, minCharacters);
+            job.setFileHash(fileHash);
+            return job;
+        };
+    }
+
+    private UploadJobDTO submit(MultipartFile file, JobFactory jobFactory) throws IOException {
+        // The multipart temp file is deleted once the request completes, so we take our own copy.
+        // The file is hashed while it is being copied.
+        Path spoolFile = Files.createTempFile("whosaidit-upload-", ".txt");
+        try {
+            MessageDigest digest = newFileDigest();
+            try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(input, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return enqueue(spoolFile, HexFormat.of().formatHex(digest.digest()), jobFactory);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+    }
+
+    // Registers the job and queues it. The caller deletes the spool file if this throws.
+    private UploadJobDTO enqueue(Path spoolFile, String fileHash, JobFactory jobFactory) throws IOException {
+        evictFinishedJobs();
+        UploadJob job;
+        // Serializes the duplicate check against jobs registered concurrently
+        synchronized (jobs) {
+            job = jobFactory.create(Files.size(spoolFile), fileHash);
+            jobs.put(job.getId(), job);
+        }
+        try {
+            executor.execute(() -> runUpload(job, spoolFile));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job.toDTO();
+    }
+
+    // Parses the export as it arrives in the request body, on the calling thread, so that parsing overlaps with the
+    // transfer and the file never touches the disk. If zipped is true, the body is a WhatsApp .zip export.
+    // The job is registered like a background job, so its progress can be polled while the request is in flight.
+    // contentLength may be -1 if the size of the body is not known in advance.
+    // Throws a RejectedExecutionException if as many streamed uploads as there are upload workers are already running,
+    // and a BadFormatException if the body (or the chat file inflated from it) is larger than the streamed size limit.
+    public UploadJobDTO runStreamedUpload(
+            long userId, String groupChatName, String fileName, long contentLength, int minCharacters,
+            InputStream body, boolean zipped
+    ) throws IOException {
+        if (contentLength > streamMaxSize.toBytes()) {
+            throw new BadFormatException("The export is larger than the maximum of " + streamMaxSize.toBytes() + " bytes.");
+        }
+        if (!streamPermits.tryAcquire()) {
+            throw new RejectedExecutionException("All upload workers are busy.");
+        }
+        try {
+            return runStreamedUploadWithPermit(userId, groupChatName, fileName, contentLength, minCharacters, body, zipped);
+        } finally {
+            streamPermits.release();
+        }
+    }
+
+    private UploadJobDTO runStreamedUploadWithPermit(
+            long userId, String groupChatName, String fileName, long contentLength, int minCharacters,
+            InputStream body, boolean zipped
+    ) throws IOException {
+        evictFinishedJobs();
+        UploadJob job = new UploadJob(userId, groupChatName, fileName, Math.max(contentLength, 0), minCharacters);
+        jobs.put(job.getId(), job);
+        job.setPhase(UploadPhase.PARSING);
+        try {
+            // The body is limited even if it has a Content-Length, since the header may understate it
+            InputStream input = new CountingInputStream(
+                    new SizeLimitedInputStream(body, streamMaxSize.toBytes()), job.getBytesParsed()
+            );
+            if (zipped) {
+                // A small archive may inflate to a much larger chat file
+                input = new SizeLimitedInputStream(ZipExports.openChatEntry(input), streamMaxSize.toBytes());
+            }
+            job.complete(fileUploadService.persistStreamedGroupChat(job, input));
+            return job.toDTO();
+        } catch (BadFormatException | DataNotFoundException | DuplicateUploadException e) {
+            job.fail(e.getMessage());
+            throw e;
+        } catch (IOException e) {
+            job.fail("Error reading uploaded file.", e);
+            throw e;
+        } catch (RuntimeException e) {
+            job.fail("Server failed to process the upload.", e);
+            throw e;
+        }
+    }
+
+    public UploadJobDTO getUploadJob(long userId, UUID jobId) {
+        UploadJob job = jobs.get(jobId);
+        // Jobs belonging to other users are reported as missing
+        if (job == null || job.getUserId() != userId) {
+            throw new DataNotFoundException("Upload job with id " + jobId + " not found.");
+        }
+        return job.toDTO();
+    }
+
+    private void runUpload(UploadJob job, Path spoolFile) {
+        job.setPhase(UploadPhase.PARSING);
+        try {
+            // The group chat only becomes visible once this transactional call returns and has committed
+            UploadStatisticsDTO statistics = job.isAppend()
+                    ? fileUploadService.appendToGroupChat(job, spoolFile)
+                    : fileUploadService.persistGroupChat(job, spoolFile);
+            job.complete(statistics);
+        } catch (BadFormatException | DataNotFoundException e) {
+            job.fail(e.getMessage());
+        } catch (IOException e) {
+            // The spool file is ours, so failing to read it is a server error
+            job.fail("Error reading uploaded file.", e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            // Rethrown so that the worker thread's uncaught exception handler reports it (with its stack trace); the
+            // executor replaces the worker
+            job.fail("Server failed to process the upload.", e);
+            throw e;
+        } finally {
+            try {
+                Files.deleteIfExists(spoolFile);
+            } catch (IOException ignored) {
+                // The file lives in the temp directory and will be cleaned up by the OS
+            }
+        }
+    }
+
+    private boolean isUploading(long userId, String fileHash) {
+        return jobs.values().stream().anyMatch(
+                job -> job.getUserId() == userId && fileHash.equals(job.getFileHash()) && !job.isFinished()
+        );
+    }
+
+    private static MessageDigest newFileDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,130 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.UploadPreviewDTO;
+import com.backend.WhoSaidIt.services.parsing.ChatExportParser;
+import com.backend.WhoSaidIt.services.parsing.ChatFormat;
+import com.backend.WhoSaidIt.services.parsing.ChatFormatDetector;
+import com.backend.WhoSaidIt.services.parsing.ParsedMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+@Service
+public class UploadPreviewService {
+    // This service describes a chat export before it is uploaded: its format, participants, date range and size.
+    // Only the head of the file (and a slice of its tail, for the end of the date range) is parsed, with the same
+    // format detection and parser as a real upload; totals are extrapolated from the head. Nothing is persisted.
+
+    private final ChatFormatDetector chatFormatDetector;
+
+    @Value("${app.upload.preview-head-size}")
+    private DataSize headSize;
+
+    @Value("${app.upload.preview-tail-size}")
+    private DataSize tailSize;
+
+    public UploadPreviewService(ChatFormatDetector chatFormatDetector) {
+        this.chatFormatDetector = chatFormatDetector;
+    }
+
+    // The file may be the whole export or only its beginning (e.g., a slice taken by the client); totalBytes is the
+    // size of the whole export, or null to use the size of the file.
+    // Throws a BadFormatException if the file is not in a known format.
+    public UploadPreviewDTO previewUpload(MultipartFile file, Long totalBytes, int minCharacters) throws IOException {
+        long fileSize = file.getSize();
+        long exportSize = totalBytes != null ? Math.max(totalBytes, fileSize) : fileSize;
+
+        byte[] head;
+        try (InputStream input = file.getInputStream()) {
+            head = input.readNBytes((int) Math.min(headSize.toBytes(), fileSize));
+        }
+        boolean complete = head.length == exportSize;
+        int headLength = complete ? head.length : lastLineEnd(head, 0);
+
+        ChatExportParser headParser = new ChatExportParser(readerOf(head, 0, headLength), chatFormatDetector);
+        TreeSet<String> participants = new TreeSet<>();
+        LocalDateTime firstTimestamp = null;
+        LocalDateTime lastTimestamp = null;
+        long sampledMessages = 0;
+        long sampledStoredMessages = 0;
+        ParsedMessage message;
+        while ((message = headParser.next()) != null) {
+            if (firstTimestamp == null) {
+                firstTimestamp = message.timestamp();
+            }
+            lastTimestamp = message.timestamp();
+            participants.add(message.sender());
+            sampledMessages++;
+            if (FileUploadService.passesFilter(message.content(), minCharacters)) {
+                sampledStoredMessages++;
+            }
+        }
+        ChatFormat format = headParser.getFormat();
+
+        // The end of the date range (and any participants who only joined later) come from the tail of the file,
+        // if the whole file was sent
+        if (!complete && fileSize == exportSize && fileSize > headLength) {
+            long tailStart = Math.max(headLength, fileSize - tailSize.toBytes());
+            byte[] tail;
+            try (InputStream input = file.getInputStream()) {
+                input.skipNBytes(tailStart);
+                tail = input.readAllBytes();
+            }
+            // Start on a line boundary
+            int tailOffset = tailStart == headLength ? 0 : firstLineStart(tail);
+            ChatExportParser tailParser = new ChatExportParser(readerOf(tail, tailOffset, tail.length), format, false);
+            while ((message = tailParser.next()) != null) {
+                lastTimestamp = message.timestamp();
+                participants.add(message.sender());
+            }
+        }
+
+        double scale = complete || headLength == 0 ? 1 : (double) exportSize / headLength;
+        return new UploadPreviewDTO(
+                format.getName(),
+                new ArrayList<>(participants),
+                firstTimestamp,
+                lastTimestamp,
+                sampledMessages,
+                Math.round(sampledMessages * scale),
+                Math.round(sampledStoredMessages * scale),
+                complete
+        );
+    }
+
+    private static BufferedReader readerOf(byte[] bytes, int start, int end) {
+        return new BufferedReader(new StringReader(new String(bytes, start, end - start, StandardCharsets.UTF_8)));
+    }
+
+    // Returns the index following the last line break, so that the last (possibly cut off) line is dropped.
+    // Returns the length of the bytes if there is no line break at all.
+    private static int lastLineEnd(byte[] bytes, int start) {
+        for (int i = bytes.length - 1; i >= start; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return bytes.length;
+    }
+
+    // Returns the index following the first line break, skipping a line that may have been cut off
+    private static int firstLineStart(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return bytes.length;
+    }
+}
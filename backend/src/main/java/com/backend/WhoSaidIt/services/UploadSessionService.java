@@ -0,0 +1,204 @@
+package com.backend.WhoSaidIt.services;
+
+import com.backend.WhoSaidIt.DTOs.UploadJobDTO;
+import com.backend.WhoSaidIt.DTOs.UploadSessionDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.backend.WhoSaidIt.exceptions.DataNotFoundException;
+import com.backend.WhoSaidIt.exceptions.DuplicateUploadException;
+import com.backend.WhoSaidIt.services.upload.UploadSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+public class UploadSessionService {
+    // This service implements resumable uploads for large exports.
+    // The client opens a session for a file of a known size, sends it in numbered chunks (in any order, retrying any
+    // that fail), and commits the session once every chunk has arrived. Chunks are streamed straight into a spool file
+    // at their offsets, so neither a chunk nor the whole file is ever held in memory. Committing hands the spool file to
+    // the UploadJobService, which parses it like any other upload.
+    // Sessions that see no activity for a while are discarded along with their spool files by a periodic sweep. Since
+    // each session may spool a file as large as the maximum session size, a user may only have a few open at once.
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final UploadJobService uploadJobService;
+
+    private final Map<UUID, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    @Value("${app.upload.session-chunk-size}")
+    private DataSize chunkSize;
+
+    @Value("${app.upload.session-max-size}")
+    private DataSize maxSize;
+
+    @Value("${app.upload.session-ttl}")
+    private Duration timeToLive;
+
+    // Largest number of sessions a user may have open (not yet committed or aborted) at once
+    @Value("${app.upload.max-sessions-per-user}")
+    private int maxSessionsPerUser;
+
+    public UploadSessionService(UploadJobService uploadJobService) {
+        this.uploadJobService = uploadJobService;
+    }
+
+    // Throws a RejectedExecutionException if the user already has the maximum number of sessions open
+    public UploadSessionDTO openSession(
+            long userId, String groupChatName, String fileName, long totalBytes, int minCharacters
+    ) throws IOException {
+        if (totalBytes <= 0 || totalBytes > maxSize.toBytes()) {
+            throw new BadFormatException("File size must be between 1 and " + maxSize.toBytes() + " bytes.");
+        }
+
+        // Counting and adding under one lock, so that concurrent requests cannot together exceed the limit
+        synchronized (sessions) {
+            if (countOpenSessions(userId) >= maxSessionsPerUser) {
+                throw new RejectedExecutionException(
+                        "A user may have at most " + maxSessionsPerUser + " upload sessions open at once."
+                );
+            }
+            Path spoolFile = Files.createTempFile("whosaidit-session-", ".txt");
+            UploadSession session = new UploadSession(
+                    userId, groupChatName, fileName, minCharacters, totalBytes, (int) chunkSize.toBytes(), spoolFile
+            );
+            sessions.put(session.getId(), session);
+            return session.toDTO();
+        }
+    }
+
+    public UploadSessionDTO getSession(long userId, UUID sessionId) {
+        return findSession(userId, sessionId).toDTO();
+    }
+
+    // Writes the chunk to the spool file. The body must contain exactly the chunk's bytes.
+    // Sending a chunk again overwrites it, so a chunk whose upload failed can simply be retried.
+    public UploadSessionDTO writeChunk(long userId, UUID sessionId, int chunkIndex, InputStream body)
+            throws IOException {
+        UploadSession session = findSession(userId, sessionId);
+        if (chunkIndex < 0 || chunkIndex >= session.getTotalChunks()) {
+            throw new BadFormatException("Chunk index must be between 0 and " + (session.getTotalChunks() - 1) + ".");
+        }
+        long offset = session.getChunkOffset(chunkIndex);
+        long length = session.getChunkLength(chunkIndex);
+
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(session.getSpoolFile(), StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                if (written + read > length) {
+                    throw new BadFormatException("Chunk " + chunkIndex + " must be " + length + " bytes long.");
+                }
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                while (data.hasRemaining()) {
+                    channel.write(data, offset + written + data.position());
+                }
+                written += read;
+                session.touch();
+            }
+        }
+        if (written != length) {
+            throw new BadFormatException("Chunk " + chunkIndex + " must be " + length + " bytes long.");
+        }
+
+        session.markReceived(chunkIndex);
+        return session.toDTO();
+    }
+
+    // Queues the completed file for processing and closes the session.
+    // If the upload queue is full, the session stays open so that the commit can be retried.
+    public UploadJobDTO commitSession(long userId, UUID sessionId) throws IOException {
+        UploadSession session = findSession(userId, sessionId);
+        synchronized (session) {
+            if (session.isCommitted()) {
+                throw new DataNotFoundException("Upload session with id " + sessionId + " not found.");
+            }
+            if (!session.isComplete()) {
+                throw new BadFormatException("Upload session is missing chunks " + session.toDTO().missingChunks() + ".");
+            }
+            session.setCommitted(true);
+        }
+
+        try {
+            UploadJobDTO job = uploadJobService.submitSpooledUpload(
+                    userId, session.getGroupChatName(), session.getFileName(),
+                    session.getSpoolFile(), session.getMinCharacters()
+            );
+            // The job now owns the spool file
+            sessions.remove(sessionId);
+            return job;
+        } catch (DuplicateUploadException e) {
+            discardSession(session);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            session.setCommitted(false);
+            throw e;
+        }
+    }
+
+    public void abortSession(long userId, UUID sessionId) {
+        UploadSession session = findSession(userId, sessionId);
+        synchronized (session) {
+            if (session.isCommitted()) {
+                throw new DataNotFoundException("Upload session with id " + sessionId + " not found.");
+            }
+            session.setCommitted(true); // Keeps a concurrent commit from picking up the deleted file
+        }
+        discardSession(session);
+    }
+
+    // Sessions belonging to other users are reported as missing
+    private UploadSession findSession(long userId, UUID sessionId) {
+        UploadSession session = sessions.get(sessionId);
+        if (session == null || session.getUserId() != userId) {
+            throw new DataNotFoundException("Upload session with id " + sessionId + " not found.");
+        }
+        session.touch();
+        return session;
+    }
+
+    private void discardSession(UploadSession session) {
+        sessions.remove(session.getId());
+        try {
+            Files.deleteIfExists(session.getSpoolFile());
+        } catch (IOException ignored) {
+            // The file lives in the temp directory and will be cleaned up by the OS
+        }
+    }
+
+    private int countOpenSessions(long userId) {
+        int count = 0;
+        for (UploadSession session : sessions.values()) {
+            if (session.getUserId() == userId && !session.isCommitted()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.session-sweep-interval}")
+    void evictExpiredSessions() {
+        Instant cutoff = Instant.now().minus(timeToLive);
+        for (UploadSession session : sessions.values()) {
+            if (session.getLastActivity().isBefore(cutoff) && !session.isCommitted()) {
+                discardSession(session);
+            }
+        }
+    }
+}
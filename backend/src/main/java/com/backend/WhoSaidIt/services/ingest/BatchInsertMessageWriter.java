@@ -0,0 +1,41 @@
+package com.backend.WhoSaidIt.services.ingest;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+public class BatchInsertMessageWriter extends MessageBulkWriter {
+    // Writes each batch as a single JDBC batch of INSERT statements.
+    // With reWriteBatchedInserts enabled on the driver, PostgreSQL receives these as multi-row INSERTs.
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages (message_id, participant_id, group_chat_id, content, timestamp) VALUES (?, ?, ?, ?, ?)";
+
+    public BatchInsertMessageWriter(JdbcTemplate jdbcTemplate, long groupChatId, int batchSize, Runnable beforeBatch) {
+        super(jdbcTemplate, groupChatId, batchSize, beforeBatch);
+    }
+
+    @Override
+    public IngestMode getMode() { return IngestMode.BATCH_INSERT; }
+
+    @Override
+    protected void writeBatch(List<Long> ids, int count) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, ids.get(i));
+                ps.setLong(2, participantIds[i]);
+                ps.setLong(3, groupChatId);
+                ps.setString(4, contents[i]);
+                ps.setTimestamp(5, Timestamp.valueOf(timestamps[i]));
+            }
+
+            @Override
+            public int getBatchSize() { return count; }
+        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.backend.WhoSaidIt.services.ingest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.SQLException;
+import java.util.List;
+
+public class CopyMessageWriter extends MessageBulkWriter {
+    // Writes each batch with PostgreSQL's COPY protocol, which avoids per-row statement overhead entirely.
+    // Each batch is its own COPY so that other statements (id allocation, participant inserts) can run in between.
+    // The connection is obtained through the JdbcTemplate so the COPY takes part in the surrounding transaction.
+
+    private static final String COPY_SQL =
+            "COPY messages (message_id, participant_id, group_chat_id, content, timestamp) FROM STDIN WITH (FORMAT csv)";
+
+    private final StringBuilder csv = new StringBuilder();
+
+    public CopyMessageWriter(JdbcTemplate jdbcTemplate, long groupChatId, int batchSize, Runnable beforeBatch) {
+        super(jdbcTemplate, groupChatId, batchSize, beforeBatch);
+    }
+
+    @Override
+    public IngestMode getMode() { return IngestMode.COPY; }
+
+    @Override
+    protected void writeBatch(List<Long> ids, int count) {
+        csv.setLength(0);
+        for (int i = 0; i < count; i++) {
+            csv.append(ids.get(i)).append(',')
+                    .append(participantIds[i]).append(',')
+                    .append(groupChatId).append(',');
+            appendQuoted(contents[i]);
+            csv.append(',').append(timestamps[i]).append('\n');
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                return copyManager.copyIn(COPY_SQL, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Failed to stream rows to COPY", e);
+            }
+        });
+    }
+
+    // CSV quoting: the value is wrapped in double quotes and any embedded double quotes are doubled
+    private void appendQuoted(String value) {
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append('"');
+    }
+}
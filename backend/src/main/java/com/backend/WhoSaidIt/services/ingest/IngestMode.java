@@ -0,0 +1,6 @@
+package com.backend.WhoSaidIt.services.ingest;
+
+public enum IngestMode {
+    BATCH_INSERT, // Multi-row JDBC batches of INSERT statements
+    COPY          // PostgreSQL COPY ... FROM STDIN, used for large files
+}
@@ -0,0 +1,91 @@
+package com.backend.WhoSaidIt.services.ingest;
+
+import com.backend.WhoSaidIt.DTOs.UploadStatisticsDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public abstract class MessageBulkWriter {
+    // This class buffers messages belonging to one group chat and writes them to the messages table in batches.
+    // Rows are written with plain JDBC, so they never enter the JPA persistence context.
+    // Message ids are drawn from message_sequence for a whole batch in a single round trip.
+
+    private static final String ALLOCATE_IDS_SQL = "SELECT nextval('message_sequence') FROM generate_series(1, ?)";
+
+    protected final JdbcTemplate jdbcTemplate;
+    protected final long groupChatId;
+
+    // Runs before every batch. Used to flush pending JPA inserts (e.g., new participants) that the batch references.
+    private final Runnable beforeBatch;
+
+    // The current batch, stored column-wise
+    protected final long[] participantIds;
+    protected final String[] contents;
+    protected final LocalDateTime[] timestamps;
+    private int buffered = 0;
+
+    // Statistics
+    private final long startNanos = System.nanoTime();
+    private long databaseNanos = 0;
+    private long messagesWritten = 0;
+    private int batches = 0;
+
+    protected MessageBulkWriter(JdbcTemplate jdbcTemplate, long groupChatId, int batchSize, Runnable beforeBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.groupChatId = groupChatId;
+        this.beforeBatch = beforeBatch;
+        this.participantIds = new long[batchSize];
+        this.contents = new String[batchSize];
+        this.timestamps = new LocalDateTime[batchSize];
+    }
+
+    public void write(long participantId, String content, LocalDateTime timestamp) {
+        participantIds[buffered] = participantId;
+        contents[buffered] = content;
+        timestamps[buffered] = timestamp;
+        if (++buffered == participantIds.length) {
+            flush();
+        }
+    }
+
+    // Writes any buffered messages. Must be called once all messages have been written.
+    public void flush() {
+        if (buffered == 0) { return; }
+
+        long batchStart = System.nanoTime();
+        beforeBatch.run();
+        List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class, buffered);
+        writeBatch(ids, buffered);
+        databaseNanos += System.nanoTime() - batchStart;
+
+        messagesWritten += buffered;
+        batches++;
+        // Release references to the written contents
+        for (int i = 0; i < buffered; i++) {
+            contents[i] = null;
+            timestamps[i] = null;
+        }
+        buffered = 0;
+    }
+
+    public long getMessagesWritten() { return messagesWritten + buffered; }
+
+    public UploadStatisticsDTO getStatistics() {
+        long totalNanos = System.nanoTime() - startNanos;
+        double seconds = totalNanos / 1_000_000_000.0;
+        return new UploadStatisticsDTO(
+                getMode().name(),
+                messagesWritten,
+                batches,
+                databaseNanos / 1_000_000,
+                totalNanos / 1_000_000,
+                seconds > 0 ? messagesWritten / seconds : 0
+        );
+    }
+
+    public abstract IngestMode getMode();
+
+    // Writes the first count buffered rows, using the given pre-allocated ids
+    protected abstract void writeBatch(List<Long> ids, int count);
+}
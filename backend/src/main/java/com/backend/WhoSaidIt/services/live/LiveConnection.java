@@ -0,0 +1,100 @@
+package com.backend.WhoSaidIt.services.live;
+
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+public class LiveConnection {
+    // A WebSocket connected to a live room, with a bounded outbox of frames waiting to be written.
+    // Frames are written asynchronously, one at a time (a WebSocket allows only one write in progress), so sending never
+    // blocks the room. A client that falls more than maxQueuedFrames behind is disconnected rather than buffered
+    // without limit; it may reconnect and resume with its player key.
+
+    private final Session session;
+    private final int maxQueuedFrames;
+    private final Executor closeExecutor; // Closing writes a close frame, which may block on a slow client
+
+    // Guarded by this
+    private final Queue<String> outbox = new ArrayDeque<>();
+    private boolean writing = false;
+    private boolean closed = false;
+
+    public LiveConnection(Session session, int maxQueuedFrames, Executor closeExecutor) {
+        this.session = session;
+        this.maxQueuedFrames = maxQueuedFrames;
+        this.closeExecutor = closeExecutor;
+    }
+
+    public String getId() { return session.getId(); }
+
+    // Queues the frame for writing. The same frame (already serialized) may be sent to any number of connections.
+    public void send(String frame) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (writing) {
+                if (outbox.size() >= maxQueuedFrames) {
+                    closeLater(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Too slow to keep up."));
+                    return;
+                }
+                outbox.add(frame);
+                return;
+            }
+            writing = true;
+        }
+        write(frame);
+    }
+
+    public void close(CloseReason reason) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closeLater(reason);
+        }
+    }
+
+    // Precondition: the caller holds the lock and the connection is not closed
+    private void closeLater(CloseReason reason) {
+        closed = true;
+        outbox.clear();
+        closeExecutor.execute(() -> {
+            try {
+                session.close(reason);
+            } catch (IOException | IllegalStateException ignored) {
+                // The socket is already closed
+            }
+        });
+    }
+
+    private void write(String frame) {
+        try {
+            session.getAsyncRemote().sendText(frame, this::onWritten);
+        } catch (IllegalStateException e) {
+            close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Write failed."));
+        }
+    }
+
+    // Starts writing the next queued frame, if any. May be called on the thread that started the write.
+    private void onWritten(SendResult result) {
+        if (!result.isOK()) {
+            close(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Write failed."));
+            return;
+        }
+        String next;
+        synchronized (this) {
+            next = closed ? null : outbox.poll();
+            if (next == null) {
+                writing = false;
+                return;
+            }
+        }
+        write(next);
+    }
+}
@@ -0,0 +1,374 @@
+package com.backend.WhoSaidIt.services.live;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.DTOs.game.GameQuestionDTO;
+import com.backend.WhoSaidIt.DTOs.live.LiveFrameDTO;
+import com.backend.WhoSaidIt.DTOs.live.LiveRoomDTO;
+import com.backend.WhoSaidIt.DTOs.live.LiveScoreDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.CloseReason;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class LiveRoom {
+    // A live game of a quiz: the host deals questions, which are broadcast to every player in the room at once, and the
+    // players' answers stream back to the host as they arrive.
+    //
+    // All changes to the room's state run on the room's own loop: tasks are queued and run one at a time on the shared
+    // executor, so the state needs no locks and a room never occupies more than one thread. Each frame is serialized
+    // once and the same string is queued on every connection (see LiveConnection), so the cost of a broadcast is one
+    // serialization plus a non-blocking enqueue per player.
+    //
+    // A correct answer scores one point. Players are identified by a player key, which lets a disconnected player
+    // rejoin with their score.
+
+    public static final int SCOREBOARD_SIZE = 10;
+    private static final int MAX_TASKS_PER_TURN = 256; // Lets other rooms run between batches of a busy room's tasks
+
+    private static final Comparator<Player> BY_SCORE = Comparator.comparingInt((Player player) -> player.score).reversed();
+
+    private final UUID id = UUID.randomUUID();
+    private final long quizId;
+    private final UUID quizSessionId;
+    private final String hostKey;
+    private final List<ParticipantDTO> participants;
+    private final int maxPlayers;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile Instant lastActivity = Instant.now();
+
+    // Confined to the room's loop
+    private final Map<UUID, Player> players = new LinkedHashMap<>();
+    private final Map<String, Player> playersByConnection = new HashMap<>();
+    private final Map<String, LiveConnection> hosts = new HashMap<>();
+    private MessageDTO currentMessage;
+    private int questionNumber = 0;
+    private boolean questionOpen = false;
+    private final Map<UUID, Long> answers = new HashMap<>(); // Player key to answered participant id
+    private boolean closed = false;
+
+    private static class Player {
+        private final UUID key = UUID.randomUUID();
+        private final String name;
+        private LiveConnection connection; // Null while disconnected
+        private int score = 0;
+
+        private Player(String name) {
+            this.name = name;
+        }
+    }
+
+    public LiveRoom(
+            long quizId, UUID quizSessionId, String hostKey, List<ParticipantDTO> participants, int maxPlayers,
+            ObjectMapper objectMapper, Executor executor
+    ) {
+        this.quizId = quizId;
+        this.quizSessionId = quizSessionId;
+        this.hostKey = hostKey;
+        this.participants = List.copyOf(participants);
+        this.maxPlayers = maxPlayers;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
+    public UUID getId() { return id; }
+
+    public long getQuizId() { return quizId; }
+
+    public UUID getQuizSessionId() { return quizSessionId; }
+
+    public String getHostKey() { return hostKey; }
+
+    public Instant getLastActivity() { return lastActivity; }
+
+    // Adds a player to the room and sends them the room's current state. If playerKey belongs to a player of this room,
+    // the connection resumes that player (and their score); otherwise a new player is created.
+    public void join(LiveConnection connection, String name, UUID playerKey) {
+        execute(() -> {
+            if (closed) {
+                connection.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "The room has closed."));
+                return;
+            }
+            Player player = playerKey == null ? null : players.get(playerKey);
+            if (player == null) {
+                if (players.size() >= maxPlayers) {
+                    connection.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "The room is full."));
+                    return;
+                }
+                player = new Player(name);
+                players.put(player.key, player);
+            } else if (player.connection != null) {
+                // The player reconnected before their previous connection was closed
+                playersByConnection.remove(player.connection.getId());
+                player.connection.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "Reconnected."));
+            }
+            player.connection = connection;
+            playersByConnection.put(connection.getId(), player);
+
+            connection.send(writeFrame(new LiveFrameDTO(
+                    "WELCOME", player.key, participants, questionNumber,
+                    questionOpen ? toQuestion(currentMessage) : null, null, null, null, null, null
+            )));
+            sendToHosts(progressFrame());
+        });
+    }
+
+    // Adds a host connection, which receives the answers of players as they arrive
+    public void joinAsHost(LiveConnection connection) {
+        execute(() -> {
+            if (closed) {
+                connection.close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "The room has closed."));
+                return;
+            }
+            hosts.put(connection.getId(), connection);
+            connection.send(writeFrame(new LiveFrameDTO(
+                    "WELCOME", null, participants, questionNumber,
+                    questionOpen ? toQuestion(currentMessage) : null, connectedPlayerCount(), answers.size(),
+                    null, null, null
+            )));
+        });
+    }
+
+    public void leave(LiveConnection connection) {
+        execute(() -> {
+            if (hosts.remove(connection.getId()) != null) {
+                return;
+            }
+            Player player = playersByConnection.remove(connection.getId());
+            if (player != null && player.connection == connection) {
+                player.connection = null;
+                sendToHosts(progressFrame());
+            }
+        });
+    }
+
+    // Records a player's answer to the open question. Only the first answer of each player counts.
+    public void answer(LiveConnection connection, long messageId, long participantId) {
+        execute(() -> {
+            Player player = playersByConnection.get(connection.getId());
+            if (player == null) {
+                return;
+            }
+            if (!questionOpen || currentMessage.id() != messageId) {
+                connection.send(errorFrame("Message with id " + messageId + " is not the open question."));
+                return;
+            }
+            if (answers.putIfAbsent(player.key, participantId) != null) {
+                connection.send(errorFrame("This question has already been answered."));
+                return;
+            }
+            connection.send(writeFrame(new LiveFrameDTO(
+                    "ANSWER_RECEIVED", null, null, questionNumber, null, null, null, null, null, null
+            )));
+            sendToHosts(progressFrame());
+        });
+    }
+
+    // Sends an error to a connection that sent something other than an answer
+    public void reject(LiveConnection connection, String error) {
+        execute(() -> connection.send(errorFrame(error)));
+    }
+
+    // Closes the open question (if any) and broadcasts the given message as the next question.
+    // The future fails with a BadFormatException if the room has closed.
+    public CompletableFuture<LiveRoomDTO> startQuestion(MessageDTO message) {
+        return call(() -> {
+            requireOpenRoom();
+            if (questionOpen) {
+                revealAnswer();
+            }
+            currentMessage = message;
+            questionNumber++;
+            questionOpen = true;
+            answers.clear();
+            broadcast(writeFrame(new LiveFrameDTO(
+                    "QUESTION", null, null, questionNumber, toQuestion(message), null, null, null, null, null
+            )));
+            return toDTO();
+        });
+    }
+
+    // Closes the open question, scores the answers, and broadcasts the correct answer with the scoreboard.
+    // The future fails with a BadFormatException if the room has closed or no question is open.
+    public CompletableFuture<LiveRoomDTO> reveal() {
+        return call(() -> {
+            requireOpenRoom();
+            if (!questionOpen) {
+                throw new BadFormatException("No question is open.");
+            }
+            revealAnswer();
+            return toDTO();
+        });
+    }
+
+    // Ends the game: broadcasts the final scoreboard and disconnects everyone
+    public CompletableFuture<LiveRoomDTO> close() {
+        return call(() -> {
+            if (closed) {
+                return toDTO();
+            }
+            if (questionOpen) {
+                revealAnswer();
+            }
+            closed = true;
+            broadcast(writeFrame(new LiveFrameDTO(
+                    "END", null, null, questionNumber, null, null, null, null, scoreboard(), null
+            )));
+            CloseReason reason = new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "The room has closed.");
+            for (LiveConnection connection : allConnections()) {
+                connection.close(reason);
+            }
+            playersByConnection.clear();
+            hosts.clear();
+            return toDTO();
+        });
+    }
+
+    public CompletableFuture<LiveRoomDTO> getState() {
+        return call(this::toDTO);
+    }
+
+    private void revealAnswer() {
+        questionOpen = false;
+        long correctParticipantId = currentMessage.sender().id();
+        answers.forEach((playerKey, participantId) -> {
+            if (participantId == correctParticipantId) {
+                players.get(playerKey).score++;
+            }
+        });
+        broadcast(writeFrame(new LiveFrameDTO(
+                "REVEAL", null, null, questionNumber, null, null, answers.size(), correctParticipantId, scoreboard(),
+                null
+        )));
+    }
+
+    private void requireOpenRoom() {
+        if (closed) {
+            throw new BadFormatException("The room has closed.");
+        }
+    }
+
+    private List<LiveScoreDTO> scoreboard() {
+        return players.values().stream()
+                .sorted(BY_SCORE)
+                .limit(SCOREBOARD_SIZE)
+                .map(player -> new LiveScoreDTO(player.name, player.score))
+                .toList();
+    }
+
+    private String progressFrame() {
+        return writeFrame(new LiveFrameDTO(
+                "ANSWERS", null, null, questionNumber, null, connectedPlayerCount(), answers.size(), null, null, null
+        ));
+    }
+
+    private String errorFrame(String error) {
+        return writeFrame(new LiveFrameDTO("ERROR", null, null, null, null, null, null, null, null, error));
+    }
+
+    private static GameQuestionDTO toQuestion(MessageDTO message) {
+        return new GameQuestionDTO(message.id(), message.content(), message.timestamp());
+    }
+
+    private int connectedPlayerCount() {
+        return playersByConnection.size();
+    }
+
+    private List<LiveConnection> allConnections() {
+        List<LiveConnection> connections = new ArrayList<>(playersByConnection.size() + hosts.size());
+        for (Player player : playersByConnection.values()) {
+            connections.add(player.connection);
+        }
+        connections.addAll(hosts.values());
+        return connections;
+    }
+
+    private void broadcast(String frame) {
+        for (LiveConnection connection : allConnections()) {
+            connection.send(frame);
+        }
+    }
+
+    private void sendToHosts(String frame) {
+        for (LiveConnection connection : hosts.values()) {
+            connection.send(frame);
+        }
+    }
+
+    private String writeFrame(LiveFrameDTO frame) {
+        try {
+            return objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize live room frame.", e);
+        }
+    }
+
+    private LiveRoomDTO toDTO() {
+        return new LiveRoomDTO(
+                id, quizId, hostKey, connectedPlayerCount(), questionNumber, questionOpen, answers.size(), closed
+        );
+    }
+
+    // Runs the task on the room's loop and completes the future with its result
+    private <T> CompletableFuture<T> call(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                future.complete(task.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private void execute(Runnable task) {
+        lastActivity = Instant.now();
+        tasks.add(task);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::runTasks);
+        }
+    }
+
+    private void runTasks() {
+        try {
+            Runnable task;
+            int count = 0;
+            while (count++ < MAX_TASKS_PER_TURN && (task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException ignored) {
+                    // A failed task must not stop the loop; the tasks that report errors do so through their future
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.backend.WhoSaidIt.services.paging;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// A position in the (timestamp, messageId) order of messages, used for keyset pagination.
+// Clients receive it as an opaque base64url string and pass it back to fetch the next or previous page.
+public record MessageCursor(
+        LocalDateTime timestamp,
+        long messageId
+) {
+
+    private static final char SEPARATOR = '|';
+
+    public static MessageCursor of(MessageDTO message) {
+        return new MessageCursor(message.timestamp(), message.id());
+    }
+
+    // Returns null if the cursor is null. Throws a BadFormatException if it is not a cursor returned by encode().
+    public static MessageCursor decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf(SEPARATOR);
+            if (separator == -1) {
+                throw new BadFormatException("Invalid message cursor.");
+            }
+            return new MessageCursor(
+                    LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) { // Includes NumberFormatException
+            throw new BadFormatException("Invalid message cursor.");
+        }
+    }
+
+    public String encode() {
+        String raw = timestamp.toString() + SEPARATOR + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Negative, zero or positive as the message comes before, at or after the cursor
+    public int comparePosition(LocalDateTime otherTimestamp, long otherMessageId) {
+        int byTimestamp = otherTimestamp.compareTo(timestamp);
+        return byTimestamp != 0 ? byTimestamp : Long.compare(otherMessageId, messageId);
+    }
+}
@@ -0,0 +1,251 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+public class ChatExportParser {
+    // This class reads a chat export one line at a time and emits one ParsedMessage per message.
+    // Only the message currently being assembled is held in memory, so the cost of parsing does not grow with the
+    // size of the file.
+    //
+    // Header lines are recognized by a single ChatFormat. It is either given up front or detected from the first lines
+    // of the export (see ChatFormatDetector), so the other formats are never tried on the remaining lines.
+    // After the format's prefix, a header line continues with "Sender Name: Message Content".
+    //
+    // A line that does not start with a recognized prefix is a continuation of the previous message (WhatsApp writes
+    // newlines inside a message verbatim). A line with a recognized prefix but no sender is a system notice
+    // (e.g., "Bob added Alice"); it ends the current message and is otherwise ignored.
+
+    private static final char LEFT_TO_RIGHT_MARK = '\u200E';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    // Results of the most recent call to scanHeader()
+    private static final int NOT_A_HEADER = 0;
+    private static final int MESSAGE_HEADER = 1;
+    private static final int NOTICE_HEADER = 2;
+    private LocalDateTime scannedTimestamp;
+    private String scannedSender;
+    private int scannedContentStart;
+
+    // The most recently decoded timestamp
+    private long lastEpochMinute = ChatFormat.INVALID_TIMESTAMP;
+    private LocalDateTime lastTimestamp;
+
+    private ChatFormat format;
+    private final ChatFormatDetector detector;
+    // Lines read while detecting the format, which have yet to be parsed
+    private final Deque<String> sampledLines = new ArrayDeque<>();
+
+    private final BufferedReader reader;
+    private boolean firstLine = true;
+    private boolean exhausted = false;
+    private boolean seenHeader = false;
+    private boolean endedOpen = false;
+
+    // When parsing a chunk of a larger file, the lines before the first header belong to a message that started in
+    // the previous chunk. They are collected here instead of being dropped.
+    private final StringBuilder leadingLines;
+    private int leadingLineCount = 0;
+
+    // The message currently being assembled. It is emitted once the next header line (or the end of input) is reached.
+    private boolean hasPending = false;
+    private LocalDateTime pendingTimestamp;
+    private String pendingSender;
+    private final StringBuilder pendingContent = new StringBuilder();
+
+    // Detects the format from the first lines of the export
+    public ChatExportParser(BufferedReader reader, ChatFormatDetector detector) {
+        this.reader = reader;
+        this.detector = detector;
+        this.leadingLines = null;
+    }
+
+    public ChatExportParser(BufferedReader reader, ChatFormat format, boolean captureLeadingLines) {
+        this.reader = reader;
+        this.format = format;
+        this.detector = null;
+        this.leadingLines = captureLeadingLines ? new StringBuilder() : null;
+    }
+
+    // Returns the next complete message in the export, cleaned by the format's MessageCleaner, or null once the end of
+    // the input has been reached. Messages dropped by the cleaner are skipped.
+    // When capturing leading lines (i.e., parsing a chunk), a message that ends open is returned uncleaned, since it may
+    // continue in the next chunk; see endedOpen().
+    // Throws a BadFormatException if the format has to be detected and none of the first lines match a known format.
+    public ParsedMessage next() throws IOException {
+        if (format == null) {
+            detectFormat();
+        }
+        ParsedMessage message;
+        while ((message = nextUncleaned()) != null) {
+            if (endedOpen && leadingLines != null) {
+                return message;
+            }
+            ParsedMessage cleaned = clean(format, message);
+            if (cleaned != null) {
+                return cleaned;
+            }
+        }
+        return null;
+    }
+
+    // Cleans the message with the format's MessageCleaner. Returns null if the message should be dropped.
+    static ParsedMessage clean(ChatFormat format, ParsedMessage message) {
+        String content = format.getCleaner().clean(message.content());
+        if (content == null) {
+            return null;
+        }
+        if (content == message.content()) {
+            return message;
+        }
+        return new ParsedMessage(message.timestamp(), message.sender(), content);
+    }
+
+    private ParsedMessage nextUncleaned() throws IOException {
+        while (!exhausted) {
+            String line = readLine();
+            if (line == null) {
+                exhausted = true;
+                break;
+            }
+
+            int headerType = scanHeader(line);
+            if (headerType == NOT_A_HEADER) {
+                // Lines before the first message header (or following a notice) have nothing to attach to
+                if (hasPending) {
+                    pendingContent.append('\n').append(line);
+                } else if (!seenHeader && leadingLines != null) {
+                    if (leadingLineCount++ > 0) {
+                        leadingLines.append('\n');
+                    }
+                    leadingLines.append(line);
+                }
+                continue;
+            }
+            seenHeader = true;
+
+            ParsedMessage completed = hasPending ? takePending() : null;
+            if (headerType == MESSAGE_HEADER) {
+                hasPending = true;
+                pendingTimestamp = scannedTimestamp;
+                pendingSender = scannedSender;
+                pendingContent.append(line, scannedContentStart, line.length());
+            }
+            if (completed != null) {
+                return completed;
+            }
+        }
+        if (hasPending) {
+            // This message was ended by the end of the input rather than by another header
+            endedOpen = true;
+            return takePending();
+        }
+        return null;
+    }
+
+    // Lines that preceded the first header, or null if none were captured (see the constructor)
+    public String getLeadingLines() {
+        return leadingLineCount == 0 ? null : leadingLines.toString();
+    }
+
+    // Whether any header (message or notice) was found in the input
+    public boolean hasSeenHeader() { return seenHeader; }
+
+    // Whether the last message returned was still open when the input ended. Only meaningful once next() returned null.
+    public boolean endedOpen() { return endedOpen; }
+
+    // The format header lines are matched against. Null until the first call to next() if it is being detected.
+    public ChatFormat getFormat() { return format; }
+
+    // Removes an invisible mark (byte order or direction) from the start of the line, if present
+    static String stripLeadingMark(String line) {
+        if (!line.isEmpty() && (line.charAt(0) == LEFT_TO_RIGHT_MARK || line.charAt(0) == BYTE_ORDER_MARK)) {
+            return line.substring(1);
+        }
+        return line;
+    }
+
+    private void detectFormat() throws IOException {
+        String line;
+        while (sampledLines.size() < detector.getSampleLines() && (line = readRawLine()) != null) {
+            sampledLines.addLast(line);
+        }
+        format = detector.detect(new ArrayList<>(sampledLines));
+    }
+
+    private String readLine() throws IOException {
+        return sampledLines.isEmpty() ? readRawLine() : sampledLines.pollFirst();
+    }
+
+    // Reads the next line from the input, removing the byte order mark from the first line
+    private String readRawLine() throws IOException {
+        String line = reader.readLine();
+        if (firstLine && line != null) {
+            firstLine = false;
+            if (!line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+                line = line.substring(1);
+            }
+        }
+        return line;
+    }
+
+    // Consecutive messages are often sent within the same minute, so the last timestamp is reused when it matches
+    private LocalDateTime toLocalDateTime(long epochMinute) {
+        if (epochMinute != lastEpochMinute) {
+            lastEpochMinute = epochMinute;
+            lastTimestamp = LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+        }
+        return lastTimestamp;
+    }
+
+    private ParsedMessage takePending() {
+        ParsedMessage message = new ParsedMessage(pendingTimestamp, pendingSender, pendingContent.toString());
+        hasPending = false;
+        pendingTimestamp = null;
+        pendingSender = null;
+        pendingContent.setLength(0);
+        return message;
+    }
+
+    // Determines whether the line is a header in the current format.
+    // On a MESSAGE_HEADER result, the scanned* fields describe the line.
+    private int scanHeader(String line) {
+        if (line.isEmpty()) {
+            return NOT_A_HEADER;
+        }
+
+        // iOS exports prefix attachments and other generated lines with an invisible direction mark
+        if (line.charAt(0) == LEFT_TO_RIGHT_MARK) {
+            return format.scanPrefix(line.substring(1)) == -1 ? NOT_A_HEADER : NOTICE_HEADER;
+        }
+
+        int senderStart = format.scanPrefix(line);
+        if (senderStart == -1) {
+            return NOT_A_HEADER;
+        }
+
+        long epochMinute = format.decodeTimestamp(line, senderStart);
+        if (epochMinute == ChatFormat.INVALID_TIMESTAMP) {
+            return NOTICE_HEADER;
+        }
+
+        int senderEnd = line.indexOf(':', senderStart);
+        if (senderEnd == -1) {
+            return NOTICE_HEADER;
+        }
+        int contentStart = senderEnd + 1;
+        if (contentStart < line.length() && line.charAt(contentStart) == ' ') {
+            contentStart++;
+        }
+
+        scannedTimestamp = toLocalDateTime(epochMinute);
+        scannedSender = line.substring(senderStart, senderEnd);
+        scannedContentStart = contentStart;
+        return MESSAGE_HEADER;
+    }
+}
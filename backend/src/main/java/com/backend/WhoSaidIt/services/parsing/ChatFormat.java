@@ -0,0 +1,27 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+public interface ChatFormat {
+    // A chat export format, identified by the prefix that starts each message header line.
+    // Implementations are Spring components; ChatFormatDetector picks one per file by sampling its first lines, and
+    // every line of that file is then matched against the chosen format only.
+    //
+    // The sender and content following the prefix are split by the parser ("Sender Name: Message Content").
+
+    // Returned by decodeTimestamp() for a prefix that is well-formed but does not describe a valid date
+    long INVALID_TIMESTAMP = Long.MIN_VALUE;
+
+    // A short name for the format, used in logs and error messages
+    String getName();
+
+    // Returns the index at which the sender begins if the line starts with this format's header prefix, or -1 if it
+    // does not. Called for every line of the export, so it should not allocate.
+    int scanPrefix(String line);
+
+    // Decodes the timestamp of a line for which scanPrefix returned senderStart, as minutes since the epoch (UTC, i.e.,
+    // the local date and time of the export). Returns INVALID_TIMESTAMP if it is not a valid date.
+    // Called for every header line, so it should not allocate in the common case.
+    long decodeTimestamp(String line, int senderStart);
+
+    // Cleans the content of messages in this format. Compiled once per format.
+    MessageCleaner getCleaner();
+}
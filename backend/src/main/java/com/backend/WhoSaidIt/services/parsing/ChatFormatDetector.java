@@ -0,0 +1,61 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class ChatFormatDetector {
+    // This class decides which ChatFormat a chat export is written in.
+    // It is run once per file on the first few lines; the chosen format is then used for every line of the file.
+    // The format whose prefix matches the most sampled lines wins. Ties go to the format that comes first in order.
+
+    private final List<ChatFormat> formats;
+
+    // Number of lines sampled from the start of the export
+    @Value("${app.upload.format-sample-lines}")
+    private int sampleLines;
+
+    public ChatFormatDetector(List<ChatFormat> formats) {
+        this.formats = formats;
+    }
+
+    public int getSampleLines() { return sampleLines; }
+
+    // Reads up to getSampleLines() lines from the reader
+    public List<String> sample(BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<>(sampleLines);
+        String line;
+        while (lines.size() < sampleLines && (line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    // Throws a BadFormatException if no format matches any of the lines
+    public ChatFormat detect(List<String> lines) {
+        ChatFormat bestFormat = null;
+        int bestMatches = 0;
+        for (ChatFormat format : formats) {
+            int matches = 0;
+            for (String line : lines) {
+                if (format.scanPrefix(ChatExportParser.stripLeadingMark(line)) != -1) {
+                    matches++;
+                }
+            }
+            if (matches > bestMatches) {
+                bestFormat = format;
+                bestMatches = matches;
+            }
+        }
+        if (bestFormat == null) {
+            throw new BadFormatException("Could not recognize the format of the file. Possibly incompatible format.");
+        }
+        return bestFormat;
+    }
+}
@@ -0,0 +1,33 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+public record CleaningRule(Kind kind, String text, String replacement) {
+    // A single rule applied to the content of every message by a MessageCleaner.
+    // Rules are created with the factory methods below and compiled together into a MessageCleaner.
+
+    public enum Kind {
+        URL,         // Replaces URLs (http, https, ftp and file) with the replacement
+        MENTION,     // Replaces @mentions (which exports write as "@" followed by a phone number) with the replacement
+        LITERAL,     // Replaces every occurrence of text with the replacement
+        DROP_EQUALS  // Drops the whole message if its content is exactly text (e.g., "<Media omitted>")
+    }
+
+    public static CleaningRule removeUrls() {
+        return new CleaningRule(Kind.URL, null, "");
+    }
+
+    public static CleaningRule removeMentions() {
+        return new CleaningRule(Kind.MENTION, null, "");
+    }
+
+    public static CleaningRule remove(String text) {
+        return new CleaningRule(Kind.LITERAL, text, "");
+    }
+
+    public static CleaningRule replace(String text, String replacement) {
+        return new CleaningRule(Kind.LITERAL, text, replacement);
+    }
+
+    public static CleaningRule dropIfEquals(String text) {
+        return new CleaningRule(Kind.DROP_EQUALS, text, null);
+    }
+}
@@ -0,0 +1,190 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+final class HeaderScanning {
+    // Character-level helpers shared by the ChatFormat implementations.
+    // Scanning methods take the index to start at and return the index following the scanned text, or -1 on a mismatch.
+    //
+    // Decoding methods read the fields of a timestamp that has already been scanned straight from the line and return
+    // it as minutes since the epoch, without creating any objects. Inputs they do not handle exactly like the
+    // corresponding DateTimeFormatter (e.g., out-of-range fields) are reported as UNUSUAL_TIMESTAMP, and the caller
+    // falls back to decodeWithFormatter().
+
+    static final char NARROW_NO_BREAK_SPACE = '\u202F';
+    static final long UNUSUAL_TIMESTAMP = Long.MAX_VALUE;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private HeaderScanning() {}
+
+    // Scans "M/D/Y, " where each component is one or two digits
+    static int scanUsDate(String line, int i) {
+        i = scanDigits(line, i, 1, 2);
+        if (i == -1 || !line.startsWith("/", i)) return -1;
+        i = scanDigits(line, i + 1, 1, 2);
+        if (i == -1 || !line.startsWith("/", i)) return -1;
+        i = scanDigits(line, i + 1, 1, 2);
+        if (i == -1 || !line.startsWith(", ", i)) return -1;
+        return i + 2;
+    }
+
+    // Scans "YYYY-M-D, "
+    static int scanIsoDate(String line, int i) {
+        i = scanDigits(line, i, 4, 4);
+        if (i == -1 || !line.startsWith("-", i)) return -1;
+        i = scanDigits(line, i + 1, 1, 2);
+        if (i == -1 || !line.startsWith("-", i)) return -1;
+        i = scanDigits(line, i + 1, 1, 2);
+        if (i == -1 || !line.startsWith(", ", i)) return -1;
+        return i + 2;
+    }
+
+    // Scans "H:MM[:SS] AM|PM", where the space may also be a narrow no-break space
+    static int scanTime(String line, int i, boolean withSeconds) {
+        i = scanDigits(line, i, 1, 2);
+        if (i == -1 || !line.startsWith(":", i)) return -1;
+        i = scanDigits(line, i + 1, 1, 2);
+        if (i == -1) return -1;
+        if (withSeconds) {
+            if (!line.startsWith(":", i)) return -1;
+            i = scanDigits(line, i + 1, 1, 2);
+            if (i == -1) return -1;
+        }
+        if (i + 3 > line.length()) return -1;
+        char space = line.charAt(i);
+        if (space != ' ' && space != NARROW_NO_BREAK_SPACE) return -1;
+        char meridiem = line.charAt(i + 1);
+        if ((meridiem != 'A' && meridiem != 'P') || line.charAt(i + 2) != 'M') return -1;
+        return i + 3;
+    }
+
+    // Scans between min and max digits
+    static int scanDigits(String line, int i, int min, int max) {
+        int count = 0;
+        while (count < max && i + count < line.length() && isDigit(line.charAt(i + count))) {
+            count++;
+        }
+        return count >= min ? i + count : -1;
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Copies the timestamp in line[start, end), dropping seconds and replacing narrow no-break spaces, so that it can
+    // be parsed with an "h:mm a" pattern
+    static String normalizeTimestamp(String line, int start, int end) {
+        StringBuilder timestamp = new StringBuilder(end - start);
+        int colons = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == ':' && ++colons == 2) {
+                // Skip the seconds
+                while (i + 1 < end && isDigit(line.charAt(i + 1))) {
+                    i++;
+                }
+                continue;
+            }
+            timestamp.append(c == NARROW_NO_BREAK_SPACE ? ' ' : c);
+        }
+        return timestamp.toString();
+    }
+
+    // Decodes "M/D/YY, H:MM[:SS] AM|PM" starting at i, as matched by scanUsDate() and scanTime()
+    static long decodeUsTimestamp(String line, int i) {
+        int end = skipDigits(line, i);
+        int month = digitsValue(line, i, end);
+        i = end + 1; // "/"
+        end = skipDigits(line, i);
+        int day = digitsValue(line, i, end);
+        i = end + 1; // "/"
+        end = skipDigits(line, i);
+        if (end - i != 2) return UNUSUAL_TIMESTAMP;
+        int year = 2000 + digitsValue(line, i, end);
+        return decodeTime(line, end + 2, year, month, day); // ", "
+    }
+
+    // Decodes "YYYY-MM-DD, H:MM[:SS] AM|PM" starting at i, as matched by scanIsoDate() and scanTime()
+    static long decodeIsoTimestamp(String line, int i) {
+        int year = digitsValue(line, i, i + 4);
+        i += 5; // "YYYY-"
+        int end = skipDigits(line, i);
+        if (end - i != 2) return UNUSUAL_TIMESTAMP;
+        int month = digitsValue(line, i, end);
+        i = end + 1; // "-"
+        end = skipDigits(line, i);
+        if (end - i != 2) return UNUSUAL_TIMESTAMP;
+        int day = digitsValue(line, i, end);
+        return decodeTime(line, end + 2, year, month, day); // ", "
+    }
+
+    // Decodes "H:MM[:SS] AM|PM" starting at i and combines it with the date. Seconds are dropped.
+    private static long decodeTime(String line, int i, int year, int month, int day) {
+        int end = skipDigits(line, i);
+        int hour = digitsValue(line, i, end);
+        i = end + 1; // ":"
+        end = skipDigits(line, i);
+        if (end - i != 2) return UNUSUAL_TIMESTAMP;
+        int minute = digitsValue(line, i, end);
+        i = end;
+        if (line.charAt(i) == ':') {
+            i = skipDigits(line, i + 1);
+        }
+        boolean pm = line.charAt(i + 1) == 'P'; // After the space
+
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 1 || hour > 12 || minute > 59) {
+            return UNUSUAL_TIMESTAMP;
+        }
+        int hourOfDay = hour % 12 + (pm ? 12 : 0);
+        return epochDay(year, month, day) * MINUTES_PER_DAY + hourOfDay * 60 + minute;
+    }
+
+    // The slow path: parses the timestamp in line[start, end) with the formatter.
+    // Returns ChatFormat.INVALID_TIMESTAMP if it is not a valid date.
+    static long decodeWithFormatter(String line, int start, int end, DateTimeFormatter formatter) {
+        try {
+            LocalDateTime timestamp = LocalDateTime.parse(normalizeTimestamp(line, start, end), formatter);
+            return timestamp.toEpochSecond(ZoneOffset.UTC) / 60;
+        } catch (DateTimeParseException e) {
+            return ChatFormat.INVALID_TIMESTAMP;
+        }
+    }
+
+    private static int skipDigits(String line, int i) {
+        while (i < line.length() && isDigit(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int digitsValue(String line, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (line.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leapYear ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // Days since 1970-01-01 of a proleptic Gregorian date
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,158 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class MessageCleaner {
+    // This class removes unsightly strings (links, @mentions, WhatsApp-specific tags, etc.) from message content and
+    // drops messages that carry no text of their own (e.g., media placeholders).
+    //
+    // The rules are compiled once: each rewriting rule is registered under the characters its matches can start with,
+    // so cleaning is a single scan of the content in which only those characters are looked at more closely. The
+    // content is only copied if a rule actually matches.
+    // Where several rules match at the same position, the one listed first wins.
+
+    private static final String[] URL_SCHEMES = { "https://", "http://", "ftp://", "file://" };
+
+    // Rewriting rules, indexed by the (ASCII) character a match starts with
+    private final CleaningRule[][] rulesByFirstChar = new CleaningRule[128][];
+    // Rewriting rules whose matches start with a non-ASCII character
+    private final CleaningRule[] nonAsciiRules;
+    private final Set<String> dropContents = new HashSet<>();
+
+    public MessageCleaner(List<CleaningRule> rules) {
+        List<CleaningRule> nonAscii = new ArrayList<>();
+        for (CleaningRule rule : rules) {
+            switch (rule.kind()) {
+                case URL -> {
+                    for (String scheme : URL_SCHEMES) {
+                        register(rule, scheme.charAt(0), nonAscii);
+                    }
+                }
+                case MENTION -> register(rule, '@', nonAscii);
+                case LITERAL -> register(rule, rule.text().charAt(0), nonAscii);
+                case DROP_EQUALS -> dropContents.add(rule.text());
+            }
+        }
+        nonAsciiRules = nonAscii.toArray(new CleaningRule[0]);
+    }
+
+    private void register(CleaningRule rule, char firstChar, List<CleaningRule> nonAscii) {
+        if (firstChar >= rulesByFirstChar.length) {
+            if (!nonAscii.contains(rule)) {
+                nonAscii.add(rule);
+            }
+            return;
+        }
+        CleaningRule[] existing = rulesByFirstChar[firstChar];
+        if (existing == null) {
+            rulesByFirstChar[firstChar] = new CleaningRule[] { rule };
+        } else if (existing[existing.length - 1] != rule) {
+            CleaningRule[] extended = new CleaningRule[existing.length + 1];
+            System.arraycopy(existing, 0, extended, 0, existing.length);
+            extended[existing.length] = rule;
+            rulesByFirstChar[firstChar] = extended;
+        }
+    }
+
+    // Returns the cleaned content, or null if the message should be dropped
+    public String clean(String content) {
+        if (dropContents.contains(content)) {
+            return null;
+        }
+
+        StringBuilder cleaned = null;
+        int copiedUpTo = 0;
+        int length = content.length();
+        int i = 0;
+        while (i < length) {
+            char c = content.charAt(i);
+            CleaningRule[] candidates = c < rulesByFirstChar.length ? rulesByFirstChar[c] : nonAsciiRules;
+            CleaningRule matchedRule = null;
+            int matchEnd = -1;
+            if (candidates != null) {
+                for (CleaningRule rule : candidates) {
+                    matchEnd = match(rule, content, i);
+                    if (matchEnd != -1) {
+                        matchedRule = rule;
+                        break;
+                    }
+                }
+            }
+            if (matchedRule == null) {
+                i++;
+                continue;
+            }
+
+            if (cleaned == null) {
+                cleaned = new StringBuilder(length);
+            }
+            cleaned.append(content, copiedUpTo, i).append(matchedRule.replacement());
+            i = matchEnd;
+            copiedUpTo = matchEnd;
+        }
+
+        if (cleaned == null) {
+            return content;
+        }
+        return cleaned.append(content, copiedUpTo, length).toString();
+    }
+
+    // Returns the index following the rule's match at i, or -1 if it does not match there
+    private static int match(CleaningRule rule, String content, int i) {
+        return switch (rule.kind()) {
+            case URL -> matchUrl(content, i);
+            case MENTION -> matchMention(content, i);
+            case LITERAL -> content.startsWith(rule.text(), i) ? i + rule.text().length() : -1;
+            case DROP_EQUALS -> -1;
+        };
+    }
+
+    // Matches \b(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]
+    private static int matchUrl(String content, int i) {
+        if (i > 0 && isWordChar(content.charAt(i - 1))) {
+            return -1;
+        }
+        for (String scheme : URL_SCHEMES) {
+            if (!content.startsWith(scheme, i)) {
+                continue;
+            }
+            int bodyStart = i + scheme.length();
+            int end = bodyStart;
+            while (end < content.length() && isUrlChar(content.charAt(end))) {
+                end++;
+            }
+            // The URL may not end in punctuation, which most likely belongs to the surrounding sentence
+            while (end > bodyStart && !isUrlEndChar(content.charAt(end - 1))) {
+                end--;
+            }
+            return end > bodyStart ? end : -1;
+        }
+        return -1;
+    }
+
+    // Matches @\d+
+    private static int matchMention(String content, int i) {
+        int end = i + 1;
+        while (end < content.length() && HeaderScanning.isDigit(content.charAt(end))) {
+            end++;
+        }
+        return end > i + 1 ? end : -1;
+    }
+
+    private static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isUrlChar(char c) {
+        return isUrlEndChar(c) || c == '?' || c == '!' || c == ':' || c == ',' || c == '.' || c == ';';
+    }
+
+    private static boolean isUrlEndChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || HeaderScanning.isDigit(c)
+                || c == '-' || c == '+' || c == '&' || c == '@' || c == '#' || c == '/' || c == '%'
+                || c == '=' || c == '~' || c == '_' || c == '|';
+    }
+}
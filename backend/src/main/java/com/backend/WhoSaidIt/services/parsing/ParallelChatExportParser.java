@@ -0,0 +1,193 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class ParallelChatExportParser {
+    // This class parses a chat export stored on disk using several threads.
+    // The file is split into chunks that end on a line break, and each chunk is parsed by its own ChatExportParser on
+    // the given ForkJoinPool. Results are handed to the consumer strictly in chunk order, which is the order of the
+    // export (and therefore timestamp order), on the calling thread.
+    //
+    // A message may cross a chunk boundary. The lines at the start of a chunk that precede its first header belong to
+    // the last message of the previous chunk, so that message is held back until the next chunk has been parsed.
+    //
+    // Only a bounded window of chunks is parsed ahead of the consumer, so memory use does not grow with the file.
+    //
+    // Only parsing and cleaning run in parallel. Format detection, stitching messages across chunks and the consumer
+    // (for uploads, the database writes) stay on the calling thread, which bounds the speedup of a whole upload.
+    // See ParallelChatExportParserBenchmark.
+
+    private static final int BOUNDARY_SCAN_BUFFER_SIZE = 8192;
+
+    private final Path file;
+    private final ChatFormatDetector detector;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ParallelChatExportParser(Path file, ChatFormatDetector detector, ForkJoinPool pool, int chunkSize) {
+        this.file = file;
+        this.detector = detector;
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    // The parsed result of a single chunk
+    private record ChunkResult(
+            long length,
+            String leadingLines,          // Continuation of the previous chunk's last message, or null
+            boolean seenHeader,           // If true, the previous chunk's last message ends in this chunk
+            List<ParsedMessage> messages, // Cleaned messages, in order
+            ParsedMessage openTail        // The last message, if it may continue into the next chunk; not cleaned
+    ) {}
+
+    // Parses the whole file. Each message is cleaned by the format's MessageCleaner (which may drop it) before being
+    // handed to the consumer. Bytes are added to bytesParsed as chunks are consumed.
+    // Throws a BadFormatException if the start of the file does not match a known format.
+    public void parse(Consumer<ParsedMessage> consumer, AtomicLong bytesParsed) throws IOException {
+        // The format is detected once, from the start of the file, and shared by all chunks
+        ChatFormat format;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            format = detector.detect(detector.sample(reader));
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> chunks = splitIntoChunks(channel);
+            int window = pool.getParallelism() * 2;
+            Deque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            int nextChunk = 0;
+            ParsedMessage heldTail = null;
+            try {
+                while (nextChunk < chunks.size() || !inFlight.isEmpty()) {
+                    while (nextChunk < chunks.size() && inFlight.size() < window) {
+                        long[] chunk = chunks.get(nextChunk++);
+                        inFlight.addLast(pool.submit(
+                                () -> parseChunk(channel, format, chunk[0], chunk[1])
+                        ));
+                    }
+
+                    ChunkResult result = joinChunk(inFlight.removeFirst());
+                    if (heldTail != null && result.leadingLines() != null) {
+                        heldTail = new ParsedMessage(
+                                heldTail.timestamp(),
+                                heldTail.sender(),
+                                heldTail.content() + '\n' + result.leadingLines()
+                        );
+                    }
+                    if (heldTail != null && result.seenHeader()) {
+                        acceptFinished(ChatExportParser.clean(format, heldTail), consumer);
+                        heldTail = null;
+                    }
+                    for (ParsedMessage message : result.messages()) {
+                        consumer.accept(message);
+                    }
+                    if (result.openTail() != null) {
+                        heldTail = result.openTail();
+                    }
+                    bytesParsed.addAndGet(result.length());
+                }
+                if (heldTail != null) {
+                    acceptFinished(ChatExportParser.clean(format, heldTail), consumer);
+                }
+            } finally {
+                for (ForkJoinTask<ChunkResult> task : inFlight) {
+                    task.cancel(true);
+                }
+            }
+        }
+    }
+
+    private static void acceptFinished(ParsedMessage message, Consumer<ParsedMessage> consumer) {
+        if (message != null) {
+            consumer.accept(message);
+        }
+    }
+
+    private static ChunkResult joinChunk(ForkJoinTask<ChunkResult> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ChunkResult parseChunk(
+            FileChannel channel, ChatFormat format, long start, long end
+    ) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            // Chunks end on a line break, so they never split a multi-byte character
+            String text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            ChatExportParser parser = new ChatExportParser(new BufferedReader(new StringReader(text)), format, true);
+
+            List<ParsedMessage> messages = new ArrayList<>();
+            ParsedMessage message;
+            while ((message = parser.next()) != null) {
+                messages.add(message);
+            }
+            // The parser returns the open tail uncleaned; the other messages are cleaned here, in parallel
+            ParsedMessage openTail = parser.endedOpen() ? messages.remove(messages.size() - 1) : null;
+            return new ChunkResult(end - start, parser.getLeadingLines(), parser.hasSeenHeader(), messages, openTail);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Splits the file into [start, end) byte ranges of roughly chunkSize bytes, each ending just after a '\n'
+    private List<long[]> splitIntoChunks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer scanBuffer = ByteBuffer.allocate(BOUNDARY_SCAN_BUFFER_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            // Extend the chunk to the end of the line it stops in
+            while (end < size) {
+                scanBuffer.clear();
+                int read = channel.read(scanBuffer, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (scanBuffer.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline != -1) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            chunks.add(new long[] { start, end });
+            start = end;
+        }
+        return chunks;
+    }
+}
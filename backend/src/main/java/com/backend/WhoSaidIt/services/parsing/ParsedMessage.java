@@ -0,0 +1,12 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import java.time.LocalDateTime;
+
+// A single message of a chat export. ChatExportParser returns its content cleaned by the format's MessageCleaner
+// (except for a chunk's open tail; see ChatExportParser.next()), but not yet filtered (see FileUploadService).
+// Multi-line messages have their lines joined with '\n'.
+public record ParsedMessage(
+        LocalDateTime timestamp,
+        String sender,
+        String content
+) {}
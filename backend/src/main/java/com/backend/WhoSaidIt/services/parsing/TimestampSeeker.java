@@ -0,0 +1,128 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TimestampSeeker {
+    // This class finds where a given point in time starts in a chat export stored on disk, without parsing the file
+    // from the beginning. Exports are written in chronological order, so the byte offsets of header lines are sorted
+    // by timestamp and can be binary searched. Each probe reads forward from an arbitrary offset to the next header.
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final Path file;
+    private final ChatFormat format;
+
+    public TimestampSeeker(Path file, ChatFormat format) {
+        this.file = file;
+        this.format = format;
+    }
+
+    // Returns the byte offset of the first header line whose timestamp is at or after the given epoch minute (see
+    // ChatFormat.decodeTimestamp), or the size of the file if there is none. Parsing from the returned offset skips
+    // only messages that are strictly earlier.
+    public long seek(long epochMinute) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long low = 0;
+            long high = channel.size();
+            while (low < high) {
+                long middle = low + (high - low) / 2;
+                long[] header = probe(channel, middle);
+                if (header == null || header[1] >= epochMinute) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            long[] header = probe(channel, low);
+            return header == null ? channel.size() : header[0];
+        }
+    }
+
+    // Finds the first header line starting at or after position. Returns { offset, epochMinute }, or null at the end of
+    // the file.
+    private long[] probe(FileChannel channel, long position) throws IOException {
+        LineReader reader = new LineReader(channel, position);
+        // Unless we are at the start of the file, the first line read may be the tail of an earlier line
+        if (position > 0 && !reader.previousByteIsLineBreak()) {
+            reader.readLine();
+        }
+        while (true) {
+            long offset = reader.getPosition();
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            line = ChatExportParser.stripLeadingMark(line);
+            int senderStart = format.scanPrefix(line);
+            if (senderStart == -1) {
+                continue;
+            }
+            long timestamp = format.decodeTimestamp(line, senderStart);
+            if (timestamp != ChatFormat.INVALID_TIMESTAMP) {
+                return new long[] { offset, timestamp };
+            }
+        }
+    }
+
+    // Reads UTF-8 lines from a file channel while keeping track of the byte offset
+    private static class LineReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private final long start;
+        private long position;
+
+        LineReader(FileChannel channel, long position) {
+            this.channel = channel;
+            this.start = position;
+            this.position = position;
+            buffer.limit(0);
+        }
+
+        long getPosition() { return position; }
+
+        boolean previousByteIsLineBreak() throws IOException {
+            ByteBuffer previous = ByteBuffer.allocate(1);
+            return channel.read(previous, start - 1) == 1 && previous.get(0) == '\n';
+        }
+
+        // Returns the next line without its line break, or null at the end of the file
+        String readLine() throws IOException {
+            line.reset();
+            boolean readAny = false;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    // Every buffered byte has been consumed, so the next read continues at position
+                    buffer.clear();
+                    int read = channel.read(buffer, position);
+                    buffer.flip();
+                    if (read <= 0) {
+                        return readAny ? finishLine() : null;
+                    }
+                }
+                byte b = buffer.get();
+                position++;
+                readAny = true;
+                if (b == '\n') {
+                    return finishLine();
+                }
+                line.write(b);
+            }
+        }
+
+        private String finishLine() {
+            int length = line.size();
+            byte[] bytes = line.toByteArray();
+            if (length > 0 && bytes[length - 1] == '\r') {
+                length--;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
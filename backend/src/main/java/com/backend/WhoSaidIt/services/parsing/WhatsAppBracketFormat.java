@@ -0,0 +1,57 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+@Component
+@Order(2)
+public class WhatsAppBracketFormat implements ChatFormat {
+    // WhatsApp exports from iOS (US locale):
+    // "[MM/DD/YY, HH:MM:SS AM/PM] Sender Name: Message Content"
+    // Seconds are dropped from the timestamp.
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("M/d/yy, h:mm a", Locale.US);
+    private static final MessageCleaner CLEANER = new MessageCleaner(List.of(
+            CleaningRule.removeUrls(),
+            CleaningRule.removeMentions(),
+            CleaningRule.remove("<This message was edited>"),
+            CleaningRule.dropIfEquals("image omitted"),
+            CleaningRule.dropIfEquals("video omitted"),
+            CleaningRule.dropIfEquals("audio omitted"),
+            CleaningRule.dropIfEquals("sticker omitted"),
+            CleaningRule.dropIfEquals("GIF omitted"),
+            CleaningRule.dropIfEquals("document omitted"),
+            CleaningRule.dropIfEquals("This message was deleted."),
+            CleaningRule.dropIfEquals("You deleted this message.")
+    ));
+    private static final String SEPARATOR = "] ";
+
+    @Override
+    public String getName() { return "WhatsApp ([MM/DD/YY, HH:MM:SS AM/PM])"; }
+
+    @Override
+    public int scanPrefix(String line) {
+        if (line.isEmpty() || line.charAt(0) != '[') return -1;
+        int i = HeaderScanning.scanUsDate(line, 1);
+        if (i == -1) return -1;
+        i = HeaderScanning.scanTime(line, i, true);
+        if (i == -1 || !line.startsWith(SEPARATOR, i)) return -1;
+        return i + SEPARATOR.length();
+    }
+
+    @Override
+    public long decodeTimestamp(String line, int senderStart) {
+        long epochMinute = HeaderScanning.decodeUsTimestamp(line, 1);
+        if (epochMinute != HeaderScanning.UNUSUAL_TIMESTAMP) {
+            return epochMinute;
+        }
+        return HeaderScanning.decodeWithFormatter(line, 1, senderStart - SEPARATOR.length(), TIMESTAMP_FORMATTER);
+    }
+
+    @Override
+    public MessageCleaner getCleaner() { return CLEANER; }
+}
@@ -0,0 +1,50 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+@Component
+@Order(1)
+public class WhatsAppDashFormat implements ChatFormat {
+    // WhatsApp exports from Android (US locale):
+    // "MM/DD/YY, HH:MM AM/PM - Sender Name: Message Content"
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("M/d/yy, h:mm a", Locale.US);
+    private static final MessageCleaner CLEANER = new MessageCleaner(List.of(
+            CleaningRule.removeUrls(),
+            CleaningRule.removeMentions(),
+            CleaningRule.remove("<This message was edited>"),
+            CleaningRule.dropIfEquals("<Media omitted>"),
+            CleaningRule.dropIfEquals("This message was deleted"),
+            CleaningRule.dropIfEquals("You deleted this message")
+    ));
+    private static final String SEPARATOR = " - ";
+
+    @Override
+    public String getName() { return "WhatsApp (MM/DD/YY, HH:MM AM/PM -)"; }
+
+    @Override
+    public int scanPrefix(String line) {
+        int i = HeaderScanning.scanUsDate(line, 0);
+        if (i == -1) return -1;
+        i = HeaderScanning.scanTime(line, i, false);
+        if (i == -1 || !line.startsWith(SEPARATOR, i)) return -1;
+        return i + SEPARATOR.length();
+    }
+
+    @Override
+    public long decodeTimestamp(String line, int senderStart) {
+        long epochMinute = HeaderScanning.decodeUsTimestamp(line, 0);
+        if (epochMinute != HeaderScanning.UNUSUAL_TIMESTAMP) {
+            return epochMinute;
+        }
+        return HeaderScanning.decodeWithFormatter(line, 0, senderStart - SEPARATOR.length(), TIMESTAMP_FORMATTER);
+    }
+
+    @Override
+    public MessageCleaner getCleaner() { return CLEANER; }
+}
@@ -0,0 +1,61 @@
+package com.backend.WhoSaidIt.services.play;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+public class AliasTable {
+    // Samples indices in proportion to a fixed set of weights in constant time, using Vose's alias method.
+    // Building the table takes linear time in the number of weights, so a table is built once and sampled many times.
+
+    private final double[] probability;
+    private final int[] alias;
+
+    // Precondition: the weights are non-negative and at least one is positive
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever remains is (up to rounding error) exactly full
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1;
+        }
+    }
+
+    public int sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+}
@@ -0,0 +1,65 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+
+public final class ExclusionBitmaps {
+    // Helpers for the sets of excluded message ordinals that stateless clients send with each random quiz message request.
+    // An ordinal is a message's position in the quiz's candidate list (see MessageService.getRandomQuizMessage), so the
+    // ordinals a player has seen are dense small integers. A Roaring bitmap stores them in a few bytes per run of
+    // consecutive ordinals, rather than in a growing list of message ids.
+    // On the wire, the bitmap is in Roaring's portable serialization format, base64url encoded (padding is optional).
+
+    private ExclusionBitmaps() {}
+
+    // An empty or null string decodes to an empty set.
+    // Throws a BadFormatException if the string is not a valid encoded bitmap.
+    public static RoaringBitmap decode(String encoded) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        if (encoded == null || encoded.isEmpty()) {
+            return bitmap;
+        }
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(Base64.getUrlDecoder().decode(encoded)));
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            throw new BadFormatException("Excluded ordinals are not a valid base64url encoded Roaring bitmap.");
+        }
+    }
+
+    public static String encode(RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    // Returns a uniformly random ordinal in [start, end) that is not in the bitmap, or -1 if there is none.
+    // The k-th free ordinal is found by a binary search over rank queries, so the cost is logarithmic in the size of the
+    // range and does not depend on how many ordinals are excluded.
+    public static int pickUnexcluded(RoaringBitmap excluded, int start, int end) {
+        long free = (end - start) - excluded.rangeCardinality(start, end);
+        if (free <= 0) {
+            return -1;
+        }
+        long k = ThreadLocalRandom.current().nextLong(free);
+        // Find the smallest x such that [start, x] contains more than k free ordinals
+        int low = start;
+        int high = end - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long freeUpToMid = (mid - start + 1) - excluded.rangeCardinality(start, mid + 1L);
+            if (freeUpToMid > k) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,198 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.game.GameQuestionDTO;
+import com.backend.WhoSaidIt.DTOs.game.GameStateDTO;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+public class GameSession {
+    // The state of one game of a quiz, and its scoring rules.
+    // Messages are dealt by a QuizSession; the sender of the current message is kept here and never sent to the player
+    // before they answer, so that the score is computed from answers the server has checked.
+    //
+    // Time attack: each of numberOfQuestions questions scores initialQuestionScore less penaltyPerSecond for every whole
+    // second taken to answer it (but at least MIN_QUESTION_SCORE) if answered correctly, and loses wrongAnswerPenalty
+    // otherwise.
+    // A question dealt in the response to the previous answer is not on screen until the client has shown that answer's
+    // reveal, so its clock starts when the client fetches the game to show it (see showQuestion()), or once the reveal
+    // window has passed, whichever is first. The first question's clock starts as it is dealt.
+    // Survival: each correct answer extends the streak by one, a wrong answer ends the game, and up to numberOfSkips
+    // questions may be skipped.
+    // Callers synchronize on the session.
+
+    public static final int MIN_QUESTION_SCORE = 150;
+
+    public enum Type { TIME_ATTACK, SURVIVAL }
+
+    private final UUID id = UUID.randomUUID();
+    private final long quizId;
+    private final UUID quizSessionId;
+    private final Type type;
+    private final int numberOfQuestions;
+    private final int initialQuestionScore;
+    private final int penaltyPerSecond;
+    private final int wrongAnswerPenalty;
+    private final int numberOfSkips;
+
+    private final Clock clock;
+    private final Instant startedAt;
+    private Instant questionDealtAt;
+    private Duration revealWindow; // Of the current question
+    private Instant questionShownAt; // Null until the client has fetched the current question
+    private Instant finishedAt;
+    private volatile Instant lastActivity;
+    private int questionNumber = 0;
+    private int score = 0;
+    private int skipsUsed = 0;
+    private MessageDTO currentMessage;
+    private Long leaderboardEntryId;
+
+    public static GameSession timeAttack(
+            long quizId, UUID quizSessionId, int numberOfQuestions, int initialQuestionScore, int penaltyPerSecond,
+            int wrongAnswerPenalty, Clock clock
+    ) {
+        return new GameSession(
+                quizId, quizSessionId, Type.TIME_ATTACK, numberOfQuestions, initialQuestionScore, penaltyPerSecond,
+                wrongAnswerPenalty, 0, clock
+        );
+    }
+
+    public static GameSession survival(long quizId, UUID quizSessionId, int numberOfSkips, Clock clock) {
+        return new GameSession(quizId, quizSessionId, Type.SURVIVAL, 0, 0, 0, 0, numberOfSkips, clock);
+    }
+
+    private GameSession(
+            long quizId, UUID quizSessionId, Type type, int numberOfQuestions, int initialQuestionScore,
+            int penaltyPerSecond, int wrongAnswerPenalty, int numberOfSkips, Clock clock
+    ) {
+        this.clock = clock;
+        this.startedAt = clock.instant();
+        this.lastActivity = startedAt;
+        this.quizId = quizId;
+        this.quizSessionId = quizSessionId;
+        this.type = type;
+        this.numberOfQuestions = numberOfQuestions;
+        this.initialQuestionScore = initialQuestionScore;
+        this.penaltyPerSecond = penaltyPerSecond;
+        this.wrongAnswerPenalty = wrongAnswerPenalty;
+        this.numberOfSkips = numberOfSkips;
+    }
+
+    public UUID getId() { return id; }
+
+    public long getQuizId() { return quizId; }
+
+    public UUID getQuizSessionId() { return quizSessionId; }
+
+    public Type getType() { return type; }
+
+    public int getNumberOfQuestions() { return numberOfQuestions; }
+
+    public int getScore() { return score; }
+
+    public int getSkipsUsed() { return skipsUsed; }
+
+    public boolean isFinished() { return finishedAt != null; }
+
+    public MessageDTO getCurrentMessage() { return currentMessage; }
+
+    public Long getLeaderboardEntryId() { return leaderboardEntryId; }
+
+    public void setLeaderboardEntryId(Long leaderboardEntryId) { this.leaderboardEntryId = leaderboardEntryId; }
+
+    // Milliseconds from the start of the game to its last answer, or null if it has not finished
+    public Double getTimeTaken() {
+        return finishedAt == null ? null : (double) Duration.between(startedAt, finishedAt).toMillis();
+    }
+
+    public Instant getLastActivity() { return lastActivity; }
+
+    public void touch() { lastActivity = clock.instant(); }
+
+    public boolean canSkip() { return type == Type.SURVIVAL && !isFinished() && skipsUsed < numberOfSkips; }
+
+    // Whether another question should be dealt after the current one is answered or skipped
+    public boolean hasMoreQuestions() {
+        return !isFinished() && (type == Type.SURVIVAL || questionNumber < numberOfQuestions);
+    }
+
+    // revealWindow is how long the client may take to show the previous answer's reveal before this question's clock
+    // starts; zero if nothing is revealed before it
+    public void startQuestion(MessageDTO message, Duration revealWindow) {
+        currentMessage = message;
+        questionNumber++;
+        questionDealtAt = clock.instant();
+        this.revealWindow = revealWindow;
+        questionShownAt = null;
+    }
+
+    // Records that the client is showing the current question, which starts its clock if it has not started yet
+    public void showQuestion() {
+        if (currentMessage != null && questionShownAt == null) {
+            Instant now = clock.instant();
+            Instant windowEnd = questionDealtAt.plus(revealWindow);
+            questionShownAt = now.isBefore(windowEnd) ? now : windowEnd;
+        }
+    }
+
+    // The time the current question's clock started (or will start)
+    private Instant getQuestionStartedAt() {
+        return questionShownAt != null ? questionShownAt : questionDealtAt.plus(revealWindow);
+    }
+
+    // The score of a correct time attack answer that took the given number of whole seconds
+    public int questionScore(long secondsTaken) {
+        return (int) Math.max(initialQuestionScore - secondsTaken * penaltyPerSecond, MIN_QUESTION_SCORE);
+    }
+
+    // Scores the answer to the current question and returns the score gained (negative for a penalty).
+    // Precondition: the game has not finished
+    public int answer(long participantId) {
+        boolean correct = currentMessage.sender().id() == participantId;
+        int scoreGained;
+        if (type == Type.TIME_ATTACK) {
+            long secondsTaken = Math.max(Duration.between(getQuestionStartedAt(), clock.instant()).toSeconds(), 0);
+            scoreGained = correct ? questionScore(secondsTaken) : -wrongAnswerPenalty;
+        } else {
+            scoreGained = correct ? 1 : 0;
+            if (!correct) {
+                finish();
+            }
+        }
+        score += scoreGained;
+        return scoreGained;
+    }
+
+    // Precondition: canSkip() is true
+    public void skip() {
+        skipsUsed++;
+    }
+
+    public void finish() {
+        if (finishedAt == null) {
+            finishedAt = clock.instant();
+            currentMessage = null;
+        }
+    }
+
+    public GameStateDTO toDTO() {
+        return new GameStateDTO(
+                id,
+                quizId,
+                type.name(),
+                questionNumber,
+                score,
+                skipsUsed,
+                isFinished(),
+                getTimeTaken(),
+                currentMessage == null ? null : new GameQuestionDTO(
+                        currentMessage.id(), currentMessage.content(), currentMessage.timestamp()
+                ),
+                leaderboardEntryId
+        );
+    }
+}
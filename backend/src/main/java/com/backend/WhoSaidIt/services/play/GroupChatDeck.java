@@ -0,0 +1,64 @@
+package com.backend.WhoSaidIt.services.play;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+
+public class GroupChatDeck {
+    // The messages of a quiz's group chats that a session deals once the quiz's own messages run out.
+    // Rather than a shuffled copy of every id, the deck refers to the group chats' shared snapshots (see GroupChatIdCache)
+    // and keeps a bitmap of the positions it has dealt. The group chats' messages are laid out one chat after another,
+    // so position p of the deck is message p - offset of its chat. The quiz's own messages are marked up front, since
+    // they were dealt from the quiz's deck.
+    // Each message is picked uniformly at random from those not yet marked, so the deck deals in a random order without
+    // repeats, and each chat is drawn from in proportion to its remaining size. Not thread-safe.
+
+    private final GroupChatIds[] chats;
+    private final int[] offsets; // Position of the first message of each chat
+    private final int total;
+    private final RoaringBitmap marked = new RoaringBitmap();
+    private int dealt = 0;
+
+    // quizMessageIds holds the ids of the quiz's messages, which are left out of the deck
+    public GroupChatDeck(List<GroupChatIds> chats, long[] quizMessageIds) {
+        this.chats = chats.toArray(GroupChatIds[]::new);
+        this.offsets = new int[this.chats.length];
+        int offset = 0;
+        for (int i = 0; i < this.chats.length; i++) {
+            offsets[i] = offset;
+            offset += this.chats[i].size();
+        }
+        this.total = offset;
+
+        for (long messageId : quizMessageIds) {
+            for (int i = 0; i < this.chats.length; i++) {
+                int index = this.chats[i].indexOf(messageId);
+                if (index >= 0) {
+                    marked.add(offsets[i] + index);
+                    break;
+                }
+            }
+        }
+    }
+
+    public boolean hasNext() {
+        return marked.getCardinality() < total;
+    }
+
+    // Precondition: hasNext()
+    public long next() {
+        int position = ExclusionBitmaps.pickUnexcluded(marked, 0, total);
+        marked.add(position);
+        dealt++;
+        int chat = chats.length - 1;
+        while (offsets[chat] > position) {
+            chat--;
+        }
+        return chats[chat].get(position - offsets[chat]);
+    }
+
+    // Number of messages dealt so far
+    public int dealt() {
+        return dealt;
+    }
+}
@@ -0,0 +1,40 @@
+package com.backend.WhoSaidIt.services.play;
+
+import java.util.Arrays;
+
+public class GroupChatIds {
+    // An immutable snapshot of the ids of a group chat's messages, in ascending order, as of a version of the group chat
+    // (see MessageCountCache.getVersion()). A message's index in the snapshot is its position within the group chat, so
+    // sessions and ordinal requests can refer to messages by position without each holding a copy of the ids.
+
+    // Rough memory overhead of the snapshot object and its array, in bytes
+    private static final long OVERHEAD = 64;
+
+    private final long groupChatId;
+    private final long version;
+    private final long[] messageIds;
+
+    // The message ids do not have to be in any particular order
+    public GroupChatIds(long groupChatId, long version, long[] messageIds) {
+        this.groupChatId = groupChatId;
+        this.version = version;
+        this.messageIds = messageIds.clone();
+        Arrays.sort(this.messageIds);
+    }
+
+    public long getGroupChatId() { return groupChatId; }
+
+    public long getVersion() { return version; }
+
+    public int size() { return messageIds.length; }
+
+    public long get(int index) { return messageIds[index]; }
+
+    // The index of the message with the given id, or a negative number if it is not in the snapshot
+    public int indexOf(long messageId) {
+        return Arrays.binarySearch(messageIds, messageId);
+    }
+
+    // Approximate memory used by the snapshot, in bytes
+    public long getWeight() { return OVERHEAD + 8L * messageIds.length; }
+}
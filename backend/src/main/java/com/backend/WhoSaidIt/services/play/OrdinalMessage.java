@@ -0,0 +1,12 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+
+// A randomly selected quiz message, its ordinal, the client's exclusion set with that ordinal added (encoded), and the
+// ordinal space the ordinals refer to (see MessageService.getRandomQuizMessage)
+public record OrdinalMessage(
+        MessageDTO message,
+        int ordinal,
+        String excludedOrdinals,
+        String ordinalSpace
+) {}
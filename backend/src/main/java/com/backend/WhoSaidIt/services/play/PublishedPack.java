@@ -0,0 +1,9 @@
+package com.backend.WhoSaidIt.services.play;
+
+// A published quiz pack as served to players (see QuizPackService)
+public record PublishedPack(
+        long quizId,
+        int version,
+        String etag,
+        byte[] payload
+) {}
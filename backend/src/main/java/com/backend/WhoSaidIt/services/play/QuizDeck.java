@@ -0,0 +1,48 @@
+package com.backend.WhoSaidIt.services.play;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class QuizDeck {
+    // A shuffled sequence of message ids that is dealt one id at a time.
+    // The ids are shuffled once, when the deck is built, so dealing the next id is a constant time cursor advance and
+    // no id is dealt twice.
+
+    private final long[] ids;
+    private int cursor = 0;
+
+    // Takes ownership of the array, which is shuffled in place
+    public QuizDeck(long[] ids) {
+        this.ids = ids;
+        shuffle(ids);
+    }
+
+    public int size() { return ids.length; }
+
+    // Number of ids dealt so far. The dealt ids are exactly the first dealt() ids of the shuffled array, so the deck
+    // doubles as the set of ids that have been seen, at no extra cost.
+    public int dealt() { return cursor; }
+
+    public boolean hasNext() { return cursor < ids.length; }
+
+    // Precondition: hasNext() is true
+    public long next() { return ids[cursor++]; }
+
+    // The ids in the deck (dealt or not) in ascending order, for binary searches
+    public long[] toSortedArray() {
+        long[] sorted = ids.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // Fisher-Yates shuffle
+    private static void shuffle(long[] ids) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.services.paging.MessageCursor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class QuizPool {
+    // An immutable snapshot of the messages in a quiz, as served to players.
+    // Message ids are held in a sorted primitive array, with the matching DTOs at the same indices, so that a message's
+    // index doubles as its ordinal (see ExclusionBitmaps) and lookups by id are binary searches.
+    // Senders are shared between the DTOs of their messages.
+    // A quiz may draw from several group chats (see Quiz.getSourceGroupChatIds()); the pool records how many of its
+    // messages come from each, so that the chats' remaining messages can be sampled without loading them all.
+
+    // Rough per-message memory overhead of the arrays and DTO objects, in bytes
+    private static final long MESSAGE_OVERHEAD = 96;
+
+    private final long quizId;
+    private final long[] groupChatIds; // The quiz's own group chat first
+    private final int[] groupChatMessageCounts; // Number of the pool's messages from each of groupChatIds
+    private final long[] messageIds;
+    private final MessageDTO[] messages;
+    private final int[] timestampOrder; // Indices of the messages in ascending timestamp order
+    private final long weight;
+    private final long contentHash; // Of the message ids
+    private volatile QuizSampler sampler; // Built on first use
+
+    // The messages do not have to be in any particular order. groupChatMessageCounts holds the number of messages from
+    // each of groupChatIds.
+    public QuizPool(long quizId, long[] groupChatIds, int[] groupChatMessageCounts, List<MessageDTO> messages) {
+        this.quizId = quizId;
+        this.groupChatIds = groupChatIds.clone();
+        this.groupChatMessageCounts = groupChatMessageCounts.clone();
+        this.messages = messages.stream().sorted(Comparator.comparing(MessageDTO::id)).toArray(MessageDTO[]::new);
+        this.messageIds = Arrays.stream(this.messages).mapToLong(MessageDTO::id).toArray();
+        this.timestampOrder = IntStream.range(0, this.messages.length).boxed()
+                .sorted(Comparator.comparing((Integer i) -> this.messages[i].timestamp()).thenComparing(i -> i))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        long contentWeight = 0;
+        for (MessageDTO message : this.messages) {
+            contentWeight += 2L * message.content().length();
+        }
+        this.weight = contentWeight + MESSAGE_OVERHEAD * this.messages.length;
+
+        long hash = 17;
+        for (long messageId : messageIds) {
+            hash = 31 * hash + messageId;
+        }
+        this.contentHash = hash;
+    }
+
+    public long getQuizId() { return quizId; }
+
+    // The quiz's own group chat
+    public long getGroupChatId() { return groupChatIds[0]; }
+
+    public int getGroupChatCount() { return groupChatIds.length; }
+
+    // The i-th group chat the quiz draws from, in the order of Quiz.getSourceGroupChatIds()
+    public long getGroupChatId(int i) { return groupChatIds[i]; }
+
+    public long[] copyGroupChatIds() { return groupChatIds.clone(); }
+
+    // The number of the pool's messages that belong to the i-th group chat
+    public int getGroupChatMessageCount(int i) { return groupChatMessageCounts[i]; }
+
+    // Whether the quiz draws messages from the group chat
+    public boolean drawsFrom(long groupChatId) {
+        for (long id : groupChatIds) {
+            if (id == groupChatId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() { return messageIds.length; }
+
+    // Approximate memory used by the pool, in bytes
+    public long getWeight() { return weight; }
+
+    // A hash of the pool's message ids, which changes whenever messages are added to or removed from the quiz (and so
+    // whenever the quiz's ordinals change)
+    public long getContentHash() { return contentHash; }
+
+    // A copy of the message ids, in ascending order
+    public long[] copyMessageIds() { return messageIds.clone(); }
+
+    public long getMessageId(int index) { return messageIds[index]; }
+
+    public MessageDTO getMessage(int index) { return messages[index]; }
+
+    // The index of the message with the given id, or a negative number if it is not in the pool
+    public int indexOf(long messageId) { return Arrays.binarySearch(messageIds, messageId); }
+
+    public QuizSampler getSampler() {
+        QuizSampler current = sampler;
+        if (current == null) {
+            // Concurrent first uses may each build a sampler; they are equivalent
+            current = new QuizSampler(this);
+            sampler = current;
+        }
+        return current;
+    }
+
+    // Keyset pagination over the messages in (timestamp, id) order, optionally only those sent by the given participant.
+    // Returns up to limit messages after the cursor in ascending order (if after is true), or before it in descending
+    // order, nearest first. A null cursor starts from the first (or last) message.
+    // The cursor is found by binary search, so a page costs the same wherever it starts.
+    public List<MessageDTO> seekByTimestamp(MessageCursor cursor, boolean after, Long participantId, int limit) {
+        // The first position in timestampOrder that comes after the cursor (or is at it, if after is false)
+        int low = 0;
+        int high = timestampOrder.length;
+        if (cursor != null) {
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                MessageDTO message = messages[timestampOrder[middle]];
+                int comparison = cursor.comparePosition(message.timestamp(), message.id());
+                if (comparison < 0 || (comparison == 0 && after)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+        } else {
+            low = after ? 0 : timestampOrder.length;
+        }
+
+        List<MessageDTO> page = new ArrayList<>(Math.min(limit, messages.length));
+        int step = after ? 1 : -1;
+        for (int i = after ? low : low - 1; i >= 0 && i < timestampOrder.length && page.size() < limit; i += step) {
+            MessageDTO message = messages[timestampOrder[i]];
+            if (participantId == null || participantId.equals(message.sender().id())) {
+                page.add(message);
+            }
+        }
+        return page;
+    }
+
+    // The messages ordered by timestamp, optionally only those sent by the given participant
+    public List<MessageDTO> getMessagesByTimestamp(boolean ascending, Long participantId) {
+        List<MessageDTO> ordered = new ArrayList<>(messages.length);
+        for (int i = 0; i < timestampOrder.length; i++) {
+            MessageDTO message = messages[timestampOrder[ascending ? i : timestampOrder.length - 1 - i]];
+            if (participantId == null || participantId.equals(message.sender().id())) {
+                ordered.add(message);
+            }
+        }
+        return ordered;
+    }
+
+    // The messages ordered by id, optionally only those sent by the given participant
+    public List<MessageDTO> getMessagesById(boolean ascending, Long participantId) {
+        List<MessageDTO> ordered = new ArrayList<>(messages.length);
+        for (int i = 0; i < messages.length; i++) {
+            MessageDTO message = messages[ascending ? i : messages.length - 1 - i];
+            if (participantId == null || participantId.equals(message.sender().id())) {
+                ordered.add(message);
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,124 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class QuizSampler {
+    // Samples the messages of a QuizPool stratified by participant: a participant is chosen first (from an AliasTable
+    // over the participants' weights), then one of their messages uniformly. Both steps take constant time.
+    // A sampler is built once per pool (see QuizPool.getSampler()).
+    //
+    // Messages that have already been served are given as a set of the pool's ordinals. They are skipped by rejection,
+    // so a sample does not scan the excluded set. Once most samples are rejected, the weights are recomputed from the
+    // participants that still have messages left, which takes time proportional to the size of the excluded set.
+
+    private static final int MAX_REJECTIONS = 32;
+
+    private final Map<Long, Integer> participantIndices = new HashMap<>();
+    private final int[][] ordinalsByParticipant; // The pool ordinals of each participant's messages
+    private final int[] participantOfOrdinal;
+    private final double[] equalWeights;
+    private final AliasTable balancedTable; // Null if the pool is empty
+
+    public QuizSampler(QuizPool pool) {
+        Map<Long, List<Integer>> ordinals = new LinkedHashMap<>();
+        participantOfOrdinal = new int[pool.size()];
+        for (int ordinal = 0; ordinal < pool.size(); ordinal++) {
+            long participantId = pool.getMessage(ordinal).sender().id();
+            Integer participantIndex = participantIndices.get(participantId);
+            if (participantIndex == null) {
+                participantIndex = participantIndices.size();
+                participantIndices.put(participantId, participantIndex);
+                ordinals.put(participantId, new ArrayList<>());
+            }
+            ordinals.get(participantId).add(ordinal);
+            participantOfOrdinal[ordinal] = participantIndex;
+        }
+        ordinalsByParticipant = ordinals.values().stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+
+        equalWeights = new double[ordinalsByParticipant.length];
+        Arrays.fill(equalWeights, 1);
+        balancedTable = equalWeights.length == 0 ? null : new AliasTable(equalWeights);
+    }
+
+    // Returns the ordinal of a message that is not excluded, with every participant equally likely, or -1 if every
+    // message is excluded.
+    public int sampleBalanced(RoaringBitmap excluded) {
+        return sample(excluded, balancedTable, equalWeights);
+    }
+
+    // Like sampleBalanced, but participants are chosen in proportion to the given weights, by participant id.
+    // Participants without a weight have a weight of 1, and participants with a weight of 0 are never chosen.
+    // Returns -1 if every message of a participant with a positive weight is excluded.
+    // Throws a BadFormatException if a weight is negative or not a number.
+    public int sampleWeighted(RoaringBitmap excluded, Map<Long, Double> participantWeights) {
+        double[] weights = equalWeights.clone();
+        for (Map.Entry<Long, Double> entry : participantWeights.entrySet()) {
+            if (!(entry.getValue() >= 0) || entry.getValue().isInfinite()) {
+                throw new BadFormatException("Participant weights must be non-negative numbers.");
+            }
+            Integer participantIndex = participantIndices.get(entry.getKey());
+            if (participantIndex != null) {
+                weights[participantIndex] = entry.getValue();
+            }
+        }
+        return sample(excluded, hasPositive(weights) ? new AliasTable(weights) : null, weights);
+    }
+
+    private int sample(RoaringBitmap excluded, AliasTable table, double[] weights) {
+        if (table == null) {
+            return -1;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < MAX_REJECTIONS; attempt++) {
+            int[] ordinals = ordinalsByParticipant[table.sample()];
+            int ordinal = ordinals[random.nextInt(ordinals.length)];
+            if (!excluded.contains(ordinal)) {
+                return ordinal;
+            }
+        }
+
+        // Most samples are being rejected, so only participants with messages left are considered from here
+        int[] excludedCounts = new int[ordinalsByParticipant.length];
+        excluded.forEach((int ordinal) -> {
+            if (ordinal >= 0 && ordinal < participantOfOrdinal.length) {
+                excludedCounts[participantOfOrdinal[ordinal]]++;
+            }
+        });
+        double[] remainingWeights = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            remainingWeights[i] = excludedCounts[i] < ordinalsByParticipant[i].length ? weights[i] : 0;
+        }
+        if (!hasPositive(remainingWeights)) {
+            return -1;
+        }
+        int participantIndex = new AliasTable(remainingWeights).sample();
+        int[] ordinals = ordinalsByParticipant[participantIndex];
+        int k = random.nextInt(ordinals.length - excludedCounts[participantIndex]);
+        for (int ordinal : ordinals) {
+            if (!excluded.contains(ordinal) && k-- == 0) {
+                return ordinal;
+            }
+        }
+        return -1; // Unreachable
+    }
+
+    private static boolean hasPositive(double[] weights) {
+        for (double weight : weights) {
+            if (weight > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,47 @@
+package com.backend.WhoSaidIt.services.play;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class QuizSession {
+    // One play-through of a quiz. Messages are dealt from the quiz's deck first; once it runs out they are dealt from
+    // a deck of the other messages of the group chats the quiz draws from, which is only built if it is needed.
+    // Sessions are shared by the requests of a single player, so callers synchronize on the session.
+    // The session doubles as the set of messages the player has seen (see QuizDeck.dealt() and GroupChatDeck).
+
+    private final UUID id = UUID.randomUUID();
+    private final long quizId;
+    private final long[] groupChatIds;
+    private final QuizDeck quizDeck;
+    private GroupChatDeck groupChatDeck;
+    private volatile Instant lastActivity = Instant.now();
+
+    public QuizSession(long quizId, long[] groupChatIds, QuizDeck quizDeck) {
+        this.quizId = quizId;
+        this.groupChatIds = groupChatIds;
+        this.quizDeck = quizDeck;
+    }
+
+    public UUID getId() { return id; }
+
+    public long getQuizId() { return quizId; }
+
+    // The group chats the quiz draws from (see Quiz.getSourceGroupChatIds()). Not to be modified.
+    public long[] getGroupChatIds() { return groupChatIds; }
+
+    public QuizDeck getQuizDeck() { return quizDeck; }
+
+    // Null until the quiz's deck has run out
+    public GroupChatDeck getGroupChatDeck() { return groupChatDeck; }
+
+    public void setGroupChatDeck(GroupChatDeck groupChatDeck) { this.groupChatDeck = groupChatDeck; }
+
+    // Number of messages dealt so far, across both decks
+    public int getMessagesDealt() {
+        return quizDeck.dealt() + (groupChatDeck == null ? 0 : groupChatDeck.dealt());
+    }
+
+    public Instant getLastActivity() { return lastActivity; }
+
+    public void touch() { lastActivity = Instant.now(); }
+}
@@ -0,0 +1,8 @@
+package com.backend.WhoSaidIt.services.play;
+
+// How random quiz messages are chosen among those not yet served
+public enum SamplingMode {
+    UNIFORM,  // Every message is equally likely, so chattier participants come up more often
+    BALANCED, // Every participant is equally likely, then every message of the chosen participant
+    WEIGHTED  // Like BALANCED, but participants are chosen in proportion to weights given by the client
+}
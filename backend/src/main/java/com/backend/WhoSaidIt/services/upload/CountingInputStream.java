@@ -0,0 +1,42 @@
+package com.backend.WhoSaidIt.services.upload;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CountingInputStream extends FilterInputStream {
+    // Records the number of bytes read through the stream, so upload progress can be reported while it is parsed.
+
+    private final AtomicLong count;
+
+    public CountingInputStream(InputStream in, AtomicLong count) {
+        super(in);
+        this.count = count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count.incrementAndGet();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count.addAndGet(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count.addAndGet(skipped);
+        return skipped;
+    }
+}
@@ -0,0 +1,52 @@
+package com.backend.WhoSaidIt.services.upload;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class SizeLimitedInputStream extends FilterInputStream {
+    // Fails with a BadFormatException once more than maxBytes have been read through the stream, so that a stream of
+    // unknown length (a streamed request body, or an entry being inflated from an archive) cannot be read without bound.
+
+    private final long maxBytes;
+    private long count = 0;
+
+    public SizeLimitedInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            add(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            add(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        add(skipped);
+        return skipped;
+    }
+
+    private void add(long n) {
+        count += n;
+        if (count > maxBytes) {
+            throw new BadFormatException("The export is larger than the maximum of " + maxBytes + " bytes.");
+        }
+    }
+}
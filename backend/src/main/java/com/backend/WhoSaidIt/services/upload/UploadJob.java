@@ -0,0 +1,125 @@
+package com.backend.WhoSaidIt.services.upload;
+
+import com.backend.WhoSaidIt.DTOs.UploadJobDTO;
+import com.backend.WhoSaidIt.DTOs.UploadStatisticsDTO;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class UploadJob {
+    // Describes a single group chat upload and tracks its progress.
+    // Progress fields are written by the upload worker and read by status requests, so they are atomic/volatile.
+
+    private final UUID id = UUID.randomUUID();
+    private final long userId;
+    private final String groupChatName;
+    private final String fileName;
+    private final long totalBytes;
+    private final int minCharacters;
+    private final boolean append; // Whether the messages are appended to an existing group chat
+
+    private final AtomicLong bytesParsed = new AtomicLong();
+    private final AtomicLong messagesWritten = new AtomicLong();
+    private String fileHash; // SHA-256 of the uploaded file, if known. Set before the job is queued.
+    private volatile UploadPhase phase = UploadPhase.QUEUED;
+    private volatile Long groupChatId;
+    private volatile String error;
+    private volatile Throwable failureCause; // The unexpected exception the job failed with, if any; never sent to clients
+    private volatile UploadStatisticsDTO statistics;
+    private volatile Instant finishedAt;
+
+    public UploadJob(long userId, String groupChatName, String fileName, long totalBytes, int minCharacters) {
+        this.userId = userId;
+        this.groupChatName = groupChatName;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.minCharacters = minCharacters;
+        this.append = false;
+    }
+
+    // Appends the messages of the file to an existing group chat
+    public UploadJob(
+            long userId, long groupChatId, String groupChatName, String fileName, long totalBytes, int minCharacters
+    ) {
+        this.userId = userId;
+        this.groupChatId = groupChatId;
+        this.groupChatName = groupChatName;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.minCharacters = minCharacters;
+        this.append = true;
+    }
+
+    public UUID getId() { return id; }
+
+    public long getUserId() { return userId; }
+
+    public String getGroupChatName() { return groupChatName; }
+
+    public String getFileName() { return fileName; }
+
+    public long getTotalBytes() { return totalBytes; }
+
+    public int getMinCharacters() { return minCharacters; }
+
+    public boolean isAppend() { return append; }
+
+    public String getFileHash() { return fileHash; }
+
+    public void setFileHash(String fileHash) { this.fileHash = fileHash; }
+
+    public AtomicLong getBytesParsed() { return bytesParsed; }
+
+    public UploadPhase getPhase() { return phase; }
+
+    public boolean isFinished() { return phase == UploadPhase.COMPLETED || phase == UploadPhase.FAILED; }
+
+    public void setPhase(UploadPhase phase) { this.phase = phase; }
+
+    public void setMessagesWritten(long messagesWritten) { this.messagesWritten.set(messagesWritten); }
+
+    public Long getGroupChatId() { return groupChatId; }
+
+    public void setGroupChatId(Long groupChatId) { this.groupChatId = groupChatId; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+
+    public void complete(UploadStatisticsDTO statistics) {
+        this.statistics = statistics;
+        this.messagesWritten.set(statistics.messagesWritten());
+        this.finishedAt = Instant.now();
+        this.phase = UploadPhase.COMPLETED;
+    }
+
+    public Throwable getFailureCause() { return failureCause; }
+
+    public void fail(String error) {
+        fail(error, null);
+    }
+
+    // Fails the job with a message for the client, keeping the exception that caused it for diagnosis
+    public void fail(String error, Throwable cause) {
+        this.error = error;
+        this.failureCause = cause;
+        if (!append) {
+            this.groupChatId = null; // The group chat was rolled back
+        }
+        this.finishedAt = Instant.now();
+        this.phase = UploadPhase.FAILED;
+    }
+
+    public UploadJobDTO toDTO() {
+        UploadPhase currentPhase = phase;
+        return new UploadJobDTO(
+                id,
+                currentPhase.name(),
+                totalBytes,
+                bytesParsed.get(),
+                messagesWritten.get(),
+                currentPhase == UploadPhase.COMPLETED ? groupChatId : null,
+                error,
+                statistics
+        );
+    }
+}
@@ -0,0 +1,9 @@
+package com.backend.WhoSaidIt.services.upload;
+
+public enum UploadPhase {
+    QUEUED,     // Waiting for a free upload worker
+    PARSING,    // Reading the file and writing messages to the database
+    COMMITTING, // All messages have been written; the transaction is being committed
+    COMPLETED,  // The group chat is committed and visible
+    FAILED      // The upload was rolled back; see the job's error
+}
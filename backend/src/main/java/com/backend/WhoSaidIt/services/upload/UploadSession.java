@@ -0,0 +1,90 @@
+package com.backend.WhoSaidIt.services.upload;
+
+import com.backend.WhoSaidIt.DTOs.UploadSessionDTO;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+public class UploadSession {
+    // Describes a resumable upload: a file of a known size that the client sends in fixed-size chunks, in any order.
+    // Chunk i is written to the spool file at offset i * chunkSize; only the last chunk may be shorter.
+    // Chunks are received concurrently, so the set of received chunks is guarded by the session's monitor.
+
+    private final UUID id = UUID.randomUUID();
+    private final long userId;
+    private final String groupChatName;
+    private final String fileName;
+    private final int minCharacters;
+    private final long totalBytes;
+    private final int chunkSize;
+    private final int totalChunks;
+    private final Path spoolFile;
+
+    private final BitSet receivedChunks = new BitSet();
+    private boolean committed = false;
+    private volatile Instant lastActivity = Instant.now();
+
+    public UploadSession(
+            long userId, String groupChatName, String fileName, int minCharacters,
+            long totalBytes, int chunkSize, Path spoolFile
+    ) {
+        this.userId = userId;
+        this.groupChatName = groupChatName;
+        this.fileName = fileName;
+        this.minCharacters = minCharacters;
+        this.totalBytes = totalBytes;
+        this.chunkSize = chunkSize;
+        this.totalChunks = (int) ((totalBytes + chunkSize - 1) / chunkSize);
+        this.spoolFile = spoolFile;
+    }
+
+    public UUID getId() { return id; }
+
+    public long getUserId() { return userId; }
+
+    public String getGroupChatName() { return groupChatName; }
+
+    public String getFileName() { return fileName; }
+
+    public int getMinCharacters() { return minCharacters; }
+
+    public int getTotalChunks() { return totalChunks; }
+
+    public Path getSpoolFile() { return spoolFile; }
+
+    public Instant getLastActivity() { return lastActivity; }
+
+    public void touch() { lastActivity = Instant.now(); }
+
+    public long getChunkOffset(int chunkIndex) {
+        return (long) chunkIndex * chunkSize;
+    }
+
+    public long getChunkLength(int chunkIndex) {
+        return Math.min(chunkSize, totalBytes - getChunkOffset(chunkIndex));
+    }
+
+    public synchronized void markReceived(int chunkIndex) {
+        receivedChunks.set(chunkIndex);
+    }
+
+    public synchronized boolean isComplete() {
+        return receivedChunks.cardinality() == totalChunks;
+    }
+
+    public synchronized boolean isCommitted() { return committed; }
+
+    public synchronized void setCommitted(boolean committed) { this.committed = committed; }
+
+    public synchronized UploadSessionDTO toDTO() {
+        List<Integer> missingChunks = new ArrayList<>();
+        for (int i = receivedChunks.nextClearBit(0); i < totalChunks; i = receivedChunks.nextClearBit(i + 1)) {
+            missingChunks.add(i);
+        }
+        return new UploadSessionDTO(id, totalBytes, chunkSize, totalChunks, missingChunks);
+    }
+}
@@ -0,0 +1,30 @@
+package com.backend.WhoSaidIt.services.upload;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public final class ZipExports {
+    // WhatsApp's "Export chat" with media produces a .zip archive containing the chat as a text file (named "_chat.txt"
+    // on iOS and "WhatsApp Chat with <name>.txt" on Android) next to the media files.
+    // The archive is read as a stream, so the chat can be parsed while the rest of the archive is still arriving.
+
+    private ZipExports() {}
+
+    // Returns a stream over the chat text file of the archive. Entries before it (usually none) are skipped.
+    public static InputStream openChatEntry(InputStream archive) throws IOException {
+        ZipInputStream zip = new ZipInputStream(archive);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            // The chat is stored at the top level of the archive; media may be in subdirectories
+            String name = entry.getName();
+            if (!entry.isDirectory() && name.indexOf('/') == -1 && name.toLowerCase().endsWith(".txt")) {
+                return zip;
+            }
+        }
+        throw new BadFormatException("The archive does not contain a chat export.");
+    }
+}
@@ -0,0 +1,37 @@
+package com.backend.WhoSaidIt;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+public final class Benchmarks {
+    // A minimal timing harness for the *Benchmark classes. They are not picked up by the default test run (surefire
+    // only includes *Tests classes); run one explicitly, e.g.:
+    //     mvn test -Dtest=ParallelChatExportParserBenchmark
+    // Each measurement is warmed up first, and the median of the timed runs is reported.
+
+    private Benchmarks() {}
+
+    // Returns the median time of a run in nanoseconds. The task's result is returned to keep it from being optimized
+    // away, and is otherwise ignored.
+    public static long medianNanos(int warmupRuns, int timedRuns, Callable<?> task) throws Exception {
+        Object sink = null;
+        for (int i = 0; i < warmupRuns; i++) {
+            sink = task.call();
+        }
+        long[] times = new long[timedRuns];
+        for (int i = 0; i < timedRuns; i++) {
+            long start = System.nanoTime();
+            sink = task.call();
+            times[i] = System.nanoTime() - start;
+        }
+        if (sink == Benchmarks.class) {
+            System.out.print("");
+        }
+        Arrays.sort(times);
+        return times[timedRuns / 2];
+    }
+
+    public static void report(String name, long nanos, long operations, String unit) {
+        System.out.printf("%-48s %10.2f ms  %12.1f %s/s%n", name, nanos / 1e6, operations / (nanos / 1e9), unit);
+    }
+}
@@ -0,0 +1,60 @@
+package com.backend.WhoSaidIt.entities.quiz;
+
+import com.backend.WhoSaidIt.entities.Message;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuizTests {
+
+    // A quiz holding messages with the given ids, in order
+    private static Quiz quiz(long... messageIds) {
+        Quiz quiz = new TimeAttackQuiz();
+        for (long messageId : messageIds) {
+            Message message = new Message();
+            ReflectionTestUtils.setField(message, "id", messageId);
+            quiz.getMessagesInQuiz().add(message);
+        }
+        return quiz;
+    }
+
+    private static List<Long> ids(Quiz quiz) {
+        return quiz.getMessagesInQuiz().stream().map(Message::getId).toList();
+    }
+
+    @Test
+    void movesTheLastMessagesIntoTheGaps() {
+        Quiz quiz = quiz(1, 2, 3, 4, 5, 6);
+        Message fourth = quiz.getMessagesInQuiz().get(3);
+        assertEquals(2, quiz.removeMessages(Set.of(2L, 5L)));
+        assertEquals(List.of(1L, 6L, 3L, 4L), ids(quiz));
+        assertSame(fourth, quiz.getMessagesInQuiz().get(3)); // Messages before the last stay where they were
+    }
+
+    @Test
+    void removesMessagesWhoseReplacementIsAlsoRemoved() {
+        Quiz quiz = quiz(1, 2, 3, 4, 5);
+        assertEquals(3, quiz.removeMessages(Set.of(1L, 4L, 5L)));
+        assertEquals(List.of(3L, 2L), ids(quiz));
+    }
+
+    @Test
+    void removesEveryMessage() {
+        Quiz quiz = quiz(1, 2, 3);
+        assertEquals(3, quiz.removeMessages(Set.of(1L, 2L, 3L)));
+        assertTrue(quiz.getMessagesInQuiz().isEmpty());
+    }
+
+    @Test
+    void ignoresMessagesNotInTheQuiz() {
+        Quiz quiz = quiz(1, 2, 3);
+        assertEquals(0, quiz.removeMessages(Set.of(4L, 99L)));
+        assertEquals(List.of(1L, 2L, 3L), ids(quiz));
+    }
+}
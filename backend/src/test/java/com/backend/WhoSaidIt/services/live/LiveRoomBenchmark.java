@@ -0,0 +1,116 @@
+package com.backend.WhoSaidIt.services.live;
+
+import com.backend.WhoSaidIt.Benchmarks;
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.SendHandler;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LiveRoomBenchmark {
+    // Plays whole games in a live room against in-memory sockets, to measure the cost of the room's loop and fan-out
+    // without the network. Each socket completes its writes immediately and counts the frames it was sent.
+    // Every player joins, answers every question and sees every reveal; the room runs on a pool the size of the default
+    // app.play.live-worker-threads, while answers arrive from the benchmark thread.
+    //     mvn test -Dtest=LiveRoomBenchmark
+
+    private static final int PLAYERS = 2_000;
+    private static final int QUESTIONS = 50;
+    private static final int WORKER_THREADS = 4;
+    private static final int MAX_QUEUED_FRAMES = 16;
+
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder().findAndAddModules().build();
+    private static final List<ParticipantDTO> PARTICIPANTS = List.of(
+            new ParticipantDTO(1L, "Alice", 100),
+            new ParticipantDTO(2L, "Bob", 100),
+            new ParticipantDTO(3L, "Carol", 100)
+    );
+
+    @Test
+    void gameThroughput() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(WORKER_THREADS);
+        try {
+            // Host welcome, a welcome and a host progress frame per join; per question, the question to everyone, an
+            // acknowledgement and a host progress frame per answer, and the reveal to everyone; the end to everyone
+            long expectedFrames = 1 + 2L * PLAYERS + QUESTIONS * (4L * PLAYERS + 2) + (PLAYERS + 1);
+            assertEquals(expectedFrames, playGame(executor));
+
+            long nanos = Benchmarks.medianNanos(3, 7, () -> playGame(executor));
+            Benchmarks.report(PLAYERS + " players, " + QUESTIONS + " questions", nanos, expectedFrames, "frames");
+            System.out.printf("    per question: %.2f ms%n", nanos / 1e6 / QUESTIONS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Returns the number of frames sent
+    private static long playGame(ExecutorService executor) {
+        AtomicLong frames = new AtomicLong();
+        LiveRoom room = new LiveRoom(1L, UUID.randomUUID(), "host", PARTICIPANTS, PLAYERS, OBJECT_MAPPER, executor);
+        room.joinAsHost(connect("host", frames, executor));
+        List<LiveConnection> players = new ArrayList<>(PLAYERS);
+        for (int i = 0; i < PLAYERS; i++) {
+            LiveConnection connection = connect("player-" + i, frames, executor);
+            players.add(connection);
+            room.join(connection, "Player " + i, null);
+        }
+
+        for (int question = 0; question < QUESTIONS; question++) {
+            ParticipantDTO sender = PARTICIPANTS.get(question % PARTICIPANTS.size());
+            MessageDTO message = new MessageDTO(
+                    (long) question, sender, "Message number " + question + " of the benchmark game",
+                    LocalDateTime.of(2023, 1, 1, 12, 0).plusMinutes(question)
+            );
+            room.startQuestion(message).join();
+            for (int i = 0; i < PLAYERS; i++) {
+                room.answer(players.get(i), message.id(), PARTICIPANTS.get(i % PARTICIPANTS.size()).id());
+            }
+            room.reveal().join(); // Queued after the answers, so it completes once they are all recorded
+        }
+        room.close().join();
+        return frames.get();
+    }
+
+    private static LiveConnection connect(String id, AtomicLong frames, ExecutorService executor) {
+        RemoteEndpoint.Async remote = (RemoteEndpoint.Async) Proxy.newProxyInstance(
+                LiveRoomBenchmark.class.getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.Async.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendText") && args.length == 2) {
+                        frames.incrementAndGet();
+                        ((SendHandler) args[1]).onResult(new SendResult());
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+        );
+        Session session = (Session) Proxy.newProxyInstance(
+                LiveRoomBenchmark.class.getClassLoader(),
+                new Class<?>[]{Session.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getId" -> id;
+                    case "getAsyncRemote" -> remote;
+                    case "close" -> null;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                }
+        );
+        return new LiveConnection(session, MAX_QUEUED_FRAMES, executor);
+    }
+}
@@ -0,0 +1,55 @@
+package com.backend.WhoSaidIt.services.paging;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageCursorTests {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2023, 1, 1, 12, 0);
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodesWhatItEncodes() {
+        MessageDTO message = new MessageDTO(42L, new ParticipantDTO(1L, "Alice", 1), "Hi", NOON.plusNanos(123_000));
+        MessageCursor cursor = MessageCursor.of(message);
+        assertEquals(new MessageCursor(NOON.plusNanos(123_000), 42L), cursor);
+        assertEquals(cursor, MessageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decodesNullToNull() {
+        assertNull(MessageCursor.decode(null));
+    }
+
+    @Test
+    void rejectsStringsThatAreNotCursors() {
+        assertThrows(BadFormatException.class, () -> MessageCursor.decode("not a cursor!"));
+        assertThrows(BadFormatException.class, () -> MessageCursor.decode(base64("2023-01-01T12:00")));
+        assertThrows(BadFormatException.class, () -> MessageCursor.decode(base64("yesterday|42")));
+        assertThrows(BadFormatException.class, () -> MessageCursor.decode(base64("2023-01-01T12:00|forty-two")));
+    }
+
+    @Test
+    void ordersByTimestampThenId() {
+        MessageCursor cursor = new MessageCursor(NOON, 10L);
+        assertTrue(cursor.comparePosition(NOON.minusSeconds(1), 99L) < 0);
+        assertTrue(cursor.comparePosition(NOON, 9L) < 0);
+        assertEquals(0, cursor.comparePosition(NOON, 10L));
+        assertTrue(cursor.comparePosition(NOON, 11L) > 0);
+        assertTrue(cursor.comparePosition(NOON.plusSeconds(1), 1L) > 0);
+    }
+}
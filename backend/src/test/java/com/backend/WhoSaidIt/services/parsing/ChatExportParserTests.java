@@ -0,0 +1,145 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChatExportParserTests {
+
+    static ChatFormatDetector newDetector() {
+        ChatFormatDetector detector = new ChatFormatDetector(List.of(
+                new WhatsAppDashFormat(), new WhatsAppBracketFormat(), new WhatsAppIsoBracketFormat()
+        ));
+        ReflectionTestUtils.setField(detector, "sampleLines", 20);
+        return detector;
+    }
+
+    static List<ParsedMessage> parse(String export) throws IOException {
+        ChatExportParser parser = new ChatExportParser(new BufferedReader(new StringReader(export)), newDetector());
+        List<ParsedMessage> messages = new ArrayList<>();
+        ParsedMessage message;
+        while ((message = parser.next()) != null) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @Test
+    void parsesDashFormat() throws IOException {
+        List<ParsedMessage> messages = parse("""
+                1/2/23, 3:04 PM - Alice: Hello there
+                12/31/23, 11:59 AM - Bob Smith: Time: it flies
+                """);
+        assertEquals(List.of(
+                new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 4), "Alice", "Hello there"),
+                new ParsedMessage(LocalDateTime.of(2023, 12, 31, 11, 59), "Bob Smith", "Time: it flies")
+        ), messages);
+    }
+
+    @Test
+    void parsesBracketFormat() throws IOException {
+        List<ParsedMessage> messages = parse("""
+                [1/2/23, 3:04:59 PM] Alice: Hello there
+                [12/31/23, 12:00:00 AM] Bob: Happy new year
+                """);
+        assertEquals(List.of(
+                new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 4), "Alice", "Hello there"),
+                new ParsedMessage(LocalDateTime.of(2023, 12, 31, 0, 0), "Bob", "Happy new year")
+        ), messages);
+    }
+
+    @Test
+    void parsesIsoBracketFormat() throws IOException {
+        List<ParsedMessage> messages = parse("""
+                [2023-01-02, 3:04:05 PM] Alice: Hello there
+                [2024-02-29, 12:30:00 PM] Bob: Leap day
+                """);
+        assertEquals(List.of(
+                new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 4), "Alice", "Hello there"),
+                new ParsedMessage(LocalDateTime.of(2024, 2, 29, 12, 30), "Bob", "Leap day")
+        ), messages);
+    }
+
+    @Test
+    void acceptsNarrowNoBreakSpaceBeforeMeridiem() throws IOException {
+        List<ParsedMessage> messages = parse("[1/2/23, 3:04:05 PM] Alice: Hello\n");
+        assertEquals(List.of(new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 4), "Alice", "Hello")), messages);
+    }
+
+    @Test
+    void joinsContinuationLines() throws IOException {
+        List<ParsedMessage> messages = parse("""
+                1/2/23, 3:04 PM - Alice: First line
+                second line
+
+                fourth line after a blank one
+                1/2/23, 3:05 PM - Bob: Reply
+                """);
+        assertEquals(2, messages.size());
+        assertEquals("First line\nsecond line\n\nfourth line after a blank one", messages.get(0).content());
+        assertEquals("Reply", messages.get(1).content());
+    }
+
+    @Test
+    void stripsByteOrderMarkAndSkipsMarkedLines() throws IOException {
+        List<ParsedMessage> messages = parse(
+                "﻿[1/2/23, 3:04:05 PM] Alice: Hello\n"
+                        + "‎[1/2/23, 3:04:30 PM] Bob: ‎image omitted\n"
+                        + "[1/2/23, 3:05:00 PM] Bob: Hi\n"
+        );
+        assertEquals(List.of(
+                new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 4), "Alice", "Hello"),
+                new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 5), "Bob", "Hi")
+        ), messages);
+    }
+
+    @Test
+    void systemNoticesEndTheCurrentMessage() throws IOException {
+        List<ParsedMessage> messages = parse("""
+                1/2/23, 3:04 PM - Messages and calls are end-to-end encrypted.
+                1/2/23, 3:04 PM - Alice: Hello
+                1/2/23, 3:05 PM - Bob added Carol
+                this line follows a notice and is dropped
+                1/2/23, 3:06 PM - Carol: Hi all
+                """);
+        assertEquals(List.of(
+                new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 4), "Alice", "Hello"),
+                new ParsedMessage(LocalDateTime.of(2023, 1, 2, 15, 6), "Carol", "Hi all")
+        ), messages);
+    }
+
+    @Test
+    void treatsInvalidDatesAsNotices() throws IOException {
+        List<ParsedMessage> messages = parse("""
+                1/2/23, 3:04 PM - Alice: Hello
+                13/2/23, 3:05 PM - Bob: Not a date
+                1/2/23, 3:06 PM - Carol: Hi
+                """);
+        assertEquals(List.of("Alice", "Carol"), messages.stream().map(ParsedMessage::sender).toList());
+    }
+
+    @Test
+    void cleansAndDropsContent() throws IOException {
+        List<ParsedMessage> messages = parse("""
+                1/2/23, 3:04 PM - Alice: <Media omitted>
+                1/2/23, 3:05 PM - Bob: see https://example.com/a?b=1. @15551234567 <This message was edited>
+                """);
+        assertEquals(1, messages.size());
+        assertEquals("see .  ", messages.get(0).content());
+    }
+
+    @Test
+    void rejectsUnrecognizedExports() {
+        assertThrows(BadFormatException.class, () -> parse("just some text\nnot a chat\n"));
+    }
+}
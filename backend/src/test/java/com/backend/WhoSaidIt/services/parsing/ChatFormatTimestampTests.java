@@ -0,0 +1,113 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChatFormatTimestampTests {
+    // The fast-path timestamp decoders must agree with parsing the same text with a DateTimeFormatter (the decoding
+    // used before they were added), including for out-of-range fields that take the fallback path.
+
+    private static final DateTimeFormatter US = DateTimeFormatter.ofPattern("M/d/yy, h:mm a", Locale.US);
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd, h:mm a", Locale.US);
+
+    private static final String[] US_DATES = {
+            "1/2/23", "01/02/23", "12/31/99", "2/29/24", "2/29/23", "2/30/24", "4/31/23", "13/1/23", "0/1/23",
+            "1/0/23", "1/32/23", "1/2/3"
+    };
+    private static final String[] ISO_DATES = {
+            "2023-01-02", "2024-02-29", "2023-02-29", "2023-04-31", "2023-13-01", "2023-1-2", "2023-00-10", "1999-12-31"
+    };
+    private static final String[] TIMES = { "12:00", "12:59", "1:05", "01:05", "11:30", "13:00", "0:15", "3:60", "3:7" };
+
+    @Test
+    void dashFormatMatchesFormatter() {
+        ChatFormat format = new WhatsAppDashFormat();
+        for (String date : US_DATES) {
+            for (String time : TIMES) {
+                for (String meridiem : List.of(" AM", " PM")) {
+                    String timestamp = date + ", " + time + meridiem;
+                    assertMatchesFormatter(format, timestamp + " - Alice: Hi", timestamp, US);
+                }
+            }
+        }
+    }
+
+    @Test
+    void bracketFormatMatchesFormatter() {
+        ChatFormat format = new WhatsAppBracketFormat();
+        for (String date : US_DATES) {
+            for (String time : TIMES) {
+                for (String meridiem : List.of(" AM", " PM")) {
+                    String line = "[" + date + ", " + time + ":42" + meridiem + "] Alice: Hi";
+                    assertMatchesFormatter(format, line, date + ", " + time + meridiem, US);
+                }
+            }
+        }
+    }
+
+    @Test
+    void isoBracketFormatMatchesFormatter() {
+        ChatFormat format = new WhatsAppIsoBracketFormat();
+        for (String date : ISO_DATES) {
+            for (String time : TIMES) {
+                for (String meridiem : List.of(" AM", " PM")) {
+                    String line = "[" + date + ", " + time + ":07" + meridiem + "] Alice: Hi";
+                    assertMatchesFormatter(format, line, date + ", " + time + meridiem, ISO);
+                }
+            }
+        }
+    }
+
+    @Test
+    void randomTimestampsMatchFormatter() {
+        Random random = new Random(42);
+        ChatFormat dash = new WhatsAppDashFormat();
+        ChatFormat bracket = new WhatsAppBracketFormat();
+        ChatFormat isoBracket = new WhatsAppIsoBracketFormat();
+        DateTimeFormatter usWithSeconds = DateTimeFormatter.ofPattern("M/d/yy, h:mm:ss a", Locale.US);
+        DateTimeFormatter isoWithSeconds = DateTimeFormatter.ofPattern("yyyy-MM-dd, h:mm:ss a", Locale.US);
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime timestamp = LocalDateTime.of(2000, 1, 1, 0, 0)
+                    .plusMinutes(random.nextInt(100 * 365 * 24 * 60))
+                    .plusSeconds(random.nextInt(60));
+            long expected = timestamp.withSecond(0).toEpochSecond(ZoneOffset.UTC) / 60;
+
+            String dashLine = US.format(timestamp) + " - Alice: Hi";
+            assertEquals(expected, decode(dash, dashLine), dashLine);
+            String bracketLine = "[" + usWithSeconds.format(timestamp) + "] Alice: Hi";
+            assertEquals(expected, decode(bracket, bracketLine), bracketLine);
+            String isoLine = "[" + isoWithSeconds.format(timestamp) + "] Alice: Hi";
+            assertEquals(expected, decode(isoBracket, isoLine), isoLine);
+        }
+    }
+
+    private static void assertMatchesFormatter(ChatFormat format, String line, String timestamp, DateTimeFormatter formatter) {
+        if (format.scanPrefix(line) == -1) {
+            // Not a header in this format, so the decoder is never called; the formatter must not accept it either
+            assertEquals(ChatFormat.INVALID_TIMESTAMP, parse(timestamp, formatter), line);
+            return;
+        }
+        assertEquals(parse(timestamp, formatter), decode(format, line), line);
+    }
+
+    private static long decode(ChatFormat format, String line) {
+        return format.decodeTimestamp(line, format.scanPrefix(line));
+    }
+
+    private static long parse(String timestamp, DateTimeFormatter formatter) {
+        try {
+            return LocalDateTime.parse(timestamp, formatter).toEpochSecond(ZoneOffset.UTC) / 60;
+        } catch (DateTimeParseException e) {
+            return ChatFormat.INVALID_TIMESTAMP;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import com.backend.WhoSaidIt.Benchmarks;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MessageCleanerBenchmark {
+    // Compares MessageCleaner with the chain of String.replaceAll calls it replaced, on a mix of plain messages and
+    // messages with links, mentions and edit tags.
+    //     mvn test -Dtest=MessageCleanerBenchmark
+
+    private static final int MESSAGES = 200_000;
+
+    private static final MessageCleaner CLEANER = new MessageCleaner(List.of(
+            CleaningRule.removeUrls(),
+            CleaningRule.removeMentions(),
+            CleaningRule.remove("<This message was edited>")
+    ));
+
+    @Test
+    void cleanThroughput() throws Exception {
+        Random random = new Random(11);
+        String[] messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            StringBuilder message = new StringBuilder("Did you see what happened at the game yesterday, number ").append(i);
+            switch (random.nextInt(10)) {
+                case 0 -> message.append(" https://example.com/news/").append(i).append("?ref=chat.");
+                case 1 -> message.append(" @1555").append(1000000 + i).append(" what do you think");
+                case 2 -> message.append(" <This message was edited>");
+                default -> { } // Most messages have nothing to clean
+            }
+            messages[i] = message.toString();
+        }
+        assertEquals(cleanWithRegex(messages), cleanWithCleaner(messages));
+
+        long baseline = Benchmarks.medianNanos(5, 11, () -> cleanWithRegex(messages));
+        Benchmarks.report("String.replaceAll chain", baseline, MESSAGES, "messages");
+        long cleaner = Benchmarks.medianNanos(5, 11, () -> cleanWithCleaner(messages));
+        Benchmarks.report("MessageCleaner", cleaner, MESSAGES, "messages");
+        System.out.printf("    speedup: %.1fx%n", (double) baseline / cleaner);
+    }
+
+    // The cleaning done before MessageCleaner was added. Returns the total length of the cleaned messages.
+    private static long cleanWithRegex(String[] messages) {
+        long length = 0;
+        for (String message : messages) {
+            String cleaned = message.replaceAll("\\b(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]", "");
+            cleaned = cleaned.replaceAll("@\\d+", "");
+            cleaned = cleaned.replaceAll("<This message was edited>", "");
+            length += cleaned.length();
+        }
+        return length;
+    }
+
+    private static long cleanWithCleaner(String[] messages) {
+        long length = 0;
+        for (String message : messages) {
+            length += CLEANER.clean(message).length();
+        }
+        return length;
+    }
+}
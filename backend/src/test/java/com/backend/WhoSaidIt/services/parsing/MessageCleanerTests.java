@@ -0,0 +1,64 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MessageCleanerTests {
+
+    // The regular expressions the cleaner replaced
+    private static final Pattern URL = Pattern.compile("\\b(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]");
+    private static final Pattern MENTION = Pattern.compile("@\\d+");
+
+    private static final MessageCleaner CLEANER = new MessageCleaner(List.of(
+            CleaningRule.removeUrls(),
+            CleaningRule.removeMentions(),
+            CleaningRule.remove("<This message was edited>"),
+            CleaningRule.dropIfEquals("<Media omitted>")
+    ));
+
+    @Test
+    void returnsUnchangedContentWithoutCopying() {
+        String content = "Nothing to clean here, not even an @ or http:";
+        assertSame(content, CLEANER.clean(content));
+    }
+
+    @Test
+    void dropsPlaceholders() {
+        assertNull(CLEANER.clean("<Media omitted>"));
+        assertEquals("Not <Media omitted>", CLEANER.clean("Not <Media omitted>"));
+    }
+
+    @Test
+    void matchesRegexBaseline() {
+        String[] contents = {
+                "see https://example.com/path?query=1.",
+                "(http://example.com), and ftp://files.example.com/a.txt!",
+                "nohttp://example.com is not a link",
+                "file:///tmp/x and https:// alone",
+                "hey @15551234567 and @ and @abc",
+                "edited <This message was edited>",
+                "mixed @1 https://a.b/c?d=e&f=g#h; end",
+                "üñíçødé https://例え.jp/ text",
+        };
+        for (String content : contents) {
+            String expected = MENTION.matcher(URL.matcher(content).replaceAll("")).replaceAll("")
+                    .replace("<This message was edited>", "");
+            assertEquals(expected, CLEANER.clean(content), content);
+        }
+    }
+
+    @Test
+    void earlierRulesWinAtTheSamePosition() {
+        MessageCleaner cleaner = new MessageCleaner(List.of(
+                CleaningRule.replace("ab", "1"),
+                CleaningRule.replace("abc", "2")
+        ));
+        assertEquals("1c", cleaner.clean("abc"));
+    }
+}
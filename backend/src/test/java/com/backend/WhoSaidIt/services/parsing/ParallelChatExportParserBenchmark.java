@@ -0,0 +1,88 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import com.backend.WhoSaidIt.Benchmarks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ParallelChatExportParserBenchmark {
+    // Compares the sequential parser with the parallel parser at increasing parallelism on a generated export.
+    // Only parsing and cleaning are parallel: format detection, stitching messages across chunks and the consumer
+    // (in production, the database writes) run on the calling thread, so the speedup of a whole upload is lower.
+    //     mvn test -Dtest=ParallelChatExportParserBenchmark
+
+    private static final int MESSAGES = 1_000_000;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parseThroughput() throws Exception {
+        Path file = writeExport(directory.resolve("export.txt"));
+        long bytes = Files.size(file);
+        ChatFormatDetector detector = ChatExportParserTests.newDetector();
+        System.out.printf("Export: %d messages, %.1f MB, %d available processors%n",
+                MESSAGES, bytes / 1e6, Runtime.getRuntime().availableProcessors());
+
+        long sequential = Benchmarks.medianNanos(2, 5, () -> {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                ChatExportParser parser = new ChatExportParser(reader, detector);
+                long count = 0;
+                while (parser.next() != null) {
+                    count++;
+                }
+                return count;
+            }
+        });
+        Benchmarks.report("ChatExportParser", sequential, bytes, "bytes");
+
+        Set<Integer> parallelisms = new LinkedHashSet<>();
+        for (int parallelism = 1; parallelism <= Runtime.getRuntime().availableProcessors(); parallelism *= 2) {
+            parallelisms.add(parallelism);
+        }
+        parallelisms.add(Runtime.getRuntime().availableProcessors());
+        for (int parallelism : parallelisms) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                ParallelChatExportParser parser = new ParallelChatExportParser(file, detector, pool, CHUNK_SIZE);
+                long nanos = Benchmarks.medianNanos(2, 5, () -> {
+                    AtomicLong count = new AtomicLong();
+                    parser.parse(message -> count.incrementAndGet(), new AtomicLong());
+                    return count.get();
+                });
+                Benchmarks.report("ParallelChatExportParser, parallelism " + parallelism, nanos, bytes, "bytes");
+                System.out.printf("    speedup over sequential: %.2fx%n", (double) sequential / nanos);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static Path writeExport(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < MESSAGES; i++) {
+                int minute = i / 20;
+                writer.write(String.format("%d/%d/23, %d:%02d PM - Person %d: message number %d, see https://example.com/%d",
+                        1 + minute / (12 * 60 * 28) % 12, 1 + minute / (12 * 60) % 28, 1 + minute / 60 % 12, minute % 60,
+                        i % 13, i, i));
+                writer.newLine();
+                if (i % 5 == 0) {
+                    writer.write("a continuation line of the previous message");
+                    writer.newLine();
+                }
+            }
+        }
+        return file;
+    }
+}
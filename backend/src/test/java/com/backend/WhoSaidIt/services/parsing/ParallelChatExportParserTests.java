@@ -0,0 +1,86 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelChatExportParserTests {
+
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void joinsMessagesSplitAcrossChunks() throws IOException {
+        String export = """
+                1/2/23, 3:04 PM - Alice: First line
+                second line
+                third line
+                fourth line
+                1/2/23, 3:05 PM - Bob: Short
+                1/2/23, 3:06 PM - Carol: <Media omitted>
+                1/2/23, 3:07 PM - Dave: Ends the file
+                and continues
+                """;
+        List<ParsedMessage> sequential = ChatExportParserTests.parse(export);
+        assertEquals(3, sequential.size()); // Carol's placeholder is dropped
+        assertEquals("First line\nsecond line\nthird line\nfourth line", sequential.get(0).content());
+
+        // Every chunk size from one line per chunk up to the whole file
+        for (int chunkSize = 1; chunkSize <= export.length(); chunkSize++) {
+            assertEquals(sequential, parseInParallel(export, chunkSize), "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void matchesSequentialParserOnLargeExport() throws IOException {
+        StringBuilder export = new StringBuilder("﻿");
+        for (int i = 0; i < 5000; i++) {
+            export.append("[1/2/23, 3:").append(String.format("%02d", i % 60)).append(":00 PM] Person ").append(i % 7)
+                    .append(": message ").append(i).append(" https://example.com/").append(i).append('\n');
+            if (i % 3 == 0) {
+                export.append("continued ").append(i).append('\n');
+            }
+            if (i % 50 == 0) {
+                export.append("‎[1/2/23, 3:00:00 PM] Person 1: ‎image omitted\n");
+            }
+        }
+        List<ParsedMessage> sequential = ChatExportParserTests.parse(export.toString());
+        assertEquals(sequential, parseInParallel(export.toString(), 4096));
+    }
+
+    private List<ParsedMessage> parseInParallel(String export, int chunkSize) throws IOException {
+        Path file = Files.writeString(directory.resolve("export.txt"), export, StandardCharsets.UTF_8);
+        ParallelChatExportParser parser = new ParallelChatExportParser(
+                file, ChatExportParserTests.newDetector(), pool, chunkSize
+        );
+        List<ParsedMessage> messages = new ArrayList<>();
+        AtomicLong bytesParsed = new AtomicLong();
+        parser.parse(messages::add, bytesParsed);
+        assertEquals(Files.size(file), bytesParsed.get());
+        return messages;
+    }
+}
@@ -0,0 +1,66 @@
+package com.backend.WhoSaidIt.services.parsing;
+
+import com.backend.WhoSaidIt.Benchmarks;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimestampDecodingBenchmark {
+    // Compares decoding header timestamps with the format's fast path against the regex and DateTimeFormatter baseline
+    // it replaced (match the header with a regex, then parse the captured timestamp with the formatter).
+    //     mvn test -Dtest=TimestampDecodingBenchmark
+
+    private static final int LINES = 200_000;
+
+    // The header pattern of the dash format before the fast path was added
+    private static final Pattern DASH_HEADER = Pattern.compile("^\\d{1,2}/\\d{1,2}/\\d{1,2}, \\d{1,2}:\\d{1,2}[ \\u202F](AM|PM) - .*:.*$");
+    private static final DateTimeFormatter US = DateTimeFormatter.ofPattern("M/d/yy, h:mm a", Locale.US);
+
+    @Test
+    void decodeThroughput() throws Exception {
+        Random random = new Random(7);
+        String[] lines = new String[LINES];
+        for (int i = 0; i < LINES; i++) {
+            LocalDateTime timestamp = LocalDateTime.of(2015, 1, 1, 0, 0).plusMinutes(random.nextInt(10 * 365 * 24 * 60));
+            lines[i] = US.format(timestamp) + " - Person " + (i % 9) + ": message " + i;
+        }
+        ChatFormat format = new WhatsAppDashFormat();
+        assertEquals(decodeWithBaseline(lines), decodeWithFormat(format, lines));
+
+        long baseline = Benchmarks.medianNanos(5, 11, () -> decodeWithBaseline(lines));
+        Benchmarks.report("Regex + DateTimeFormatter", baseline, LINES, "lines");
+        long fastPath = Benchmarks.medianNanos(5, 11, () -> decodeWithFormat(format, lines));
+        Benchmarks.report("ChatFormat.scanPrefix + decodeTimestamp", fastPath, LINES, "lines");
+        System.out.printf("    speedup: %.1fx%n", (double) baseline / fastPath);
+    }
+
+    // Returns the sum of the decoded epoch minutes, so the two decoders can be compared and neither is optimized away
+    private static long decodeWithBaseline(String[] lines) {
+        long sum = 0;
+        for (String line : lines) {
+            if (DASH_HEADER.matcher(line).matches()) {
+                String timestamp = line.substring(0, line.indexOf(" - "));
+                sum += LocalDateTime.parse(timestamp, US).toEpochSecond(ZoneOffset.UTC) / 60;
+            }
+        }
+        return sum;
+    }
+
+    private static long decodeWithFormat(ChatFormat format, String[] lines) {
+        long sum = 0;
+        for (String line : lines) {
+            int senderStart = format.scanPrefix(line);
+            if (senderStart != -1) {
+                sum += format.decodeTimestamp(line, senderStart);
+            }
+        }
+        return sum;
+    }
+}
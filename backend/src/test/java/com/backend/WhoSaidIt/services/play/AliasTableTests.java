@@ -0,0 +1,34 @@
+package com.backend.WhoSaidIt.services.play;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AliasTableTests {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void samplesInProportionToTheWeights() {
+        double[] weights = {1, 2, 0, 7, 0.5};
+        AliasTable table = new AliasTable(weights);
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[table.sample()]++;
+        }
+
+        double total = 10.5;
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i] / total, (double) counts[i] / SAMPLES, 0.01, "index " + i);
+        }
+        assertEquals(0, counts[2]);
+    }
+
+    @Test
+    void samplesTheOnlyPositiveWeight() {
+        AliasTable table = new AliasTable(new double[]{0, 0, 3, 0});
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(2, table.sample());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExclusionBitmapsTests {
+
+    @Test
+    void decodesWhatItEncodes() {
+        RoaringBitmap bitmap = RoaringBitmap.bitmapOf(0, 1, 2, 3, 17, 1_000, 65_536, 100_000);
+        bitmap.add(200_000L, 201_000L);
+        assertEquals(bitmap, ExclusionBitmaps.decode(ExclusionBitmaps.encode(bitmap)));
+    }
+
+    @Test
+    void decodesNothingToAnEmptySet() {
+        assertTrue(ExclusionBitmaps.decode(null).isEmpty());
+        assertTrue(ExclusionBitmaps.decode("").isEmpty());
+    }
+
+    @Test
+    void rejectsStringsThatAreNotBitmaps() {
+        assertThrows(BadFormatException.class, () -> ExclusionBitmaps.decode("not a bitmap!"));
+        assertThrows(BadFormatException.class, () -> ExclusionBitmaps.decode("AAAA"));
+    }
+
+    @Test
+    void picksEveryFreeOrdinalAndNoExcludedOne() {
+        RoaringBitmap excluded = RoaringBitmap.bitmapOf(10, 12, 13, 15, 19);
+        excluded.add(0L, 10L); // Outside the range
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            int ordinal = ExclusionBitmaps.pickUnexcluded(excluded, 10, 20);
+            assertFalse(excluded.contains(ordinal));
+            assertTrue(ordinal >= 10 && ordinal < 20);
+            picked.add(ordinal);
+        }
+        assertEquals(Set.of(11, 14, 16, 17, 18), picked);
+    }
+
+    @Test
+    void picksNothingWhenEveryOrdinalIsExcluded() {
+        RoaringBitmap excluded = new RoaringBitmap();
+        excluded.add(0L, 50L);
+        assertEquals(-1, ExclusionBitmaps.pickUnexcluded(excluded, 0, 50));
+        assertEquals(-1, ExclusionBitmaps.pickUnexcluded(new RoaringBitmap(), 5, 5));
+    }
+
+    @Test
+    void picksTheOnlyFreeOrdinal() {
+        RoaringBitmap excluded = new RoaringBitmap();
+        excluded.add(0L, 1_000_000L);
+        excluded.remove(654_321);
+        assertEquals(654_321, ExclusionBitmaps.pickUnexcluded(excluded, 0, 1_000_000));
+    }
+}
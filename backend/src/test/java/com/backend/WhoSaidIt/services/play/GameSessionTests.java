@@ -0,0 +1,111 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GameSessionTests {
+
+    private static final Duration REVEAL_WINDOW = Duration.ofMillis(2500);
+    private static final ParticipantDTO ALICE = new ParticipantDTO(1L, "Alice", 10);
+    private static final ParticipantDTO BOB = new ParticipantDTO(2L, "Bob", 10);
+
+    // A clock that only moves when told to
+    private static class TestClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+        void advance(Duration duration) { now = now.plus(duration); }
+
+        @Override
+        public ZoneId getZone() { return ZoneOffset.UTC; }
+
+        @Override
+        public Clock withZone(ZoneId zone) { return this; }
+
+        @Override
+        public Instant instant() { return now; }
+    }
+
+    private static MessageDTO message(long id, ParticipantDTO sender) {
+        return new MessageDTO(id, sender, "Message " + id, LocalDateTime.of(2023, 1, 1, 12, 0));
+    }
+
+    // 1000 points, less 100 per whole second, at least 150; a wrong answer loses 200
+    private static GameSession timeAttack(TestClock clock) {
+        return GameSession.timeAttack(1L, UUID.randomUUID(), 10, 1000, 100, 200, clock);
+    }
+
+    @Test
+    void scoresQuestionsByWholeSecondsTaken() {
+        GameSession game = timeAttack(new TestClock());
+        assertEquals(1000, game.questionScore(0));
+        assertEquals(900, game.questionScore(1));
+        assertEquals(300, game.questionScore(7));
+        assertEquals(GameSession.MIN_QUESTION_SCORE, game.questionScore(9));
+        assertEquals(GameSession.MIN_QUESTION_SCORE, game.questionScore(60));
+    }
+
+    @Test
+    void firstQuestionClockStartsWhenDealt() {
+        TestClock clock = new TestClock();
+        GameSession game = timeAttack(clock);
+        game.startQuestion(message(1, ALICE), Duration.ZERO);
+        clock.advance(Duration.ofMillis(2900));
+        assertEquals(800, game.answer(ALICE.id()));
+        assertEquals(800, game.getScore());
+    }
+
+    @Test
+    void nextQuestionClockStartsWhenShown() {
+        TestClock clock = new TestClock();
+        GameSession game = timeAttack(clock);
+        game.startQuestion(message(2, BOB), REVEAL_WINDOW);
+        clock.advance(Duration.ofMillis(2000)); // The client reveals the previous answer
+        game.showQuestion();
+        clock.advance(Duration.ofMillis(1500));
+        assertEquals(900, game.answer(BOB.id()));
+    }
+
+    @Test
+    void nextQuestionClockStartsAfterTheRevealWindowIfNeverShown() {
+        TestClock clock = new TestClock();
+        GameSession game = timeAttack(clock);
+        game.startQuestion(message(2, BOB), REVEAL_WINDOW);
+        clock.advance(REVEAL_WINDOW.plusSeconds(3));
+        assertEquals(700, game.answer(BOB.id()));
+
+        // Showing the question late does not give the time back
+        game.startQuestion(message(3, ALICE), REVEAL_WINDOW);
+        clock.advance(REVEAL_WINDOW.plusSeconds(2));
+        game.showQuestion();
+        assertEquals(800, game.answer(ALICE.id()));
+    }
+
+    @Test
+    void answeringBeforeTheRevealWindowEndsLosesNothing() {
+        TestClock clock = new TestClock();
+        GameSession game = timeAttack(clock);
+        game.startQuestion(message(2, BOB), REVEAL_WINDOW);
+        clock.advance(Duration.ofMillis(500));
+        assertEquals(1000, game.answer(BOB.id()));
+    }
+
+    @Test
+    void wrongAnswersArePenalized() {
+        TestClock clock = new TestClock();
+        GameSession game = timeAttack(clock);
+        game.startQuestion(message(1, ALICE), Duration.ZERO);
+        assertEquals(-200, game.answer(BOB.id()));
+        assertEquals(-200, game.getScore());
+    }
+}
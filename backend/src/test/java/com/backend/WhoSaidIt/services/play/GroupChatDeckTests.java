@@ -0,0 +1,37 @@
+package com.backend.WhoSaidIt.services.play;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupChatDeckTests {
+
+    @Test
+    void dealsEveryMessageOutsideTheQuizOnce() {
+        List<GroupChatIds> chats = List.of(
+                new GroupChatIds(1, 0, new long[]{5, 1, 3, 9}),
+                new GroupChatIds(2, 0, new long[]{}),
+                new GroupChatIds(3, 0, new long[]{20, 11, 14})
+        );
+        GroupChatDeck deck = new GroupChatDeck(chats, new long[]{3, 14, 99});
+
+        Set<Long> dealt = new HashSet<>();
+        while (deck.hasNext()) {
+            assertTrue(dealt.add(deck.next()));
+        }
+        assertEquals(Set.of(1L, 5L, 9L, 11L, 20L), dealt);
+        assertEquals(5, deck.dealt());
+    }
+
+    @Test
+    void isEmptyWhenTheQuizHoldsEveryMessage() {
+        GroupChatDeck deck = new GroupChatDeck(List.of(new GroupChatIds(1, 0, new long[]{2, 4})), new long[]{2, 4});
+        assertFalse(deck.hasNext());
+    }
+}
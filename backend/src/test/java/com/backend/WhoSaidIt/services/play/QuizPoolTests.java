@@ -0,0 +1,90 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.services.paging.MessageCursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuizPoolTests {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2023, 1, 1, 12, 0);
+    private static final ParticipantDTO ALICE = new ParticipantDTO(1L, "Alice", 4);
+    private static final ParticipantDTO BOB = new ParticipantDTO(2L, "Bob", 3);
+
+    // In (timestamp, id) order, the messages are 4, 2, 5, 7, 1, 6, 3; 2, 5 and 7 share a timestamp, as do 1 and 6
+    private static final QuizPool POOL = new QuizPool(1L, new long[]{1L}, new int[]{7}, List.of(
+            message(1, ALICE, 2),
+            message(2, BOB, 1),
+            message(3, ALICE, 3),
+            message(4, BOB, 0),
+            message(5, ALICE, 1),
+            message(6, BOB, 2),
+            message(7, ALICE, 1)
+    ));
+
+    private static MessageDTO message(long id, ParticipantDTO sender, int minutes) {
+        return new MessageDTO(id, sender, "Message " + id, NOON.plusMinutes(minutes));
+    }
+
+    private static List<Long> ids(List<MessageDTO> messages) {
+        return messages.stream().map(MessageDTO::id).toList();
+    }
+
+    // Follows the cursors from one end of the pool to the other, a page of the given size at a time
+    private static List<Long> pageThrough(boolean after, Long participantId, int limit) {
+        List<Long> seen = new ArrayList<>();
+        MessageCursor cursor = null;
+        while (true) {
+            List<MessageDTO> page = POOL.seekByTimestamp(cursor, after, participantId, limit);
+            assertTrue(page.size() <= limit);
+            if (page.isEmpty()) {
+                return seen;
+            }
+            seen.addAll(ids(page));
+            cursor = MessageCursor.of(page.get(page.size() - 1));
+        }
+    }
+
+    @Test
+    void pagesForwardThroughEqualTimestampsWithoutSkipsOrRepeats() {
+        for (int limit = 1; limit <= 8; limit++) {
+            assertEquals(List.of(4L, 2L, 5L, 7L, 1L, 6L, 3L), pageThrough(true, null, limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void pagesBackwardThroughEqualTimestampsWithoutSkipsOrRepeats() {
+        for (int limit = 1; limit <= 8; limit++) {
+            assertEquals(List.of(3L, 6L, 1L, 7L, 5L, 2L, 4L), pageThrough(false, null, limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void pagesThroughOneParticipantsMessages() {
+        assertEquals(List.of(5L, 7L, 1L, 3L), pageThrough(true, ALICE.id(), 1));
+        assertEquals(List.of(6L, 2L, 4L), pageThrough(false, BOB.id(), 2));
+    }
+
+    @Test
+    void seeksFromACursorBetweenMessages() {
+        // Between messages 5 and 7, which share a timestamp
+        MessageCursor cursor = new MessageCursor(NOON.plusMinutes(1), 6L);
+        assertEquals(List.of(7L, 1L), ids(POOL.seekByTimestamp(cursor, true, null, 2)));
+        assertEquals(List.of(5L, 2L, 4L), ids(POOL.seekByTimestamp(cursor, false, null, 10)));
+    }
+
+    @Test
+    void seeksNothingPastEitherEnd() {
+        MessageCursor last = MessageCursor.of(message(3, ALICE, 3));
+        MessageCursor first = MessageCursor.of(message(4, BOB, 0));
+        assertTrue(POOL.seekByTimestamp(last, true, null, 5).isEmpty());
+        assertTrue(POOL.seekByTimestamp(first, false, null, 5).isEmpty());
+    }
+}
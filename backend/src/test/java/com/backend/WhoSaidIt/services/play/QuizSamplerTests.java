@@ -0,0 +1,110 @@
+package com.backend.WhoSaidIt.services.play;
+
+import com.backend.WhoSaidIt.DTOs.MessageDTO;
+import com.backend.WhoSaidIt.DTOs.ParticipantDTO;
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QuizSamplerTests {
+
+    private static final int SAMPLES = 100_000;
+    private static final ParticipantDTO ALICE = new ParticipantDTO(1L, "Alice", 1);
+    private static final ParticipantDTO BOB = new ParticipantDTO(2L, "Bob", 9);
+
+    // Alice sent message 1 and Bob messages 2 to 10, so Alice's message is ordinal 0 and Bob's are ordinals 1 to 9
+    private static QuizSampler sampler() {
+        List<MessageDTO> messages = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            messages.add(new MessageDTO(id, id == 1 ? ALICE : BOB, "Message " + id, LocalDateTime.of(2023, 1, 1, 12, 0)));
+        }
+        return new QuizSampler(new QuizPool(1L, new long[]{1L}, new int[]{10}, messages));
+    }
+
+    // The share of samples that picked Alice's message
+    private static double aliceShare(QuizSampler sampler, Map<Long, Double> weights) {
+        RoaringBitmap excluded = new RoaringBitmap();
+        int alice = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            int ordinal = weights == null ? sampler.sampleBalanced(excluded) : sampler.sampleWeighted(excluded, weights);
+            if (ordinal == 0) {
+                alice++;
+            }
+        }
+        return (double) alice / SAMPLES;
+    }
+
+    @Test
+    void balancedSamplingPicksEachParticipantEqually() {
+        assertEquals(0.5, aliceShare(sampler(), null), 0.01);
+    }
+
+    @Test
+    void weightedSamplingPicksParticipantsInProportionToTheirWeights() {
+        QuizSampler sampler = sampler();
+        assertEquals(0.75, aliceShare(sampler, Map.of(1L, 3.0)), 0.01);
+        assertEquals(0.0, aliceShare(sampler, Map.of(1L, 0.0)));
+        assertEquals(0.5, aliceShare(sampler, Map.of(99L, 5.0)), 0.01); // Not a sender in the quiz
+    }
+
+    @Test
+    void skipsExcludedMessages() {
+        QuizSampler sampler = sampler();
+        RoaringBitmap excluded = RoaringBitmap.bitmapOf(0, 2, 4);
+        for (int i = 0; i < 1_000; i++) {
+            int ordinal = sampler.sampleBalanced(excluded);
+            assertNotEquals(-1, ordinal);
+            assertFalse(excluded.contains(ordinal));
+        }
+    }
+
+    @Test
+    void findsTheLastMessageOnceMostSamplesAreRejected() {
+        QuizSampler sampler = sampler();
+        RoaringBitmap excluded = new RoaringBitmap();
+        excluded.add(0L, 10L);
+        excluded.remove(7);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(7, sampler.sampleBalanced(excluded));
+            assertEquals(7, sampler.sampleWeighted(excluded, Map.of(1L, 100.0)));
+        }
+        excluded.add(7);
+        assertEquals(-1, sampler.sampleBalanced(excluded));
+    }
+
+    @Test
+    void findsNothingWhenOnlyParticipantsWithoutWeightHaveMessagesLeft() {
+        QuizSampler sampler = sampler();
+        RoaringBitmap excluded = new RoaringBitmap();
+        excluded.add(1L, 10L);
+        assertEquals(-1, sampler.sampleWeighted(excluded, Map.of(1L, 0.0, 2L, 1.0)));
+        assertEquals(-1, sampler.sampleWeighted(new RoaringBitmap(), Map.of(1L, 0.0, 2L, 0.0)));
+    }
+
+    @Test
+    void rejectsInvalidWeights() {
+        QuizSampler sampler = sampler();
+        assertThrows(BadFormatException.class, () -> sampler.sampleWeighted(new RoaringBitmap(), Map.of(1L, -1.0)));
+        assertThrows(BadFormatException.class, () -> sampler.sampleWeighted(new RoaringBitmap(), Map.of(1L, Double.NaN)));
+        assertThrows(
+                BadFormatException.class,
+                () -> sampler.sampleWeighted(new RoaringBitmap(), Map.of(1L, Double.POSITIVE_INFINITY))
+        );
+    }
+
+    @Test
+    void findsNothingInAnEmptyPool() {
+        QuizSampler sampler = new QuizSampler(new QuizPool(1L, new long[]{1L}, new int[]{0}, List.of()));
+        assertEquals(-1, sampler.sampleBalanced(new RoaringBitmap()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.backend.WhoSaidIt.services.upload;
+
+import com.backend.WhoSaidIt.exceptions.BadFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SizeLimitedInputStreamTests {
+
+    @Test
+    void readsStreamsUpToTheLimit() throws IOException {
+        InputStream input = new SizeLimitedInputStream(new ByteArrayInputStream(new byte[100]), 100);
+        assertEquals(100, input.readAllBytes().length);
+    }
+
+    @Test
+    void rejectsStreamsOverTheLimit() {
+        InputStream input = new SizeLimitedInputStream(new ByteArrayInputStream(new byte[101]), 100);
+        assertThrows(BadFormatException.class, input::readAllBytes);
+    }
+
+    @Test
+    void limitsTheInflatedChatOfASmallArchive() throws IOException {
+        // A megabyte of repeated text compresses to a few kilobytes
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("_chat.txt"));
+            zip.write("a".repeat(1 << 20).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        long limit = 64 * 1024;
+        InputStream body = new SizeLimitedInputStream(new ByteArrayInputStream(archive.toByteArray()), limit);
+        InputStream chat = new SizeLimitedInputStream(ZipExports.openChatEntry(body), limit);
+        assertThrows(BadFormatException.class, chat::readAllBytes);
+    }
+}
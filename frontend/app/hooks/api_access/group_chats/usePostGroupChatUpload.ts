@@ -1,7 +1,15 @@
 import { EXTERNAL_API_ROOT } from "@/app/constants";
 
 import useAuthFetch from "../../security/useAuthFetch";
+import { UploadJob } from "@/app/interfaces";
 
+// How often the status of the upload job is polled once the file has been accepted
+const POLL_INTERVAL_MS: number = 1000;
+
+/*
+    The server accepts the file right away (202) and parses it in the background. The returned upload job is polled
+    until it has either COMPLETED or FAILED, so that a file that cannot be parsed is reported as an error.
+*/
 export default function usePostGroupChatUpload() {
 
     const authFetch = useAuthFetch();
@@ -26,9 +34,13 @@ export default function usePostGroupChatUpload() {
                 body: formData
             });
             if (!response.ok) {
-                if (response.status === 422) {
-                    console.error(`Failed to parse file content: ${response.status}`);
-                    return "Failed to parse file content. Possible bad format."
+                if (response.status === 409) {
+                    console.error(`Duplicate upload: ${response.status}`);
+                    return "This file has already been uploaded";
+                }
+                if (response.status === 503) {
+                    console.error(`Upload queue full: ${response.status}`);
+                    return "The server is busy. Please try again in a moment.";
                 }
                 if (response.status >= 400 && response.status < 500) {
                     console.error(`Client request rejected: ${response.status}`);
@@ -38,12 +50,35 @@ export default function usePostGroupChatUpload() {
                     return "Server failed to process request";
                 }
             }
-            return null;
+
+            const job: UploadJob = await response.json();
+            return await awaitUploadJob(userId, job.jobId);
         } catch (error) {
             console.error(error);
             return "Client failed to process request";
         }
     }
 
+    // Polls the upload job until it finishes. Returns null if it completed, or an error message if it failed.
+    const awaitUploadJob = async (userId: number, jobId: string): Promise<string | null> => {
+        const requestUrl: string = `${EXTERNAL_API_ROOT}/users/${userId}/group-chats/upload/jobs/${jobId}`;
+        while (true) {
+            await new Promise(resolve => setTimeout(resolve, POLL_INTERVAL_MS));
+            const response = await authFetch(requestUrl);
+            if (!response.ok) {
+                console.error(`Failed to fetch upload status: ${response.status}`);
+                return "Failed to retrieve the status of the upload";
+            }
+            const job: UploadJob = await response.json();
+            if (job.phase === "COMPLETED") {
+                return null;
+            }
+            if (job.phase === "FAILED") {
+                console.error(`Upload failed: ${job.error}`);
+                return job.error ?? "Failed to parse file content. Possible bad format.";
+            }
+        }
+    }
+
     return postGroupChatUpload;
-}
\ No newline at end of file
+}
@@ -145,6 +145,16 @@ export interface MessagePage {
     messages: Array<Message>;
 }
 
+export interface UploadJob {
+    jobId: string;
+    phase: "QUEUED" | "PARSING" | "COMMITTING" | "COMPLETED" | "FAILED";
+    totalBytes: number;
+    bytesParsed: number;
+    messagesWritten: number;
+    groupChatId: number | null;
+    error: string | null;
+}
+
 export interface PaginationConfig {
     pageNumber: number;
     pageSize: number;